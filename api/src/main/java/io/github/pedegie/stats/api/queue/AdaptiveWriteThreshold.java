@@ -0,0 +1,58 @@
+package io.github.pedegie.stats.api.queue;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.ToString;
+import lombok.experimental.FieldDefaults;
+
+/**
+ * {@link WriteThreshold} which targets budget of probes per second instead of fixed gates. It starts with full
+ * resolution ({@code minDelayBetweenWritesMillis} 0, {@code minSizeDifference} 1) and every
+ * {@code adjustIntervalMillis} compares amount of writes accepted since previous adjustment with the budget of time
+ * elapsed since then. Above the budget
+ * both gates are doubled, at most to {@code maxDelayBetweenWritesMillis}, at or below half of it they are halved back.
+ * <p>
+ * Gates are adjusted per decorator, so the same instance can be shared by many queues. Accepted writes are counted in
+ * plain fields on write path, concurrent writers may lose some increments, it only makes adjustment less precise.
+ */
+@FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+@Getter
+@ToString(callSuper = true)
+public class AdaptiveWriteThreshold extends WriteThreshold
+{
+    private static final long DEFAULT_MAX_DELAY_MILLIS = 5000;
+    private static final long DEFAULT_ADJUST_INTERVAL_MILLIS = 1000;
+
+    long probesPerSecond;
+    long maxDelayBetweenWritesMillis;
+    long adjustIntervalMillis;
+
+    private AdaptiveWriteThreshold(long probesPerSecond, long maxDelayBetweenWritesMillis, long adjustIntervalMillis)
+    {
+        super(0, 1);
+        this.probesPerSecond = probesPerSecond;
+        this.maxDelayBetweenWritesMillis = maxDelayBetweenWritesMillis;
+        this.adjustIntervalMillis = adjustIntervalMillis;
+    }
+
+    public static AdaptiveWriteThreshold probesPerSecond(long probesPerSecond)
+    {
+        return new AdaptiveWriteThreshold(probesPerSecond, DEFAULT_MAX_DELAY_MILLIS, DEFAULT_ADJUST_INTERVAL_MILLIS);
+    }
+
+    public static AdaptiveWriteThreshold of(long probesPerSecond, long maxDelayBetweenWritesMillis, long adjustIntervalMillis)
+    {
+        return new AdaptiveWriteThreshold(probesPerSecond, maxDelayBetweenWritesMillis, adjustIntervalMillis);
+    }
+
+    /**
+     * Adjustment happens on first write after {@code adjustIntervalMillis}, which may be much later if queue was idle,
+     * so budget is scaled by actually elapsed time
+     *
+     * @return accepted writes allowed within {@code elapsedMillis}, at least 1
+     */
+    long budgetFor(long elapsedMillis)
+    {
+        return Math.max(1, probesPerSecond * elapsedMillis / 1000);
+    }
+}
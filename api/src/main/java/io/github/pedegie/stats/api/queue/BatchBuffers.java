@@ -0,0 +1,77 @@
+package io.github.pedegie.stats.api.queue;
+
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import net.openhft.chronicle.bytes.Bytes;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Pair of off-heap batches. Probes are written to active batch, while the second one is either empty and waits for
+ * {@link #swap()} or it's being drained to file. Swapping has to be done by the thread which holds {@link StateUpdater}
+ * BUSY state, draining and {@link #release(Bytes)} may be done by any thread, outside of it.
+ */
+@FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+class BatchBuffers
+{
+    AtomicReference<Bytes<?>> spare;
+    int probeSize;
+    @NonFinal
+    Bytes<?> active;
+
+    BatchBuffers(long capacity, int probeSize)
+    {
+        this.probeSize = probeSize;
+        this.active = Bytes.allocateDirect(capacity);
+        this.spare = new AtomicReference<>(Bytes.allocateDirect(capacity));
+    }
+
+    Bytes<?> active()
+    {
+        return active;
+    }
+
+    boolean isFull()
+    {
+        return active.realCapacity() - active.writePosition() < probeSize;
+    }
+
+    boolean isEmpty()
+    {
+        return active.writePosition() == 0;
+    }
+
+    /**
+     * @return batch which has to be drained and then released, or {@code null} if previous batch is still being drained
+     */
+    Bytes<?> swap()
+    {
+        Bytes<?> empty = spare.getAndSet(null);
+        if (empty == null)
+            return null;
+
+        Bytes<?> full = active;
+        active = empty;
+        return full;
+    }
+
+    void release(Bytes<?> drained)
+    {
+        drained.clear();
+        spare.set(drained);
+    }
+
+    boolean isDraining()
+    {
+        return spare.get() == null;
+    }
+
+    void releaseLast()
+    {
+        active.releaseLast();
+        Bytes<?> empty = spare.getAndSet(null);
+        if (empty != null)
+            empty.releaseLast();
+    }
+}
@@ -24,4 +24,11 @@ interface BatchFlushable
      * Its information for {@link Flusher} to remove {@link BatchFlushable} from queue on next iteration
      */
     boolean isClosed();
+
+    /**
+     * Invoked by {@link Flusher} when {@link #batchFlush()} failed all tries and flushing is postponed to next interval
+     */
+    default void onFlushPostponed()
+    {
+    }
 }
@@ -0,0 +1,43 @@
+package io.github.pedegie.stats.api.queue;
+
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+
+@FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+class CachedClock implements Clock
+{
+    int readEvery;
+    ThreadLocal<CachedTime> cachedTime = ThreadLocal.withInitial(CachedTime::new);
+
+    CachedClock(int readEvery)
+    {
+        if (readEvery < 1)
+            throw new IllegalArgumentException("readEvery [ " + readEvery + " ] cannot be less than 1");
+
+        this.readEvery = readEvery;
+    }
+
+    @Override
+    public long currentTimeMillis()
+    {
+        CachedTime time = cachedTime.get();
+        if (--time.callsLeft <= 0)
+        {
+            time.callsLeft = readEvery;
+            time.timestamp = System.currentTimeMillis();
+        }
+        return time.timestamp;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "cachedClock readEvery " + readEvery;
+    }
+
+    private static class CachedTime
+    {
+        private int callsLeft;
+        private long timestamp;
+    }
+}
@@ -0,0 +1,47 @@
+package io.github.pedegie.stats.api.queue;
+
+/**
+ * Source of probe timestamps. It's invoked on every write, before {@link WriteThreshold} decides whether
+ * write should be accepted, so its cost is paid even for rejected writes.
+ */
+@FunctionalInterface
+public interface Clock
+{
+    /**
+     * @return current time in milliseconds
+     */
+    long currentTimeMillis();
+
+    /**
+     * @return {@code Clock} backed by {@link System#currentTimeMillis()}
+     */
+    static Clock systemClock()
+    {
+        return SystemClock.INSTANCE;
+    }
+
+    /**
+     * Clock shared by all queues, where single daemon thread publishes current time every millisecond, so reading
+     * time is just reading volatile field. Timestamps may lag behind {@link System#currentTimeMillis()} by about
+     * one millisecond.
+     *
+     * @return shared background-ticking {@code Clock}
+     */
+    static Clock tickingClock()
+    {
+        return TickingClock.instance();
+    }
+
+    /**
+     * Clock which caches time per thread and reads {@link System#currentTimeMillis()} only every {@code readEvery}
+     * call. Suitable for collections accessed very often - if there are long pauses between calls, timestamps
+     * may be stale for the time of {@code readEvery} calls.
+     *
+     * @param readEvery how many calls share the same timestamp
+     * @return per-thread cached {@code Clock}
+     */
+    static Clock cachedClock(int readEvery)
+    {
+        return new CachedClock(readEvery);
+    }
+}
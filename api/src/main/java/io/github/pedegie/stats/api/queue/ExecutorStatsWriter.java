@@ -0,0 +1,101 @@
+package io.github.pedegie.stats.api.queue;
+
+import io.github.pedegie.stats.api.queue.probe.ExecutorProbeAccess;
+import io.github.pedegie.stats.api.queue.probe.ProbeAccess;
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import net.openhft.chronicle.bytes.Bytes;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps thread pool counters, {@link #adder} holds tasks submitted but not started yet. Thread pool fields are read
+ * only when probe is really written, so counters updated on task path are just {@link LongAdder}s
+ */
+@FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+class ExecutorStatsWriter extends StatsWriter
+{
+    ExecutorProbeAccess executorAccess = ProbeAccess.executorAccess();
+    LongAdder activeThreads = new LongAdder();
+    AtomicInteger poolSize = new AtomicInteger();
+    LongAdder completedTasks = new LongAdder();
+    LongAdder rejectedTasks = new LongAdder();
+    AtomicLong writtenCompletedTasks = new AtomicLong();
+    AtomicLong writtenRejectedTasks = new AtomicLong();
+
+    ExecutorStatsWriter(QueueConfiguration queueConfiguration)
+    {
+        super(queueConfiguration.withProbeAccess(ProbeAccess.executorAccess()));
+    }
+
+    void submitted()
+    {
+        adder.increment();
+        write(1);
+    }
+
+    void started()
+    {
+        adder.decrement();
+        activeThreads.increment();
+        write(1);
+    }
+
+    void completed()
+    {
+        activeThreads.decrement();
+        completedTasks.increment();
+        write(1);
+    }
+
+    void rejected()
+    {
+        adder.decrement();
+        rejectedTasks.increment();
+        write(1);
+    }
+
+    /**
+     * Tasks taken out of the queue without being started nor rejected
+     */
+    void removed(int tasks)
+    {
+        if (tasks > 0)
+        {
+            adder.add(-tasks);
+            write(tasks);
+        }
+    }
+
+    void threadStarted()
+    {
+        poolSize.incrementAndGet();
+        write(1);
+    }
+
+    void threadTerminated()
+    {
+        poolSize.decrementAndGet();
+        write(1);
+    }
+
+    @Override
+    protected void writeProbe(Bytes<?> batchBytes, int count, long timestamp)
+    {
+        executorAccess.writeProbe(batchBytes, count, timestamp, activeThreads.intValue(), poolSize.get(),
+                delta(completedTasks, writtenCompletedTasks), delta(rejectedTasks, writtenRejectedTasks));
+    }
+
+    /**
+     * Stripes may write probes concurrently, so only the writer which moved {@code written} forward gets the delta,
+     * sum of all written deltas is always equal to counter
+     */
+    private static int delta(LongAdder counter, AtomicLong written)
+    {
+        long current = counter.sum();
+        long previous = written.getAndAccumulate(current, Math::max);
+        return (int) Math.max(0, current - previous);
+    }
+}
@@ -5,12 +5,18 @@ import lombok.experimental.FieldDefaults;
 import lombok.experimental.NonFinal;
 import lombok.extern.slf4j.Slf4j;
 
-import java.util.Comparator;
-import java.util.PriorityQueue;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.LockSupport;
 
+/**
+ * Single thread flushing batches of all decorators. Flushables are registered and deregistered through lock-free
+ * multi-producer queues, which flusher drains in bulk, so many decorators created or closed at once by different
+ * threads don't wait for each other, nor for flusher.
+ */
 @FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
 @Slf4j
 class Flusher implements Runnable
@@ -23,8 +29,13 @@ class Flusher implements Runnable
     volatile Thread flusherThread;
 
     AtomicBoolean isRunning = new AtomicBoolean();
-    PriorityQueue<TimestampedFlushable> flushables = new PriorityQueue<>(Comparator.comparingLong(s -> s.flushTimestamp));
-    AtomicReference<TimestampedFlushable> newFlushable = new AtomicReference<>();
+    TimingWheel flushables = new TimingWheel(System.currentTimeMillis());
+    /**
+     * Accessed only by flusher thread (or before it starts), identity based since decorators override equals
+     */
+    Map<BatchFlushable, TimestampedFlushable> scheduled = new IdentityHashMap<>();
+    ConcurrentLinkedQueue<TimestampedFlushable> registrations = new ConcurrentLinkedQueue<>();
+    ConcurrentLinkedQueue<BatchFlushable> deregistrations = new ConcurrentLinkedQueue<>();
     AtomicBoolean pausing = new AtomicBoolean();
 
     public Flusher()
@@ -46,15 +57,30 @@ class Flusher implements Runnable
         TimestampedFlushable timestampedFlushable = new TimestampedFlushable(flushable);
         if (flusherNotStartedYet() || flusherThread == Thread.currentThread())
         {
-            flushables.add(timestampedFlushable);
+            schedule(timestampedFlushable);
             return;
         }
 
-        do
-        {
-            unpause();
-        } while (isRunning.get() && !newFlushable.compareAndSet(null, timestampedFlushable));
+        registrations.offer(timestampedFlushable);
+        unpause();
+    }
 
+    /**
+     * Stops scheduling of closed {@code flushable} without waiting until its next flush. Closed flushable is
+     * eventually dropped by flusher anyway, this just releases it earlier.
+     */
+    public void removeFlushable(BatchFlushable flushable)
+    {
+        deregistrations.offer(flushable);
+        unpause();
+    }
+
+    public void removeFlushables(Collection<? extends BatchFlushable> flushables)
+    {
+        if (flushables.isEmpty())
+            return;
+
+        deregistrations.addAll(flushables);
         unpause();
     }
 
@@ -89,73 +115,125 @@ class Flusher implements Runnable
     @Override
     public void run()
     {
-        int acceptFlushableModCount = ACCEPT_FLUSHABLE_MOD_COUNT;
-
         while (isRunning.get())
         {
-            TimestampedFlushable flushable = flushables.poll();
-
-            if (flushable == null && !acceptNewFlushable())
-                pause();
+            acceptRegistrations();
+            var expired = flushables.advance(System.currentTimeMillis());
 
-            if (flushable == null) // spurious wakeup, accepted new flushable or closing flusher, continue to make decision
-                continue;
-            try
+            if (expired == null)
             {
-                if (flushable.batchFlushable.isClosed())
-                    continue;
+                if (!acceptRegistrations())
+                    pauseUntil(flushables.nextTick());
 
-                var currentTime = System.currentTimeMillis();
-                var nextFlushTimestamp = flushable.calculateNextFlushTimestamp();
-                var waitMillis = nextFlushTimestamp - currentTime;
+                continue; // spurious wakeup, accepted registrations or closing flusher, continue to make decision
+            }
 
-                if (waitMillis > 1 || --acceptFlushableModCount <= 0)
-                {
-                    flushables.add(flushable);
+            int acceptFlushableModCount = ACCEPT_FLUSHABLE_MOD_COUNT;
+            while (expired != null)
+            {
+                var flushable = (TimestampedFlushable) expired;
+                expired = expired.next;
+                process(flushable);
 
+                if (--acceptFlushableModCount <= 0)
+                {
                     acceptFlushableModCount = ACCEPT_FLUSHABLE_MOD_COUNT;
-                    if (acceptNewFlushable())
-                        continue;
+                    acceptRegistrations();
+                }
+            }
+        }
 
-                    pause(waitMillis);
+        flushables.clear();
+        scheduled.clear();
+        deregistrations.clear();
+    }
 
-                    if (System.currentTimeMillis() - currentTime < waitMillis)
-                        acceptNewFlushable();
-                } else
-                {
-                    boolean flushed = flush(flushable, nextFlushTimestamp);
-                    if (flushed)
-                        flushable.flushTimestamp = flushable.calculateNextFlushTimestamp();
-                    else
-                        flushable.flushTimestamp = addLong(nextFlushTimestamp, flushable.batchFlushable.flushIntervalMillis());
+    /**
+     * Flushes {@code flushable} or postpones it, if it was flushed in meanwhile, then schedules it again. Closed
+     * flushable is just not scheduled anymore.
+     */
+    private void process(TimestampedFlushable flushable)
+    {
+        try
+        {
+            if (flushable.batchFlushable.isClosed())
+            {
+                scheduled.remove(flushable.batchFlushable, flushable);
+                return;
+            }
 
-                    flushables.add(flushable);
-                }
-            } catch (Exception e)
+            // removed or registered again while waiting in expired list
+            if (scheduled.get(flushable.batchFlushable) != flushable)
+                return;
+
+            var nextFlushTimestamp = flushable.calculateNextFlushTimestamp();
+            if (nextFlushTimestamp - System.currentTimeMillis() > 1)
             {
-                log.error("Error during flushing. Postponing flushable to next interval.", e);
-                try
+                flushable.deadline = nextFlushTimestamp;
+            } else
+            {
+                boolean flushed = flush(flushable, nextFlushTimestamp);
+                if (flushed)
                 {
-                    flushable.flushTimestamp = addLong(System.currentTimeMillis(), flushable.batchFlushable.flushIntervalMillis());
-                    flushables.add(flushable);
-                } catch (Exception ex)
+                    flushable.deadline = flushable.calculateNextFlushTimestamp();
+                } else
                 {
-                    log.error("Error during calculation of next flush timestamp. Flushable is removed from scheduling!");
+                    flushable.batchFlushable.onFlushPostponed();
+                    flushable.deadline = addLong(nextFlushTimestamp, flushable.batchFlushable.flushIntervalMillis());
                 }
             }
+
+            flushables.add(flushable);
+        } catch (Exception e)
+        {
+            log.error("Error during flushing. Postponing flushable to next interval.", e);
+            try
+            {
+                flushable.deadline = addLong(System.currentTimeMillis(), flushable.batchFlushable.flushIntervalMillis());
+                flushables.add(flushable);
+            } catch (Exception ex)
+            {
+                scheduled.remove(flushable.batchFlushable, flushable);
+                log.error("Error during calculation of next flush timestamp. Flushable is removed from scheduling!");
+            }
         }
+    }
 
-        flushables.clear();
+    /**
+     * Drains all pending registrations, then all pending deregistrations
+     *
+     * @return true if anything has been drained
+     */
+    private boolean acceptRegistrations()
+    {
+        boolean accepted = false;
+        TimestampedFlushable flushable;
+        while ((flushable = registrations.poll()) != null)
+        {
+            if (!flushable.batchFlushable.isClosed())
+                schedule(flushable);
+            accepted = true;
+        }
+
+        BatchFlushable removed;
+        while ((removed = deregistrations.poll()) != null)
+        {
+            // registration not drained yet is skipped later as closed
+            TimestampedFlushable timestampedFlushable = scheduled.remove(removed);
+            if (timestampedFlushable != null)
+                flushables.remove(timestampedFlushable);
+            accepted = true;
+        }
+        return accepted;
     }
 
-    private boolean acceptNewFlushable()
+    private void schedule(TimestampedFlushable flushable)
     {
-        TimestampedFlushable flushable = newFlushable.getAndSet(null);
-        if (flushable == null)
-            return false;
+        TimestampedFlushable previous = scheduled.put(flushable.batchFlushable, flushable);
+        if (previous != null)
+            flushables.remove(previous);
 
         flushables.add(flushable);
-        return true;
     }
 
     private boolean flush(TimestampedFlushable flushable, long nextFlushTimestamp)
@@ -185,6 +263,14 @@ class Flusher implements Runnable
         pausing.set(false);
     }
 
+    private void pauseUntil(long tick)
+    {
+        if (tick == Long.MAX_VALUE)
+            pause();
+        else
+            pause(tick - System.currentTimeMillis());
+    }
+
     private void pause(long millis)
     {
         if (millis < 1)
@@ -206,20 +292,19 @@ class Flusher implements Runnable
             LockSupport.unpark(thread);
     }
 
-    private static class TimestampedFlushable
+    private static class TimestampedFlushable extends TimingWheel.Timeout
     {
         private final BatchFlushable batchFlushable;
-        private long flushTimestamp;
 
         private TimestampedFlushable(BatchFlushable batchFlushable)
         {
             this.batchFlushable = batchFlushable;
             if (batchFlushable.lastBatchFlushTimestamp() == 0)
             {
-                this.flushTimestamp = addLong(System.currentTimeMillis(), batchFlushable.flushIntervalMillis());
+                this.deadline = addLong(System.currentTimeMillis(), batchFlushable.flushIntervalMillis());
             } else
             {
-                this.flushTimestamp = calculateNextFlushTimestamp();
+                this.deadline = calculateNextFlushTimestamp();
             }
         }
 
@@ -228,7 +313,7 @@ class Flusher implements Runnable
             long lastBatchFlushTimestamp = batchFlushable.lastBatchFlushTimestamp();
             if (lastBatchFlushTimestamp == 0)
             {
-                return flushTimestamp;
+                return deadline;
             }
 
             return addLong(lastBatchFlushTimestamp, batchFlushable.flushIntervalMillis());
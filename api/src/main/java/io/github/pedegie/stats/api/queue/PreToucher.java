@@ -0,0 +1,126 @@
+package io.github.pedegie.stats.api.queue;
+
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import lombok.extern.slf4j.Slf4j;
+import net.openhft.chronicle.queue.impl.single.SingleChronicleQueue;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Single background thread shared by all queues created with {@link QueueConfiguration#isPreTouch()}. Periodically
+ * invokes {@link net.openhft.chronicle.queue.ExcerptAppender#pretouch()} of its own appender for each queue, which
+ * touches pages ahead of current write position and creates file of next roll cycle before cycle boundary, so page
+ * faults are taken here instead of on write path.
+ */
+@FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+@Slf4j
+class PreToucher implements Runnable
+{
+    private static final long PRE_TOUCH_INTERVAL_MILLIS = 100;
+
+    long preTouchIntervalNanos;
+    Set<SingleChronicleQueue> queues = ConcurrentHashMap.newKeySet();
+    AtomicBoolean isRunning = new AtomicBoolean();
+
+    @NonFinal
+    volatile Thread preToucherThread;
+    @NonFinal
+    volatile SingleChronicleQueue touching;
+
+    PreToucher()
+    {
+        this(PRE_TOUCH_INTERVAL_MILLIS);
+    }
+
+    PreToucher(long preTouchIntervalMillis)
+    {
+        if (preTouchIntervalMillis < 1)
+            throw new IllegalArgumentException("Incorrect pre-toucher values. " +
+                    "preTouchIntervalMillis [ " + preTouchIntervalMillis + " ] cannot be less than 1");
+
+        this.preTouchIntervalNanos = TimeUnit.MILLISECONDS.toNanos(preTouchIntervalMillis);
+    }
+
+    void addQueue(SingleChronicleQueue queue)
+    {
+        queues.add(queue);
+        start();
+        // first pre-touch as soon as possible, new queue didn't touch any page yet
+        LockSupport.unpark(preToucherThread);
+    }
+
+    /**
+     * Has to be invoked before closing {@code queue}, returns when pre-toucher doesn't access it anymore
+     */
+    void removeQueue(SingleChronicleQueue queue)
+    {
+        queues.remove(queue);
+        if (touching == queue)
+            BusyWaiter.busyWaitMillis(() -> touching != queue, 5000, "waiting for pre-touch end");
+    }
+
+    boolean start()
+    {
+        if (isRunning.getAndSet(true))
+            return false;
+
+        preToucherThread = new Thread(this, "stats-pre-toucher");
+        preToucherThread.setDaemon(true);
+        preToucherThread.start();
+        return true;
+    }
+
+    void stop()
+    {
+        isRunning.set(false);
+        Thread thread = preToucherThread;
+        if (thread != null)
+        {
+            LockSupport.unpark(thread);
+            BusyWaiter.busyWaitMillis(() -> !thread.isAlive(), 5000, "waiting for pre-toucher termination");
+        }
+    }
+
+    @Override
+    public void run()
+    {
+        while (isRunning.get())
+        {
+            for (SingleChronicleQueue queue : queues)
+            {
+                preTouch(queue);
+            }
+
+            LockSupport.parkNanos(preTouchIntervalNanos);
+        }
+    }
+
+    private void preTouch(SingleChronicleQueue queue)
+    {
+        touching = queue;
+        try
+        {
+            // checked after publishing touching, so removeQueue either sees it or it sees removal
+            if (!queues.contains(queue))
+                return;
+
+            if (queue.isClosed())
+                queues.remove(queue);
+            else
+                queue.acquireAppender().pretouch();
+        } catch (Exception e)
+        {
+            log.warn("Error during pre-touching {}. Pre-touching of this queue is stopped.", queue.file(), e);
+            queues.remove(queue);
+        } finally
+        {
+            touching = null;
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package io.github.pedegie.stats.api.queue;
+
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import net.openhft.chronicle.core.OS;
+import net.openhft.chronicle.queue.RollCycle;
+import net.openhft.chronicle.queue.RollCycles;
+import net.openhft.chronicle.queue.impl.single.SingleChronicleQueue;
+import net.openhft.chronicle.queue.impl.single.SingleChronicleQueueBuilder;
+
+import java.io.Closeable;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Single file shared by many decorators. Each decorator configured with {@link QueueConfiguration#getJournal()}
+ * appends its batches to this journal instead of creating its own file, every batch starts with
+ * {@link QueueConfiguration#getSourceId()} of decorator which wrote it, so probes of particular decorators can be
+ * read by {@code ProbeTailer.fromJournal(JournalTailerConfiguration)}.
+ * <p>
+ * Closing decorator doesn't close the journal, closing the journal closes all decorators still appending to it.
+ * Journal file is always pre-touched, {@link QueueConfiguration#isPreTouch()} of decorators doesn't apply to it.
+ */
+@FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+@Slf4j
+public class ProbeJournal implements Closeable
+{
+    private static final long MB_5 = 1024 * 1024 * 5;
+
+    Path path;
+    SingleChronicleQueue chronicleQueue;
+    ConcurrentHashMap<Integer, StatsWriter> sources = new ConcurrentHashMap<>();
+    /**
+     * Running total of probes of all sources, see {@link io.github.pedegie.stats.api.queue.probe.BatchHeader}
+     */
+    AtomicLong totalProbes;
+    /**
+     * Running max of probe timestamps of all sources
+     */
+    AtomicLong timestampBound;
+
+    private ProbeJournal(Path path, long mmapSize, RollCycle rollCycle)
+    {
+        this.path = path;
+        this.chronicleQueue = SingleChronicleQueueBuilder
+                .binary(path)
+                .rollCycle(rollCycle)
+                .blockSize(mmapSize)
+                .build();
+        this.totalProbes = new AtomicLong(StatsWriter.lastTotalProbes(chronicleQueue, Integer.BYTES));
+        this.timestampBound = new AtomicLong(StatsWriter.lastTimestampBound(chronicleQueue, Integer.BYTES));
+        StatsWriter.startPreTouching(chronicleQueue);
+    }
+
+    public static ProbeJournal open(Path path)
+    {
+        return open(path, MB_5, RollCycles.DAILY);
+    }
+
+    public static ProbeJournal open(Path path, long mmapSize, RollCycle rollCycle)
+    {
+        if (mmapSize < OS.pageSize())
+        {
+            throw new IllegalArgumentException("Wrong configuration of " + ProbeJournal.class.getName() + "\n" +
+                    "mmapSize: " + mmapSize + " cannot be less than page size: " + OS.pageSize());
+        }
+
+        System.setProperty("disable.thread.safety", "true");
+        StatsWriter.reservePath(path);
+        try
+        {
+            log.info("Opening probe journal with:\npath: {}\nmmapSize: {} B\nrollCycle: {}", path, mmapSize, rollCycle);
+            return new ProbeJournal(path, mmapSize, rollCycle);
+        } catch (Exception e)
+        {
+            StatsWriter.releasePath(path);
+            throw e;
+        }
+    }
+
+    public Path getPath()
+    {
+        return path;
+    }
+
+    /**
+     * @return number of decorators appending to this journal right now
+     */
+    public int sources()
+    {
+        return sources.size();
+    }
+
+    public boolean isClosed()
+    {
+        return chronicleQueue.isClosed();
+    }
+
+    @Override
+    public void close()
+    {
+        if (chronicleQueue.isClosed())
+            return;
+
+        StatsWriter.closeAll(new ArrayList<>(sources.values()));
+        StatsWriter.stopPreTouching(chronicleQueue);
+        chronicleQueue.close();
+        StatsWriter.releasePath(path);
+    }
+
+    SingleChronicleQueue register(int sourceId, StatsWriter source)
+    {
+        if (chronicleQueue.isClosed())
+            throw new IllegalStateException("Probe journal " + path + " is already closed");
+
+        if (sources.putIfAbsent(sourceId, source) != null)
+            throw new IllegalArgumentException("Source " + sourceId + " already appends to journal " + path);
+
+        return chronicleQueue;
+    }
+
+    void deregister(int sourceId, StatsWriter source)
+    {
+        sources.remove(sourceId, source);
+    }
+
+    /**
+     * @return running total including {@code probes}
+     */
+    long addProbes(int probes)
+    {
+        return totalProbes.addAndGet(probes);
+    }
+
+    /**
+     * @return running max including {@code maxTimestamp}
+     */
+    long raiseTimestampBound(long maxTimestamp)
+    {
+        return timestampBound.accumulateAndGet(maxTimestamp, Math::max);
+    }
+
+    @Override
+    public String toString()
+    {
+        return "ProbeJournal{path=" + path + '}';
+    }
+}
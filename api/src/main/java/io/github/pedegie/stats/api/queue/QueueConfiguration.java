@@ -39,6 +39,21 @@ public class QueueConfiguration
     @Builder.Default
     Batching batching = Batching.defaultConfiguration();
     @Builder.Default
+    Clock clock = Clock.systemClock();
+    @Builder.Default
+    int writeStripes = 1;
+    ProbeJournal journal;
+    int sourceId;
+    /**
+     * Enables counters of skipped writes and flushes, see {@link StatsWriter#internalMetrics()}
+     */
+    boolean internalMetrics;
+    /**
+     * When positive, {@link WriteMetrics} are also written into probes file as meta-data document at most once per
+     * this interval and on close, see {@link WriteMetrics#readLast(Path)}. Requires {@link #internalMetrics}
+     */
+    long internalMetricsWriteMillis;
+    @Builder.Default
     InternalFileAccess internalFileAccess = InternalFileAccess.INSTANCE;
 
 }
@@ -1,5 +1,6 @@
 package io.github.pedegie.stats.api.queue;
 
+import io.github.pedegie.stats.api.queue.probe.ProbeAccess;
 import net.openhft.chronicle.core.OS;
 
 import java.util.Objects;
@@ -11,7 +12,13 @@ class QueueConfigurationValidator
     public static void validate(QueueConfiguration queueConfiguration)
     {
         Objects.requireNonNull(queueConfiguration);
-        Objects.requireNonNull(queueConfiguration.getPath());
+        if (queueConfiguration.getJournal() == null)
+        {
+            Objects.requireNonNull(queueConfiguration.getPath());
+        } else if (queueConfiguration.getSourceId() < 0)
+        {
+            throw new IllegalArgumentException(EXCEPTION_HEADER + "sourceId: " + queueConfiguration.getSourceId() + " cannot be negative");
+        }
 
         if (queueConfiguration.getMmapSize() < OS.pageSize())
         {
@@ -27,5 +34,60 @@ class QueueConfigurationValidator
         {
             throw new IllegalArgumentException(EXCEPTION_HEADER + "flushMillisThreshold: " + queueConfiguration.getBatching().getFlushMillisThreshold() + " cannot be less than 10");
         }
+
+        if (queueConfiguration.getProbeAccess() == ProbeAccess.compressedAccess() && queueConfiguration.getBatching().getFlushMillisThreshold() > Integer.MAX_VALUE)
+        {
+            throw new IllegalArgumentException(EXCEPTION_HEADER + "flushMillisThreshold: " + queueConfiguration.getBatching().getFlushMillisThreshold() + " cannot be greater than " + Integer.MAX_VALUE + " when using compressed probe access");
+        }
+
+        int writeStripes = queueConfiguration.getWriteStripes();
+        if (writeStripes < 1 || Integer.bitCount(writeStripes) != 1)
+        {
+            throw new IllegalArgumentException(EXCEPTION_HEADER + "writeStripes: " + writeStripes + " has to be positive power of 2");
+        }
+
+        if (writeStripes > 1 && queueConfiguration.isDisableSynchronization())
+        {
+            throw new IllegalArgumentException(EXCEPTION_HEADER + "writeStripes: " + writeStripes + " cannot be greater than 1 when synchronization is disabled");
+        }
+
+        if (queueConfiguration.getWriteThreshold() instanceof AdaptiveWriteThreshold)
+        {
+            validate((AdaptiveWriteThreshold) queueConfiguration.getWriteThreshold());
+        }
+
+        long internalMetricsWriteMillis = queueConfiguration.getInternalMetricsWriteMillis();
+        if (internalMetricsWriteMillis < 0)
+        {
+            throw new IllegalArgumentException(EXCEPTION_HEADER + "internalMetricsWriteMillis: " + internalMetricsWriteMillis + " cannot be negative");
+        }
+
+        if (internalMetricsWriteMillis > 0 && !queueConfiguration.isInternalMetrics())
+        {
+            throw new IllegalArgumentException(EXCEPTION_HEADER + "internalMetricsWriteMillis: " + internalMetricsWriteMillis + " requires internalMetrics to be enabled");
+        }
+
+        if (internalMetricsWriteMillis > 0 && queueConfiguration.getJournal() != null)
+        {
+            throw new IllegalArgumentException(EXCEPTION_HEADER + "internalMetricsWriteMillis: " + internalMetricsWriteMillis + " is not supported when writing to journal");
+        }
+    }
+
+    private static void validate(AdaptiveWriteThreshold writeThreshold)
+    {
+        if (writeThreshold.getProbesPerSecond() < 1)
+        {
+            throw new IllegalArgumentException(EXCEPTION_HEADER + "probesPerSecond: " + writeThreshold.getProbesPerSecond() + " cannot be less than 1");
+        }
+
+        if (writeThreshold.getMaxDelayBetweenWritesMillis() < 1)
+        {
+            throw new IllegalArgumentException(EXCEPTION_HEADER + "maxDelayBetweenWritesMillis: " + writeThreshold.getMaxDelayBetweenWritesMillis() + " cannot be less than 1");
+        }
+
+        if (writeThreshold.getAdjustIntervalMillis() < 1)
+        {
+            throw new IllegalArgumentException(EXCEPTION_HEADER + "adjustIntervalMillis: " + writeThreshold.getAdjustIntervalMillis() + " cannot be less than 1");
+        }
     }
 }
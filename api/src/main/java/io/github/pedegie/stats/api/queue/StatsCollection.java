@@ -0,0 +1,219 @@
+package io.github.pedegie.stats.api.queue;
+
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.function.Predicate;
+
+/**
+ * Base of all {@link Collection} decorators. Bulk removals are counted from results of removals of decorated
+ * {@code Collection}, so they don't need {@link Collection#size()}, which is O(n) for some concurrent collections.
+ */
+@FieldDefaults(makeFinal = true, level = AccessLevel.PROTECTED)
+public class StatsCollection<T> extends StatsWriter implements Collection<T>
+{
+    Collection<T> collection;
+
+    protected StatsCollection(Collection<T> collection, QueueConfiguration queueConfiguration)
+    {
+        super(queueConfiguration);
+        this.collection = collection;
+    }
+
+    @Override
+    public int size()
+    {
+        return collection.size();
+    }
+
+    @Override
+    public boolean isEmpty()
+    {
+        return collection.isEmpty();
+    }
+
+    @Override
+    public boolean contains(Object o)
+    {
+        return collection.contains(o);
+    }
+
+    @NotNull
+    @Override
+    public Iterator<T> iterator()
+    {
+        return new StatsIterator<>(collection.iterator(), this);
+    }
+
+    @Override
+    public Object[] toArray()
+    {
+        return collection.toArray();
+    }
+
+    @Override
+    public <T1> T1[] toArray(T1 @NotNull [] a)
+    {
+        return collection.toArray(a);
+    }
+
+    @Override
+    public boolean add(@NotNull T t)
+    {
+        boolean added = collection.add(t);
+        if (added)
+        {
+            adder.increment();
+            write(1);
+        }
+        return added;
+    }
+
+    @Override
+    public boolean remove(Object o)
+    {
+        boolean removed = collection.remove(o);
+        if (removed)
+        {
+            adder.decrement();
+            write(1);
+        }
+        return removed;
+    }
+
+    @Override
+    public boolean containsAll(@NotNull Collection<?> c)
+    {
+        return collection.containsAll(c);
+    }
+
+    @Override
+    public boolean addAll(@NotNull Collection<? extends T> c)
+    {
+        boolean added = collection.addAll(c);
+        if (added)
+        {
+            int size = c.size();
+            adder.add(size);
+            write(size);
+        }
+        return added;
+    }
+
+    @Override
+    public boolean removeAll(@NotNull Collection<?> c)
+    {
+        return removeIf(c::contains);
+    }
+
+    @Override
+    public boolean retainAll(@NotNull Collection<?> c)
+    {
+        return removeIf(element -> !c.contains(element));
+    }
+
+    @Override
+    public boolean removeIf(Predicate<? super T> filter)
+    {
+        return removeIf(collection, filter);
+    }
+
+    @Override
+    public void clear()
+    {
+        var difference = collection.size();
+        collection.clear();
+        adder = newAdder();
+        write(difference);
+    }
+
+    /**
+     * Removes from given {@code collection}, which is decorated collection or its view
+     */
+    protected boolean removeIf(Collection<T> collection, Predicate<? super T> filter)
+    {
+        int removed = !disableSync && weaklyConsistent(collection)
+                ? removeMatchedConcurrently(collection, filter)
+                : removeMatched(collection, filter);
+        if (removed != 0)
+        {
+            adder.add(-removed);
+            write(removed);
+        }
+        return removed != 0;
+    }
+
+    /**
+     * Iterators of these collections don't fail on concurrent modification, so element matched by
+     * {@link Collection#removeIf(Predicate)} may be already removed by another thread
+     */
+    private static boolean weaklyConsistent(Collection<?> collection)
+    {
+        return collection instanceof ConcurrentSkipListSet
+                || collection instanceof CopyOnWriteArraySet
+                || collection instanceof ConcurrentLinkedDeque;
+    }
+
+    /**
+     * Collection is accessed by single thread or its {@code removeIf} is atomic, so every matched element is removed
+     */
+    private static <T> int removeMatched(Collection<T> collection, Predicate<? super T> filter)
+    {
+        var countingFilter = new CountingFilter<T>(filter);
+        collection.removeIf(countingFilter);
+        return countingFilter.matched;
+    }
+
+    /**
+     * Matched element may be removed by another thread before this one removes it, so only successful
+     * {@link Collection#remove(Object)} is counted. Iterator of concurrent collections doesn't tell that (or doesn't
+     * support removal at all, like {@code CopyOnWriteArraySet}), hence matched elements are collected first
+     */
+    private static <T> int removeMatchedConcurrently(Collection<T> collection, Predicate<? super T> filter)
+    {
+        List<T> matched = new ArrayList<>();
+        for (T element : collection)
+        {
+            if (filter.test(element))
+                matched.add(element);
+        }
+
+        int removed = 0;
+        for (T element : matched)
+        {
+            if (collection.remove(element))
+                removed++;
+        }
+        return removed;
+    }
+
+    private static class CountingFilter<T> implements Predicate<T>
+    {
+        private final Predicate<? super T> filter;
+        private int matched;
+
+        private CountingFilter(Predicate<? super T> filter)
+        {
+            this.filter = filter;
+        }
+
+        @Override
+        public boolean test(T element)
+        {
+            if (filter.test(element))
+            {
+                matched++;
+                return true;
+            }
+            return false;
+        }
+    }
+}
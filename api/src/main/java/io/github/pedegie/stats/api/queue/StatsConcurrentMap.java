@@ -0,0 +1,14 @@
+package io.github.pedegie.stats.api.queue;
+
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * {@link StatsMap} keeps atomicity of decorated map, it only has to be exposed as {@link ConcurrentMap}
+ */
+public class StatsConcurrentMap<K, V> extends StatsMap<K, V> implements ConcurrentMap<K, V>
+{
+    protected StatsConcurrentMap(ConcurrentMap<K, V> map, QueueConfiguration queueConfiguration)
+    {
+        super(map, queueConfiguration);
+    }
+}
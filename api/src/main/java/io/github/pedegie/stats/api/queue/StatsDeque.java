@@ -0,0 +1,174 @@
+package io.github.pedegie.stats.api.queue;
+
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Deque;
+import java.util.Iterator;
+
+@FieldDefaults(makeFinal = true, level = AccessLevel.PROTECTED)
+public class StatsDeque<T> extends StatsQueue<T> implements Deque<T>
+{
+    Deque<T> deque;
+
+    protected StatsDeque(Deque<T> deque, QueueConfiguration queueConfiguration)
+    {
+        super(deque, queueConfiguration);
+        this.deque = deque;
+    }
+
+    public static <T> StatsDeque<T> deque(Deque<T> deque, QueueConfiguration queueConfiguration)
+    {
+        return new StatsDeque<>(deque, queueConfiguration);
+    }
+
+    @Override
+    public void addFirst(T t)
+    {
+        deque.addFirst(t);
+        adder.increment();
+        write(1);
+    }
+
+    @Override
+    public void addLast(T t)
+    {
+        deque.addLast(t);
+        adder.increment();
+        write(1);
+    }
+
+    @Override
+    public boolean offerFirst(T t)
+    {
+        boolean offered = deque.offerFirst(t);
+        if (offered)
+        {
+            adder.increment();
+            write(1);
+        }
+        return offered;
+    }
+
+    @Override
+    public boolean offerLast(T t)
+    {
+        boolean offered = deque.offerLast(t);
+        if (offered)
+        {
+            adder.increment();
+            write(1);
+        }
+        return offered;
+    }
+
+    @Override
+    public T removeFirst()
+    {
+        T removed = deque.removeFirst();
+        adder.decrement();
+        write(1);
+        return removed;
+    }
+
+    @Override
+    public T removeLast()
+    {
+        T removed = deque.removeLast();
+        adder.decrement();
+        write(1);
+        return removed;
+    }
+
+    @Override
+    public T pollFirst()
+    {
+        T polled = deque.pollFirst();
+        if (polled != null)
+        {
+            adder.decrement();
+            write(1);
+        }
+        return polled;
+    }
+
+    @Override
+    public T pollLast()
+    {
+        T polled = deque.pollLast();
+        if (polled != null)
+        {
+            adder.decrement();
+            write(1);
+        }
+        return polled;
+    }
+
+    @Override
+    public T getFirst()
+    {
+        return deque.getFirst();
+    }
+
+    @Override
+    public T getLast()
+    {
+        return deque.getLast();
+    }
+
+    @Override
+    public T peekFirst()
+    {
+        return deque.peekFirst();
+    }
+
+    @Override
+    public T peekLast()
+    {
+        return deque.peekLast();
+    }
+
+    @Override
+    public boolean removeFirstOccurrence(Object o)
+    {
+        boolean removed = deque.removeFirstOccurrence(o);
+        if (removed)
+        {
+            adder.decrement();
+            write(1);
+        }
+        return removed;
+    }
+
+    @Override
+    public boolean removeLastOccurrence(Object o)
+    {
+        boolean removed = deque.removeLastOccurrence(o);
+        if (removed)
+        {
+            adder.decrement();
+            write(1);
+        }
+        return removed;
+    }
+
+    @Override
+    public void push(T t)
+    {
+        addFirst(t);
+    }
+
+    @Override
+    public T pop()
+    {
+        return removeFirst();
+    }
+
+    @NotNull
+    @Override
+    public Iterator<T> descendingIterator()
+    {
+        return new StatsIterator<>(deque.descendingIterator(), this);
+    }
+}
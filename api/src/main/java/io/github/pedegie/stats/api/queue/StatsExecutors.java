@@ -0,0 +1,27 @@
+package io.github.pedegie.stats.api.queue;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Counterparts of {@link java.util.concurrent.Executors} factory methods, which return {@link StatsThreadPoolExecutor}
+ */
+public final class StatsExecutors
+{
+    private StatsExecutors()
+    {
+    }
+
+    public static StatsThreadPoolExecutor newFixedThreadPool(int nThreads, QueueConfiguration queueConfiguration)
+    {
+        return new StatsThreadPoolExecutor(nThreads, nThreads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), queueConfiguration);
+    }
+
+    public static StatsThreadPoolExecutor newCachedThreadPool(QueueConfiguration queueConfiguration)
+    {
+        return new StatsThreadPoolExecutor(0, Integer.MAX_VALUE, 60L, TimeUnit.SECONDS,
+                new SynchronousQueue<>(), queueConfiguration);
+    }
+}
@@ -0,0 +1,46 @@
+package io.github.pedegie.stats.api.queue;
+
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+
+import java.util.Iterator;
+import java.util.function.Consumer;
+
+/**
+ * Iterator of decorated {@code Map/Collection} (or any of its views), which accounts elements removed by
+ * {@link #remove()}
+ */
+@FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+@RequiredArgsConstructor
+class StatsIterator<E> implements Iterator<E>
+{
+    Iterator<E> iterator;
+    StatsWriter statsWriter;
+
+    @Override
+    public boolean hasNext()
+    {
+        return iterator.hasNext();
+    }
+
+    @Override
+    public E next()
+    {
+        return iterator.next();
+    }
+
+    @Override
+    public void remove()
+    {
+        iterator.remove();
+        statsWriter.adder.decrement();
+        statsWriter.write(1);
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super E> action)
+    {
+        iterator.forEachRemaining(action);
+    }
+}
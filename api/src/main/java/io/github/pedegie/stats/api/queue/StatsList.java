@@ -0,0 +1,264 @@
+package io.github.pedegie.stats.api.queue;
+
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.AbstractList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+@FieldDefaults(makeFinal = true, level = AccessLevel.PROTECTED)
+public class StatsList<T> extends StatsCollection<T> implements List<T>
+{
+    List<T> list;
+
+    protected StatsList(List<T> list, QueueConfiguration queueConfiguration)
+    {
+        super(list, queueConfiguration);
+        this.list = list;
+    }
+
+    public static <T> StatsList<T> list(List<T> list, QueueConfiguration queueConfiguration)
+    {
+        return new StatsList<>(list, queueConfiguration);
+    }
+
+    @Override
+    public boolean addAll(int index, @NotNull Collection<? extends T> c)
+    {
+        boolean added = list.addAll(index, c);
+        if (added)
+        {
+            int size = c.size();
+            adder.add(size);
+            write(size);
+        }
+        return added;
+    }
+
+    @Override
+    public T get(int index)
+    {
+        return list.get(index);
+    }
+
+    @Override
+    public T set(int index, T element)
+    {
+        return list.set(index, element);
+    }
+
+    @Override
+    public void add(int index, T element)
+    {
+        list.add(index, element);
+        adder.increment();
+        write(1);
+    }
+
+    @Override
+    public T remove(int index)
+    {
+        T removed = list.remove(index);
+        adder.decrement();
+        write(1);
+        return removed;
+    }
+
+    @Override
+    public int indexOf(Object o)
+    {
+        return list.indexOf(o);
+    }
+
+    @Override
+    public int lastIndexOf(Object o)
+    {
+        return list.lastIndexOf(o);
+    }
+
+    @NotNull
+    @Override
+    public ListIterator<T> listIterator()
+    {
+        return new StatsListIterator<>(list.listIterator(), this);
+    }
+
+    @NotNull
+    @Override
+    public ListIterator<T> listIterator(int index)
+    {
+        return new StatsListIterator<>(list.listIterator(index), this);
+    }
+
+    @NotNull
+    @Override
+    public List<T> subList(int fromIndex, int toIndex)
+    {
+        return new SubList(list.subList(fromIndex, toIndex));
+    }
+
+    @Override
+    public void replaceAll(UnaryOperator<T> operator)
+    {
+        list.replaceAll(operator);
+    }
+
+    @Override
+    public void sort(Comparator<? super T> c)
+    {
+        list.sort(c);
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        return list.equals(o);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return list.hashCode();
+    }
+
+    @Override
+    public String toString()
+    {
+        return list.toString();
+    }
+
+    /**
+     * View of decorated list's sub list, modifications are accounted by {@link StatsList} which created it
+     */
+    @FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+    private class SubList extends AbstractList<T>
+    {
+        List<T> subList;
+
+        private SubList(List<T> subList)
+        {
+            this.subList = subList;
+        }
+
+        @Override
+        public T get(int index)
+        {
+            return subList.get(index);
+        }
+
+        @Override
+        public int size()
+        {
+            return subList.size();
+        }
+
+        @Override
+        public T set(int index, T element)
+        {
+            return subList.set(index, element);
+        }
+
+        @Override
+        public void add(int index, T element)
+        {
+            subList.add(index, element);
+            adder.increment();
+            write(1);
+        }
+
+        @Override
+        public T remove(int index)
+        {
+            T removed = subList.remove(index);
+            adder.decrement();
+            write(1);
+            return removed;
+        }
+
+        @Override
+        public boolean addAll(@NotNull Collection<? extends T> c)
+        {
+            return addAll(subList.size(), c);
+        }
+
+        @Override
+        public boolean addAll(int index, @NotNull Collection<? extends T> c)
+        {
+            boolean added = subList.addAll(index, c);
+            if (added)
+            {
+                int size = c.size();
+                adder.add(size);
+                write(size);
+            }
+            return added;
+        }
+
+        @Override
+        public boolean contains(Object o)
+        {
+            return subList.contains(o);
+        }
+
+        @Override
+        public boolean removeAll(@NotNull Collection<?> c)
+        {
+            return removeIf(c::contains);
+        }
+
+        @Override
+        public boolean retainAll(@NotNull Collection<?> c)
+        {
+            return removeIf(element -> !c.contains(element));
+        }
+
+        @Override
+        public boolean removeIf(Predicate<? super T> filter)
+        {
+            return StatsList.this.removeIf(subList, filter);
+        }
+
+        /**
+         * Sub list knows its size without iterating, so there is no need to count removed elements one by one
+         */
+        @Override
+        public void clear()
+        {
+            int size = subList.size();
+            subList.clear();
+            if (size != 0)
+            {
+                adder.add(-size);
+                write(size);
+            }
+        }
+
+        @NotNull
+        @Override
+        public Iterator<T> iterator()
+        {
+            return new StatsIterator<>(subList.iterator(), StatsList.this);
+        }
+
+        @NotNull
+        @Override
+        public ListIterator<T> listIterator(int index)
+        {
+            return new StatsListIterator<>(subList.listIterator(index), StatsList.this);
+        }
+
+        @NotNull
+        @Override
+        public List<T> subList(int fromIndex, int toIndex)
+        {
+            return new SubList(subList.subList(fromIndex, toIndex));
+        }
+    }
+}
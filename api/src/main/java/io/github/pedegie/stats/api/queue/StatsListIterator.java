@@ -0,0 +1,83 @@
+package io.github.pedegie.stats.api.queue;
+
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+
+import java.util.ListIterator;
+import java.util.function.Consumer;
+
+/**
+ * {@link StatsIterator} counterpart for {@link ListIterator}, accounts both {@link #remove()} and {@link #add(Object)}
+ */
+@FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+@RequiredArgsConstructor
+class StatsListIterator<E> implements ListIterator<E>
+{
+    ListIterator<E> iterator;
+    StatsWriter statsWriter;
+
+    @Override
+    public boolean hasNext()
+    {
+        return iterator.hasNext();
+    }
+
+    @Override
+    public E next()
+    {
+        return iterator.next();
+    }
+
+    @Override
+    public boolean hasPrevious()
+    {
+        return iterator.hasPrevious();
+    }
+
+    @Override
+    public E previous()
+    {
+        return iterator.previous();
+    }
+
+    @Override
+    public int nextIndex()
+    {
+        return iterator.nextIndex();
+    }
+
+    @Override
+    public int previousIndex()
+    {
+        return iterator.previousIndex();
+    }
+
+    @Override
+    public void remove()
+    {
+        iterator.remove();
+        statsWriter.adder.decrement();
+        statsWriter.write(1);
+    }
+
+    @Override
+    public void set(E e)
+    {
+        iterator.set(e);
+    }
+
+    @Override
+    public void add(E e)
+    {
+        iterator.add(e);
+        statsWriter.adder.increment();
+        statsWriter.write(1);
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super E> action)
+    {
+        iterator.forEachRemaining(action);
+    }
+}
@@ -0,0 +1,533 @@
+package io.github.pedegie.stats.api.queue;
+
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Size is counted from results of map operations, so decorated {@link Map#size()} is never called on write path
+ * (except {@link #clear()}). Because of that {@code null} values are not supported, as {@code null} returned from
+ * {@link #put(Object, Object)} has to mean there was no mapping for given key.
+ */
+@FieldDefaults(makeFinal = true, level = AccessLevel.PROTECTED)
+public class StatsMap<K, V> extends StatsWriter implements Map<K, V>
+{
+    Map<K, V> map;
+
+    protected StatsMap(Map<K, V> map, QueueConfiguration queueConfiguration)
+    {
+        super(queueConfiguration);
+        this.map = map;
+    }
+
+    public static <K, V> StatsMap<K, V> map(Map<K, V> map, QueueConfiguration queueConfiguration)
+    {
+        return new StatsMap<>(map, queueConfiguration);
+    }
+
+    public static <K, V> StatsConcurrentMap<K, V> concurrentMap(ConcurrentMap<K, V> map, QueueConfiguration queueConfiguration)
+    {
+        return new StatsConcurrentMap<>(map, queueConfiguration);
+    }
+
+    @Override
+    public int size()
+    {
+        return map.size();
+    }
+
+    @Override
+    public boolean isEmpty()
+    {
+        return map.isEmpty();
+    }
+
+    @Override
+    public boolean containsKey(Object key)
+    {
+        return map.containsKey(key);
+    }
+
+    @Override
+    public boolean containsValue(Object value)
+    {
+        return map.containsValue(value);
+    }
+
+    @Override
+    public V get(Object key)
+    {
+        return map.get(key);
+    }
+
+    @Override
+    public V put(K key, V value)
+    {
+        V previous = map.put(key, Objects.requireNonNull(value));
+        if (previous == null)
+        {
+            adder.increment();
+            write(1);
+        }
+        return previous;
+    }
+
+    @Override
+    public V remove(Object key)
+    {
+        V removed = map.remove(key);
+        if (removed != null)
+        {
+            adder.decrement();
+            write(1);
+        }
+        return removed;
+    }
+
+    @Override
+    public void putAll(@NotNull Map<? extends K, ? extends V> m)
+    {
+        int added = 0;
+        for (Entry<? extends K, ? extends V> entry : m.entrySet())
+        {
+            if (map.put(entry.getKey(), Objects.requireNonNull(entry.getValue())) == null)
+                added++;
+        }
+
+        if (added != 0)
+        {
+            adder.add(added);
+            write(added);
+        }
+    }
+
+    @Override
+    public void clear()
+    {
+        var difference = map.size();
+        map.clear();
+        adder = newAdder();
+        write(difference);
+    }
+
+    @NotNull
+    @Override
+    public Set<K> keySet()
+    {
+        return new KeySet();
+    }
+
+    @NotNull
+    @Override
+    public Collection<V> values()
+    {
+        return new Values();
+    }
+
+    @NotNull
+    @Override
+    public Set<Entry<K, V>> entrySet()
+    {
+        return new EntrySet();
+    }
+
+    @Override
+    public V getOrDefault(Object key, V defaultValue)
+    {
+        return map.getOrDefault(key, defaultValue);
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super K, ? super V> action)
+    {
+        map.forEach(action);
+    }
+
+    @Override
+    public void replaceAll(BiFunction<? super K, ? super V, ? extends V> function)
+    {
+        map.replaceAll((key, value) -> Objects.requireNonNull(function.apply(key, value)));
+    }
+
+    @Override
+    public V putIfAbsent(K key, V value)
+    {
+        V previous = map.putIfAbsent(key, Objects.requireNonNull(value));
+        if (previous == null)
+        {
+            adder.increment();
+            write(1);
+        }
+        return previous;
+    }
+
+    @Override
+    public boolean remove(Object key, Object value)
+    {
+        boolean removed = map.remove(key, value);
+        if (removed)
+        {
+            adder.decrement();
+            write(1);
+        }
+        return removed;
+    }
+
+    @Override
+    public boolean replace(K key, V oldValue, V newValue)
+    {
+        return map.replace(key, oldValue, Objects.requireNonNull(newValue));
+    }
+
+    @Override
+    public V replace(K key, V value)
+    {
+        return map.replace(key, Objects.requireNonNull(value));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V computeIfAbsent(K key, @NotNull Function<? super K, ? extends V> mappingFunction)
+    {
+        var sizeChange = SizeChange.acquire(mappingFunction, null, false);
+        V value;
+        try
+        {
+            value = map.computeIfAbsent(key, (Function<? super K, ? extends V>) sizeChange.absentMapping);
+        } finally
+        {
+            sizeChange.release();
+        }
+        sizeChanged(sizeChange.difference);
+        return value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V computeIfPresent(K key, @NotNull BiFunction<? super K, ? super V, ? extends V> remappingFunction)
+    {
+        var sizeChange = SizeChange.acquire(null, remappingFunction, false);
+        V value;
+        try
+        {
+            value = map.computeIfPresent(key, (BiFunction<? super K, ? super V, ? extends V>) sizeChange);
+        } finally
+        {
+            sizeChange.release();
+        }
+        sizeChanged(sizeChange.difference);
+        return value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V compute(K key, @NotNull BiFunction<? super K, ? super V, ? extends V> remappingFunction)
+    {
+        var sizeChange = SizeChange.acquire(null, remappingFunction, false);
+        V value;
+        try
+        {
+            value = map.compute(key, (BiFunction<? super K, ? super V, ? extends V>) sizeChange);
+        } finally
+        {
+            sizeChange.release();
+        }
+        sizeChanged(sizeChange.difference);
+        return value;
+    }
+
+    /**
+     * Remapping function is invoked only if there was already a mapping for given key, otherwise {@code value} is
+     * inserted
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public V merge(K key, @NotNull V value, @NotNull BiFunction<? super V, ? super V, ? extends V> remappingFunction)
+    {
+        var sizeChange = SizeChange.acquire(null, remappingFunction, true);
+        V merged;
+        try
+        {
+            merged = map.merge(key, value, (BiFunction<? super V, ? super V, ? extends V>) sizeChange);
+        } finally
+        {
+            sizeChange.release();
+        }
+        sizeChanged(sizeChange.difference);
+        return merged;
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        return map.equals(o);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return map.hashCode();
+    }
+
+    @Override
+    public String toString()
+    {
+        return map.toString();
+    }
+
+    private void sizeChanged(int difference)
+    {
+        if (difference != 0)
+        {
+            adder.add(difference);
+            write(Math.abs(difference));
+        }
+    }
+
+    /**
+     * Wraps user's (re)mapping function and records size difference made by it. Concurrent maps may invoke it more
+     * than once, only the last invocation is applied, so difference is always overwritten.
+     * <p>
+     * One instance is reused per thread, so compute methods allocate nothing on write path. If mapping function
+     * computes another {@code StatsMap} on the same thread, the nested call gets a fresh instance.
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static final class SizeChange implements BiFunction<Object, Object, Object>
+    {
+        private static final ThreadLocal<SizeChange> SIZE_CHANGES = ThreadLocal.withInitial(SizeChange::new);
+
+        Function mappingFunction;
+        BiFunction remappingFunction;
+        /**
+         * Passed to {@link Map#computeIfAbsent}, created once per instance
+         */
+        Function absentMapping = key -> computed(null, mappingFunction.apply(key));
+        /**
+         * {@link Map#merge} passes {@code (oldValue, value)} to remapping function, other methods {@code (key, oldValue)}
+         */
+        boolean merge;
+        boolean inUse;
+        int difference;
+
+        static SizeChange acquire(Function<?, ?> mappingFunction, BiFunction<?, ?, ?> remappingFunction, boolean merge)
+        {
+            SizeChange sizeChange = SIZE_CHANGES.get();
+            if (sizeChange.inUse)
+                sizeChange = new SizeChange();
+
+            sizeChange.inUse = true;
+            sizeChange.mappingFunction = mappingFunction;
+            sizeChange.remappingFunction = remappingFunction;
+            sizeChange.merge = merge;
+            // merge inserts value without invoking remapping function if there is no mapping
+            sizeChange.difference = merge ? 1 : 0;
+            return sizeChange;
+        }
+
+        void release()
+        {
+            mappingFunction = null;
+            remappingFunction = null;
+            inUse = false;
+        }
+
+        @Override
+        public Object apply(Object first, Object second)
+        {
+            return computed(merge ? first : second, remappingFunction.apply(first, second));
+        }
+
+        private Object computed(Object oldValue, Object newValue)
+        {
+            if (oldValue == null)
+                difference = newValue == null ? 0 : 1;
+            else
+                difference = newValue == null ? -1 : 0;
+
+            return newValue;
+        }
+    }
+
+    private class KeySet extends AbstractSet<K>
+    {
+        @NotNull
+        @Override
+        public Iterator<K> iterator()
+        {
+            return new StatsIterator<>(map.keySet().iterator(), StatsMap.this);
+        }
+
+        @Override
+        public int size()
+        {
+            return map.size();
+        }
+
+        @Override
+        public boolean contains(Object o)
+        {
+            return map.containsKey(o);
+        }
+
+        @Override
+        public boolean remove(Object o)
+        {
+            return StatsMap.this.remove(o) != null;
+        }
+
+        @Override
+        public void clear()
+        {
+            StatsMap.this.clear();
+        }
+    }
+
+    private class Values extends AbstractCollection<V>
+    {
+        @NotNull
+        @Override
+        public Iterator<V> iterator()
+        {
+            return new StatsIterator<>(map.values().iterator(), StatsMap.this);
+        }
+
+        @Override
+        public int size()
+        {
+            return map.size();
+        }
+
+        @Override
+        public boolean contains(Object o)
+        {
+            return map.containsValue(o);
+        }
+
+        @Override
+        public void clear()
+        {
+            StatsMap.this.clear();
+        }
+    }
+
+    private class EntrySet extends AbstractSet<Entry<K, V>>
+    {
+        @NotNull
+        @Override
+        public Iterator<Entry<K, V>> iterator()
+        {
+            Iterator<Entry<K, V>> entries = map.entrySet().iterator();
+            return new StatsIterator<>(new Iterator<>()
+            {
+                @Override
+                public boolean hasNext()
+                {
+                    return entries.hasNext();
+                }
+
+                @Override
+                public Entry<K, V> next()
+                {
+                    return new NonNullEntry<>(entries.next());
+                }
+
+                @Override
+                public void remove()
+                {
+                    entries.remove();
+                }
+            }, StatsMap.this);
+        }
+
+        @Override
+        public int size()
+        {
+            return map.size();
+        }
+
+        @Override
+        public boolean contains(Object o)
+        {
+            return map.entrySet().contains(o);
+        }
+
+        @Override
+        public boolean remove(Object o)
+        {
+            if (o instanceof Entry)
+            {
+                Entry<?, ?> entry = (Entry<?, ?>) o;
+                return StatsMap.this.remove(entry.getKey(), entry.getValue());
+            }
+            return false;
+        }
+
+        @Override
+        public void clear()
+        {
+            StatsMap.this.clear();
+        }
+    }
+
+    /**
+     * Entry of {@link #entrySet()}, {@code null} set by {@link #setValue(Object)} would be counted as present mapping
+     */
+    @FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+    private static class NonNullEntry<K, V> implements Entry<K, V>
+    {
+        Entry<K, V> entry;
+
+        NonNullEntry(Entry<K, V> entry)
+        {
+            this.entry = entry;
+        }
+
+        @Override
+        public K getKey()
+        {
+            return entry.getKey();
+        }
+
+        @Override
+        public V getValue()
+        {
+            return entry.getValue();
+        }
+
+        @Override
+        public V setValue(V value)
+        {
+            return entry.setValue(Objects.requireNonNull(value));
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            return entry.equals(o);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return entry.hashCode();
+        }
+
+        @Override
+        public String toString()
+        {
+            return entry.toString();
+        }
+    }
+}
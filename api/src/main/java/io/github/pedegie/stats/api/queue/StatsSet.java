@@ -0,0 +1,64 @@
+package io.github.pedegie.stats.api.queue;
+
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collection;
+import java.util.Set;
+
+@FieldDefaults(makeFinal = true, level = AccessLevel.PROTECTED)
+public class StatsSet<T> extends StatsCollection<T> implements Set<T>
+{
+    Set<T> set;
+
+    protected StatsSet(Set<T> set, QueueConfiguration queueConfiguration)
+    {
+        super(set, queueConfiguration);
+        this.set = set;
+    }
+
+    public static <T> StatsSet<T> set(Set<T> set, QueueConfiguration queueConfiguration)
+    {
+        return new StatsSet<>(set, queueConfiguration);
+    }
+
+    /**
+     * Elements already present in set are not added, so they can't be counted by {@code c.size()}
+     */
+    @Override
+    public boolean addAll(@NotNull Collection<? extends T> c)
+    {
+        int added = 0;
+        for (T element : c)
+        {
+            if (set.add(element))
+                added++;
+        }
+
+        if (added != 0)
+        {
+            adder.add(added);
+            write(added);
+        }
+        return added != 0;
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        return set.equals(o);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return set.hashCode();
+    }
+
+    @Override
+    public String toString()
+    {
+        return set.toString();
+    }
+}
@@ -0,0 +1,228 @@
+package io.github.pedegie.stats.api.queue;
+
+import io.github.pedegie.stats.api.queue.probe.ExecutorProbe;
+import io.github.pedegie.stats.api.queue.probe.ProbeAccess;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Closeable;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ThreadPoolExecutor} which writes {@link ExecutorProbe}s: tasks waiting for execution, active threads, pool
+ * size and deltas of completed and rejected tasks. Probes go through the same threshold, batching and Flusher
+ * pipeline as decorated collections, {@link QueueConfiguration#getProbeAccess()} is always
+ * {@link ProbeAccess#executorAccess()}, so it has to be used by {@code ProbeTailer} as well.
+ * <p>
+ * Probes file is closed when executor terminates.
+ * <p>
+ * Waiting tasks are counted on submission and start, tasks leaving the queue otherwise - rejected, removed by
+ * {@link #remove(Runnable)}, {@link #purge()}, {@link #shutdownNow()} or discarded by
+ * {@link ThreadPoolExecutor.DiscardOldestPolicy} - are subtracted as well. Custom {@link RejectedExecutionHandler}
+ * which takes tasks out of {@link #getQueue()} on its own makes the count drift.
+ */
+@FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+public class StatsThreadPoolExecutor extends ThreadPoolExecutor implements Closeable
+{
+    ExecutorStatsWriter statsWriter;
+    /**
+     * Task handed over by {@link #execute(Runnable)} on current thread. When executor shuts down meanwhile, execute
+     * removes it from the queue and rejects it, so it's subtracted once, by rejection
+     */
+    ThreadLocal<Runnable> executed = new ThreadLocal<>();
+
+    public StatsThreadPoolExecutor(int corePoolSize, int maximumPoolSize, long keepAliveTime, TimeUnit unit,
+                                   BlockingQueue<Runnable> workQueue, QueueConfiguration queueConfiguration)
+    {
+        this(corePoolSize, maximumPoolSize, keepAliveTime, unit, workQueue, Executors.defaultThreadFactory(),
+                new AbortPolicy(), queueConfiguration);
+    }
+
+    public StatsThreadPoolExecutor(int corePoolSize, int maximumPoolSize, long keepAliveTime, TimeUnit unit,
+                                   BlockingQueue<Runnable> workQueue, ThreadFactory threadFactory,
+                                   RejectedExecutionHandler handler, QueueConfiguration queueConfiguration)
+    {
+        this(corePoolSize, maximumPoolSize, keepAliveTime, unit, workQueue, threadFactory, handler,
+                new ExecutorStatsWriter(queueConfiguration));
+    }
+
+    private StatsThreadPoolExecutor(int corePoolSize, int maximumPoolSize, long keepAliveTime, TimeUnit unit,
+                                    BlockingQueue<Runnable> workQueue, ThreadFactory threadFactory,
+                                    RejectedExecutionHandler handler, ExecutorStatsWriter statsWriter)
+    {
+        super(corePoolSize, maximumPoolSize, keepAliveTime, unit, workQueue,
+                new StatsThreadFactory(threadFactory, statsWriter), new StatsRejectedExecutionHandler(handler, statsWriter));
+        this.statsWriter = statsWriter;
+    }
+
+    @Override
+    public void execute(@NotNull Runnable command)
+    {
+        // before handing over, so worker can't start it earlier than it's counted
+        statsWriter.submitted();
+        Runnable outer = executed.get();
+        executed.set(command);
+        try
+        {
+            super.execute(command);
+        } finally
+        {
+            executed.set(outer);
+        }
+    }
+
+    @Override
+    protected void beforeExecute(Thread t, Runnable r)
+    {
+        statsWriter.started();
+        super.beforeExecute(t, r);
+    }
+
+    @Override
+    protected void afterExecute(Runnable r, Throwable t)
+    {
+        super.afterExecute(r, t);
+        statsWriter.completed();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow()
+    {
+        List<Runnable> notStarted = super.shutdownNow();
+        statsWriter.removed(notStarted.size());
+        return notStarted;
+    }
+
+    @Override
+    public boolean remove(Runnable task)
+    {
+        boolean removed = super.remove(task);
+        if (removed && task != executed.get())
+            statsWriter.removed(1);
+        return removed;
+    }
+
+    /**
+     * Same as {@link ThreadPoolExecutor#purge()}, but removes cancelled tasks one by one by {@link #remove(Runnable)},
+     * so each of them is subtracted from waiting tasks
+     */
+    @Override
+    public void purge()
+    {
+        for (Object task : getQueue().toArray())
+        {
+            if (task instanceof Future<?> && ((Future<?>) task).isCancelled())
+                remove((Runnable) task);
+        }
+    }
+
+    @Override
+    protected void terminated()
+    {
+        super.terminated();
+        statsWriter.close();
+    }
+
+    @Override
+    public void setThreadFactory(ThreadFactory threadFactory)
+    {
+        super.setThreadFactory(new StatsThreadFactory(threadFactory, statsWriter));
+    }
+
+    @Override
+    public ThreadFactory getThreadFactory()
+    {
+        return ((StatsThreadFactory) super.getThreadFactory()).threadFactory;
+    }
+
+    @Override
+    public void setRejectedExecutionHandler(RejectedExecutionHandler handler)
+    {
+        super.setRejectedExecutionHandler(new StatsRejectedExecutionHandler(handler, statsWriter));
+    }
+
+    @Override
+    public RejectedExecutionHandler getRejectedExecutionHandler()
+    {
+        return ((StatsRejectedExecutionHandler) super.getRejectedExecutionHandler()).handler;
+    }
+
+    /**
+     * Closes probes file without waiting for termination, executor keeps working but nothing is written anymore
+     */
+    @Override
+    public void close()
+    {
+        statsWriter.close();
+    }
+
+    public boolean isStatsClosed()
+    {
+        return statsWriter.isClosed();
+    }
+
+    @FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+    @RequiredArgsConstructor
+    private static class StatsThreadFactory implements ThreadFactory
+    {
+        ThreadFactory threadFactory;
+        ExecutorStatsWriter statsWriter;
+
+        @Override
+        public Thread newThread(@NotNull Runnable worker)
+        {
+            return threadFactory.newThread(() ->
+            {
+                statsWriter.threadStarted();
+                try
+                {
+                    worker.run();
+                } finally
+                {
+                    statsWriter.threadTerminated();
+                }
+            });
+        }
+    }
+
+    @FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+    @RequiredArgsConstructor
+    private static class StatsRejectedExecutionHandler implements RejectedExecutionHandler
+    {
+        RejectedExecutionHandler handler;
+        ExecutorStatsWriter statsWriter;
+
+        @Override
+        public void rejectedExecution(Runnable r, ThreadPoolExecutor executor)
+        {
+            statsWriter.rejected();
+            if (handler.getClass() == DiscardOldestPolicy.class)
+                discardOldest(r, executor);
+            else
+                handler.rejectedExecution(r, executor);
+        }
+
+        /**
+         * {@link DiscardOldestPolicy} polls the queue on its own, so it's done here to subtract discarded task. Retried
+         * task goes through {@link #execute(Runnable)} again, so it's counted as submitted again
+         */
+        private void discardOldest(Runnable r, ThreadPoolExecutor executor)
+        {
+            if (!executor.isShutdown())
+            {
+                if (executor.getQueue().poll() != null)
+                    statsWriter.removed(1);
+                executor.execute(r);
+            }
+        }
+    }
+}
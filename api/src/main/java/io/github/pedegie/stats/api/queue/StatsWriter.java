@@ -0,0 +1,739 @@
+package io.github.pedegie.stats.api.queue;
+
+import io.github.pedegie.stats.api.queue.probe.BatchHeader;
+import io.github.pedegie.stats.api.queue.probe.ProbeAccess;
+import lombok.AccessLevel;
+import lombok.SneakyThrows;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import lombok.extern.slf4j.Slf4j;
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.queue.ExcerptAppender;
+import net.openhft.chronicle.queue.ExcerptTailer;
+import net.openhft.chronicle.queue.impl.single.SingleChronicleQueue;
+import net.openhft.chronicle.queue.impl.single.SingleChronicleQueueBuilder;
+import net.openhft.chronicle.wire.DocumentContext;
+
+import java.io.Closeable;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToLongBiFunction;
+
+/**
+ * Write pipeline shared by all decorators. Subclasses keep their {@link Adder} up to date and call
+ * {@link #write(int)} after each modification of decorated {@code Map/Collection}, everything else - thresholds,
+ * batching, flushing and closing - is handled here
+ */
+@FieldDefaults(makeFinal = true, level = AccessLevel.PROTECTED)
+@Slf4j
+public abstract class StatsWriter implements BatchFlushable, Closeable
+{
+    private static final ConcurrentHashMap<String, Boolean> queues = new ConcurrentHashMap<>();
+    private static final Flusher flusher = new Flusher();
+    private static final PreToucher preToucher = new PreToucher();
+
+    WriteFilter writeFilter;
+    SingleChronicleQueue chronicleQueue;
+    ProbeJournal journal;
+    int sourceId;
+    /**
+     * Running total of probes written to file, stored in {@link BatchHeader}. Journal keeps its own one
+     */
+    AtomicLong totalProbes;
+    /**
+     * Running max of probe timestamps written to file, stored in {@link BatchHeader}. Journal keeps its own one
+     */
+    AtomicLong timestampBound;
+    boolean preTouch;
+    ExcerptAppender appender;
+    FileAccessErrorHandler accessErrorHandler;
+    InternalFileAccess internalFileAccess;
+    boolean disableSync;
+    long batchFlushIntervalMillis;
+    Clock clock;
+
+    WriteThreshold writeThreshold;
+    @NonFinal
+    long nextWriteTimestamp;
+    /**
+     * Gates of {@link #writeThreshold}, adjusted on write path if it's {@link AdaptiveWriteThreshold}. Plain fields
+     * like {@link #nextWriteTimestamp}, so writers racing with adjustment may briefly see new delay with old size
+     * difference or the other way round, which only accepts or rejects a few more writes until they see both
+     */
+    @NonFinal
+    long minDelayBetweenWritesMillis;
+    @NonFinal
+    int minSizeDifference;
+    AdaptiveWriteThreshold adaptiveThreshold;
+    @NonFinal
+    long nextAdjustTimestamp;
+    @NonFinal
+    long acceptedSinceAdjust;
+    @NonFinal
+    volatile long lastBatchFlushTimestamp;
+
+    ProbeAccess probeWriter;
+
+    @NonFinal
+    volatile protected Adder adder;
+    Thread appenderThread;
+
+    @NonFinal
+    boolean firstClose = true;
+    WriteStripe[] stripes;
+    int stripeMask;
+    Bytes<?>[] drainedBatches;
+    Bytes<?> mergedBatch;
+    /**
+     * {@code null} when {@link QueueConfiguration#isInternalMetrics()} is disabled
+     */
+    WriteCounters counters;
+    long metricsWriteIntervalMillis;
+    AtomicLong nextMetricsWriteTimestamp = new AtomicLong();
+
+    @SneakyThrows
+    protected StatsWriter(QueueConfiguration queueConfiguration)
+    {
+        System.setProperty("disable.thread.safety", "true");
+        QueueConfigurationValidator.validate(queueConfiguration);
+        this.journal = queueConfiguration.getJournal();
+        this.sourceId = queueConfiguration.getSourceId();
+        if (journal == null)
+            reservePath(queueConfiguration.getPath());
+        try
+        {
+            logConfiguration(queueConfiguration);
+            this.writeFilter = queueConfiguration.getWriteFilter();
+            this.chronicleQueue = journal == null ? newChronicleQueue(queueConfiguration) : journal.register(sourceId, this);
+            this.totalProbes = new AtomicLong(journal == null ? lastTotalProbes(chronicleQueue, 0) : 0);
+            this.timestampBound = new AtomicLong(journal == null ? lastTimestampBound(chronicleQueue, 0) : Long.MIN_VALUE);
+            this.accessErrorHandler = queueConfiguration.getErrorHandler();
+            this.disableSync = queueConfiguration.isDisableSynchronization();
+            this.appender = acquireAppender();
+            this.appenderThread = Thread.currentThread();
+            this.probeWriter = queueConfiguration.getProbeAccess();
+            this.internalFileAccess = queueConfiguration.getInternalFileAccess();
+            this.writeThreshold = queueConfiguration.getWriteThreshold();
+            this.minDelayBetweenWritesMillis = writeThreshold.getMinDelayBetweenWritesMillis();
+            this.minSizeDifference = writeThreshold.getMinSizeDifference();
+            this.adaptiveThreshold = writeThreshold instanceof AdaptiveWriteThreshold ? (AdaptiveWriteThreshold) writeThreshold : null;
+            this.clock = queueConfiguration.getClock();
+            this.nextWriteTimestamp = time();
+            this.nextAdjustTimestamp = adaptiveThreshold == null ? Long.MAX_VALUE : nextWriteTimestamp + adaptiveThreshold.getAdjustIntervalMillis();
+            this.adder = newAdder();
+            this.batchFlushIntervalMillis = queueConfiguration.getBatching().getFlushMillisThreshold();
+            int probeSize = probeWriter.batchProbeSize();
+            long batchCapacity = (long) queueConfiguration.getBatching().getBatchSize() * probeSize;
+            int writeStripes = queueConfiguration.getWriteStripes();
+            this.stripes = new WriteStripe[writeStripes];
+            this.stripeMask = writeStripes - 1;
+            this.drainedBatches = new Bytes<?>[writeStripes];
+            for (int i = 0; i < writeStripes; i++)
+            {
+                stripes[i] = new WriteStripe(disableSync ? Synchronizer.NON_SYNCHRONIZED : Synchronizer.CONCURRENT, batchCapacity, probeSize, writeStripes > 1);
+            }
+            this.mergedBatch = writeStripes > 1 ? Bytes.allocateElasticDirect(batchCapacity * writeStripes) : null;
+            this.counters = queueConfiguration.isInternalMetrics() ? new WriteCounters() : null;
+            this.metricsWriteIntervalMillis = queueConfiguration.getInternalMetricsWriteMillis();
+            // journal file is pre-touched by journal itself
+            this.preTouch = queueConfiguration.isPreTouch() && journal == null;
+            if (preTouch)
+                startPreTouching(chronicleQueue);
+            flusher.start();
+            flusher.addFlushable(this);
+        } catch (Exception e)
+        {
+            if (journal == null)
+                releasePath(queueConfiguration.getPath());
+            else
+                journal.deregister(sourceId, this);
+            throw e;
+        }
+    }
+
+    private static SingleChronicleQueue newChronicleQueue(QueueConfiguration queueConfiguration)
+    {
+        return SingleChronicleQueueBuilder
+                .binary(queueConfiguration.getPath())
+                .rollCycle(queueConfiguration.getRollCycle())
+                .blockSize(queueConfiguration.getMmapSize())
+                .build(); // todo index spacing
+    }
+
+    /**
+     * Total is continued after reopening file, so it's read from the last batch. File of unsupported format is closed
+     * before exception is rethrown
+     */
+    static long lastTotalProbes(SingleChronicleQueue chronicleQueue, int headerOffset)
+    {
+        return lastHeaderField(chronicleQueue, headerOffset, BatchHeader::lastTotalProbes);
+    }
+
+    /**
+     * Same as {@link #lastTotalProbes(SingleChronicleQueue, int)} for running max of timestamps
+     */
+    static long lastTimestampBound(SingleChronicleQueue chronicleQueue, int headerOffset)
+    {
+        return lastHeaderField(chronicleQueue, headerOffset, BatchHeader::lastTimestampBound);
+    }
+
+    private static long lastHeaderField(SingleChronicleQueue chronicleQueue, int headerOffset,
+                                        ToLongBiFunction<ExcerptTailer, Integer> field)
+    {
+        try (ExcerptTailer tailer = chronicleQueue.createTailer())
+        {
+            return field.applyAsLong(tailer, headerOffset);
+        } catch (IllegalStateException e)
+        {
+            chronicleQueue.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Makes sure there is only one writer of given file in JVM
+     */
+    static void reservePath(Path path)
+    {
+        if (queues.putIfAbsent(path.toString(), Boolean.TRUE) != null)
+        {
+            throw new IllegalArgumentException("Queue which appends to " + path + " already exists");
+        }
+    }
+
+    static void releasePath(Path path)
+    {
+        queues.remove(path.toString());
+    }
+
+    private void logConfiguration(QueueConfiguration conf)
+    {
+        log.info("Initializing queue with:\n" +
+                        "path: {}\n" +
+                        "mmapSize: {} B\n" +
+                        "rollCycle: {}\n" +
+                        "disableCompression: {}\n" +
+                        "disableSynchronization: {}\n" +
+                        "preTouchEnabled: {}\n" +
+                        "writeFilter: {}\n" +
+                        "errorHandler: {}\n" +
+                        "probeAccess: {}\n" +
+                        "writeThreshold: {}\n" +
+                        "batching: {}\n" +
+                        "writeStripes: {}\n" +
+                        "clock: {}\n" +
+                        "journal: {}\n" +
+                        "sourceId: {}\n" +
+                        "internalMetrics: {}\n" +
+                        "internalMetricsWriteMillis: {}",
+                conf.getPath(), conf.getMmapSize(), conf.getRollCycle(),
+                conf.isDisableCompression(), conf.isDisableSynchronization(), conf.isPreTouch(), conf.getWriteFilter(),
+                conf.getErrorHandler(), conf.getProbeAccess(), conf.getWriteThreshold(), conf.getBatching(), conf.getWriteStripes(), conf.getClock(),
+                conf.getJournal(), conf.getSourceId(), conf.isInternalMetrics(), conf.getInternalMetricsWriteMillis());
+    }
+
+    private long time()
+    {
+        return clock.currentTimeMillis();
+    }
+
+    protected void write(int difference)
+    {
+        var time = time();
+        if (messagesNotComesTooFast(difference, time))
+        {
+            var stripe = stripe();
+            var stateUpdater = stripe.stateUpdater();
+            if (!stateUpdater.intoBusy())
+            {
+                if (counters != null)
+                    counters.lostCas();
+                return;
+            }
+
+            Bytes<?> fullBatch;
+            try
+            {
+                fullBatch = write(stripe.batchBuffers(), time);
+                nextWriteTimestamp = time + minDelayBetweenWritesMillis;
+            } catch (Exception e)
+            {
+                if (accessErrorHandler.onError(e))
+                    close();
+                else
+                    stateUpdater.intoFree();
+                return;
+            }
+            stateUpdater.intoFree();
+
+            if (fullBatch != null)
+                drain(stripe.batchBuffers(), fullBatch, time);
+        } else if (counters != null)
+        {
+            counters.rejectedByThreshold();
+        }
+    }
+
+    private WriteStripe stripe()
+    {
+        if (stripeMask == 0)
+            return stripes[0];
+
+        return stripes[(int) Thread.currentThread().getId() & stripeMask];
+    }
+
+    private boolean messagesNotComesTooFast(int difference, long time)
+    {
+        if (time >= nextAdjustTimestamp)
+            adjustThreshold(time);
+
+        if (time >= nextWriteTimestamp || difference >= minSizeDifference)
+        {
+            if (adaptiveThreshold != null)
+                acceptedSinceAdjust++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Doubles gates when writes accepted since last adjustment exceeded budget of {@link AdaptiveWriteThreshold} for
+     * time elapsed since then, halves them when they used at most half of it. Plain fields only, racing writers may
+     * adjust twice in a row, which just moves gates one more step
+     */
+    private void adjustThreshold(long time)
+    {
+        long previousAdjustTimestamp = nextAdjustTimestamp - adaptiveThreshold.getAdjustIntervalMillis();
+        long budget = adaptiveThreshold.budgetFor(time - previousAdjustTimestamp);
+        long accepted = acceptedSinceAdjust;
+        acceptedSinceAdjust = 0;
+        nextAdjustTimestamp = time + adaptiveThreshold.getAdjustIntervalMillis();
+
+        if (accepted > budget)
+        {
+            minDelayBetweenWritesMillis = Math.min(adaptiveThreshold.getMaxDelayBetweenWritesMillis(), Math.max(1, minDelayBetweenWritesMillis * 2));
+            minSizeDifference = minSizeDifference >= Integer.MAX_VALUE / 2 ? Integer.MAX_VALUE : minSizeDifference * 2;
+        } else if (accepted * 2 <= budget)
+        {
+            minDelayBetweenWritesMillis /= 2;
+            minSizeDifference = minDelayBetweenWritesMillis == 0 ? 1 : Math.max(1, minSizeDifference / 2);
+        }
+    }
+
+    /**
+     * Must be invoked within BUSY state
+     *
+     * @return batch swapped out of writers, which has to be drained outside of BUSY state, or {@code null}
+     */
+    private Bytes<?> write(BatchBuffers batchBuffers, long time)
+    {
+        var count = adder.intValue();
+        if (count > -1 && writeFilter.shouldWrite(count, time))
+        {
+            Bytes<?> fullBatch = null;
+            // previous batch is still being drained, so probe is skipped just like after losing CAS
+            if (batchBuffers.isFull() && (fullBatch = batchBuffers.swap()) == null)
+            {
+                if (counters != null)
+                    counters.droppedWhileDraining();
+                return null;
+            }
+
+            writeProbe(batchBuffers.active(), count, time);
+
+            if (fullBatch == null && batchBuffers.isFull())
+                return batchBuffers.swap();
+
+            return fullBatch;
+        }
+        return null;
+    }
+
+    @Override
+    public void close()
+    {
+        if (closeWriter())
+            flusher.removeFlushable(this);
+    }
+
+    /**
+     * Closes all {@code writers}, then deregisters them from flusher at once
+     */
+    static void closeAll(Collection<? extends StatsWriter> writers)
+    {
+        List<StatsWriter> closed = new ArrayList<>(writers.size());
+        for (StatsWriter writer : writers)
+        {
+            if (writer.closeWriter())
+                closed.add(writer);
+        }
+        flusher.removeFlushables(closed);
+    }
+
+    /**
+     * @return true if this invocation closed the writer
+     */
+    private boolean closeWriter()
+    {
+        boolean closed = false;
+        try
+        {
+            if (intoClosing())
+            {
+                closed = true;
+                if (firstClose)
+                {
+                    BusyWaiter.busyWaitMillis(this::noBatchIsDraining, 5000, "waiting for batch drain");
+                    writeFlush();
+                    if (metricsWriteIntervalMillis > 0)
+                        writeMetrics(acquireAppender());
+                    for (WriteStripe stripe : stripes)
+                    {
+                        stripe.batchBuffers().releaseLast();
+                    }
+                    if (mergedBatch != null)
+                        mergedBatch.releaseLast();
+                    firstClose = false;
+                }
+                if (journal == null)
+                {
+                    if (preTouch)
+                        stopPreTouching(chronicleQueue);
+                    internalFileAccess.close(chronicleQueue);
+                    queues.remove(chronicleQueue.file().getAbsolutePath());
+                } else
+                {
+                    journal.deregister(sourceId, this);
+                }
+                for (WriteStripe stripe : stripes)
+                {
+                    stripe.stateUpdater().intoClosed();
+                }
+            }
+        } catch (Exception e)
+        {
+            accessErrorHandler.onError(e);
+        }
+        return closed;
+    }
+
+    /**
+     * Holds BUSY state of each stripe only for swapping its batches, draining is done outside of it, so writers never
+     * wait for Flusher. Batches of all stripes are merged into single document ordered by probe timestamp.
+     */
+    @Override
+    public boolean batchFlush()
+    {
+        // off the write path, so Flusher gets precise time regardless of configured clock
+        var flushTimestamp = System.currentTimeMillis();
+        var flushedAll = true;
+        var drained = 0;
+        for (int i = 0; i < stripes.length; i++)
+        {
+            var stripe = stripes[i];
+            if (!stripe.stateUpdater().intoBusy())
+            {
+                flushedAll = false;
+                continue;
+            }
+
+            try
+            {
+                var batchBuffers = stripe.batchBuffers();
+                if (batchBuffers.isEmpty())
+                    continue;
+
+                if ((drainedBatches[i] = batchBuffers.swap()) == null)
+                    flushedAll = false;
+                else
+                    drained++;
+            } finally
+            {
+                stripe.stateUpdater().intoFree();
+            }
+        }
+
+        if (drained > 0)
+            flushDrained(acquireAppender(), drainedBatches, drained, flushTimestamp, true);
+        else if (flushedAll)
+            lastBatchFlushTimestamp = flushTimestamp;
+
+        return flushedAll;
+    }
+
+    @Override
+    public long flushIntervalMillis()
+    {
+        return batchFlushIntervalMillis;
+    }
+
+    @Override
+    public long lastBatchFlushTimestamp()
+    {
+        return lastBatchFlushTimestamp;
+    }
+
+    @Override
+    public boolean isClosed()
+    {
+        return !firstClose;
+    }
+
+    @Override
+    public void onFlushPostponed()
+    {
+        if (counters != null)
+            counters.postponedFlush();
+    }
+
+    /**
+     * @return snapshot of counters of skipped writes and flushes of this writer
+     * @throws IllegalStateException if {@link QueueConfiguration#isInternalMetrics()} is disabled
+     */
+    public WriteMetrics internalMetrics()
+    {
+        if (counters == null)
+            throw new IllegalStateException("Internal metrics are disabled, enable them by QueueConfiguration.internalMetrics");
+
+        return counters.snapshot();
+    }
+
+    public static void stopFlusher()
+    {
+        flusher.stop();
+    }
+
+    public static void stopPreToucher()
+    {
+        preToucher.stop();
+    }
+
+    static void startPreTouching(SingleChronicleQueue chronicleQueue)
+    {
+        preToucher.addQueue(chronicleQueue);
+    }
+
+    static void stopPreTouching(SingleChronicleQueue chronicleQueue)
+    {
+        preToucher.removeQueue(chronicleQueue);
+    }
+
+    private void drain(BatchBuffers batchBuffers, Bytes<?> fullBatch, long flushTimestamp)
+    {
+        try
+        {
+            flush(acquireAppender(), batchBuffers, fullBatch, flushTimestamp);
+        } catch (Exception e)
+        {
+            if (accessErrorHandler.onError(e))
+                close();
+        }
+    }
+
+    private void flush(ExcerptAppender appender, BatchBuffers batchBuffers, Bytes<?> fullBatch, long flushTimestamp)
+    {
+        try
+        {
+            writeDocument(appender, fullBatch, false);
+            lastBatchFlushTimestamp = flushTimestamp;
+        } finally
+        {
+            batchBuffers.release(fullBatch);
+        }
+    }
+
+    /**
+     * Writes batches swapped out of stripes into {@code drained} slots of {@code batches} as single document, then
+     * releases them. Flusher passes {@link #drainedBatches}, closing thread its own array - releasing the last batch
+     * lets {@link #close()} continue while Flusher is still in this loop, so they must not share slots
+     */
+    private void flushDrained(ExcerptAppender appender, Bytes<?>[] batches, int drained, long flushTimestamp, boolean byFlusher)
+    {
+        try
+        {
+            writeDocument(appender, drained == 1 ? singleDrained(batches) : mergeDrained(batches), byFlusher);
+            lastBatchFlushTimestamp = flushTimestamp;
+        } finally
+        {
+            for (int i = 0; i < batches.length; i++)
+            {
+                Bytes<?> batch = batches[i];
+                if (batch != null)
+                {
+                    batches[i] = null;
+                    stripes[i].batchBuffers().release(batch);
+                }
+            }
+        }
+    }
+
+    private void writeDocument(ExcerptAppender appender, Bytes<?> batch, boolean byFlusher)
+    {
+        if (batch.writePosition() != 0)
+        {
+            long start = counters == null ? 0 : System.nanoTime();
+            long written;
+            int probeSize = probeWriter.batchProbeSize();
+            int probes = (int) (batch.readRemaining() / probeSize);
+            long minTimestamp = Long.MAX_VALUE;
+            long maxTimestamp = Long.MIN_VALUE;
+            // probes of concurrent writers may be appended out of timestamp order
+            for (long position = batch.readPosition(); position < batch.readLimit(); position += probeSize)
+            {
+                long timestamp = batch.readLong(position);
+                minTimestamp = Math.min(minTimestamp, timestamp);
+                maxTimestamp = Math.max(maxTimestamp, timestamp);
+            }
+            try (DocumentContext dc = appender.writingDocument())
+            {
+                Bytes<?> bytes = dc.wire().bytes();
+                long documentStart = bytes.writePosition();
+                if (journal != null)
+                    bytes.writeInt(sourceId);
+                // updated while holding document write lock, so totals and bounds grow in file order
+                long total = journal == null ? totalProbes.addAndGet(probes) : journal.addProbes(probes);
+                long bound = journal == null ? timestampBound.accumulateAndGet(maxTimestamp, Math::max) : journal.raiseTimestampBound(maxTimestamp);
+                BatchHeader.write(bytes, probes, minTimestamp, maxTimestamp, bound, total);
+                probeWriter.batchWrite(bytes, batch);
+                written = bytes.writePosition() - documentStart;
+            }
+
+            if (counters != null)
+                counters.flushed(byFlusher, System.nanoTime() - start, written);
+            if (metricsWriteIntervalMillis > 0)
+                writeMetricsIfDue(appender);
+        }
+    }
+
+    /**
+     * Both Flusher and writer threads flush batches, CAS makes sure only one of them writes metrics per interval
+     */
+    private void writeMetricsIfDue(ExcerptAppender appender)
+    {
+        long now = System.currentTimeMillis();
+        long next = nextMetricsWriteTimestamp.get();
+        if (now >= next && nextMetricsWriteTimestamp.compareAndSet(next, now + metricsWriteIntervalMillis))
+            writeMetrics(appender);
+    }
+
+    /**
+     * Meta-data documents are skipped by tailers and have no index, so they don't affect reading probes
+     */
+    private void writeMetrics(ExcerptAppender appender)
+    {
+        try (DocumentContext dc = appender.writingDocument(true))
+        {
+            counters.snapshot().writeTo(dc.wire().bytes());
+        }
+    }
+
+    private static Bytes<?> singleDrained(Bytes<?>[] batches)
+    {
+        for (Bytes<?> batch : batches)
+        {
+            if (batch != null)
+                return batch;
+        }
+        throw new IllegalStateException("There is no drained batch");
+    }
+
+    /**
+     * Each drained batch is ordered by timestamp, apart from probes of racing writers, so it's enough to pick the
+     * oldest head of them to keep merged batch ordered as much as its parts are, stripes
+     * count is small, so linear scan is cheaper than heap. Probes are copied as they are, every probe takes
+     * {@link ProbeAccess#batchProbeSize()} bytes and starts with its timestamp
+     */
+    private Bytes<?> mergeDrained(Bytes<?>[] batches)
+    {
+        mergedBatch.clear();
+        var probeSize = probeWriter.batchProbeSize();
+        while (true)
+        {
+            Bytes<?> oldest = null;
+            var oldestTimestamp = Long.MAX_VALUE;
+            for (Bytes<?> batch : batches)
+            {
+                if (batch != null && batch.readRemaining() >= probeSize && batch.readLong(batch.readPosition()) < oldestTimestamp)
+                {
+                    oldest = batch;
+                    oldestTimestamp = batch.readLong(batch.readPosition());
+                }
+            }
+
+            if (oldest == null)
+                return mergedBatch;
+
+            mergedBatch.write(oldest, oldest.readPosition(), probeSize);
+            oldest.readSkip(probeSize);
+        }
+    }
+
+    /**
+     * Serializes single probe to batch, decorators which write more than {@code count} override it
+     */
+    protected void writeProbe(Bytes<?> batchBytes, int count, long timestamp)
+    {
+        probeWriter.writeProbe(batchBytes, count, timestamp);
+    }
+
+    private void writeFlush()
+    {
+        var time = time();
+        var stripe = stripe();
+        var fullBatch = write(stripe.batchBuffers(), time);
+        if (fullBatch != null)
+            flush(acquireAppender(), stripe.batchBuffers(), fullBatch, time);
+
+        var closingBatches = new Bytes<?>[stripes.length];
+        var drained = 0;
+        for (int i = 0; i < stripes.length; i++)
+        {
+            var batchBuffers = stripes[i].batchBuffers();
+            if (!batchBuffers.isEmpty())
+            {
+                closingBatches[i] = batchBuffers.swap();
+                drained++;
+            }
+        }
+
+        if (drained > 0)
+            flushDrained(acquireAppender(), closingBatches, drained, time, false);
+    }
+
+    private boolean intoClosing()
+    {
+        var closing = true;
+        for (WriteStripe stripe : stripes)
+        {
+            closing &= stripe.stateUpdater().intoClosing();
+        }
+        return closing;
+    }
+
+    private boolean noBatchIsDraining()
+    {
+        for (WriteStripe stripe : stripes)
+        {
+            if (stripe.batchBuffers().isDraining())
+                return false;
+        }
+        return true;
+    }
+
+    private ExcerptAppender acquireAppender()
+    {
+        if (appender == null || Thread.currentThread() != appenderThread)
+            return chronicleQueue.acquireAppender();
+
+        return appender;
+    }
+
+    protected Adder newAdder()
+    {
+        return disableSync ? Synchronizer.NON_SYNCHRONIZED.newAdder() : Synchronizer.CONCURRENT.newAdder();
+    }
+}
@@ -30,6 +30,20 @@ enum Synchronizer
         return new NonConcurrentStateUpdater();
     }
 
+    /**
+     * State updater which doesn't share cache line with other state updaters allocated right after it, used by
+     * {@link WriteStripe}s hammered by different threads
+     */
+    StateUpdater newPaddedStateUpdater()
+    {
+        if (this == CONCURRENT)
+        {
+            return new PaddedConcurrentStateUpdater();
+        }
+
+        return new NonConcurrentStateUpdater();
+    }
+
     private static class ConcurrentAdder implements Adder
     {
         @Delegate
@@ -137,5 +151,11 @@ enum Synchronizer
         }
     }
 
+    @SuppressWarnings("unused")
+    private static class PaddedConcurrentStateUpdater extends ConcurrentStateUpdater
+    {
+        long p1, p2, p3, p4, p5, p6, p7;
+    }
+
 }
 
@@ -0,0 +1,18 @@
+package io.github.pedegie.stats.api.queue;
+
+class SystemClock implements Clock
+{
+    static final Clock INSTANCE = new SystemClock();
+
+    @Override
+    public long currentTimeMillis()
+    {
+        return System.currentTimeMillis();
+    }
+
+    @Override
+    public String toString()
+    {
+        return "systemClock";
+    }
+}
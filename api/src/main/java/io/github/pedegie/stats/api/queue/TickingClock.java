@@ -0,0 +1,59 @@
+package io.github.pedegie.stats.api.queue;
+
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+@FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+class TickingClock implements Clock, Runnable
+{
+    private static final TickingClock INSTANCE = new TickingClock();
+    private static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    AtomicBoolean started = new AtomicBoolean();
+    @NonFinal
+    volatile long currentTimeMillis = System.currentTimeMillis();
+
+    static TickingClock instance()
+    {
+        INSTANCE.start();
+        return INSTANCE;
+    }
+
+    private void start()
+    {
+        if (started.get() || started.getAndSet(true))
+            return;
+
+        currentTimeMillis = System.currentTimeMillis();
+        Thread clockThread = new Thread(this, "stats-clock");
+        clockThread.setDaemon(true);
+        clockThread.start();
+    }
+
+    @Override
+    public void run()
+    {
+        while (!Thread.currentThread().isInterrupted())
+        {
+            currentTimeMillis = System.currentTimeMillis();
+            LockSupport.parkNanos(TICK_NANOS);
+        }
+    }
+
+    @Override
+    public long currentTimeMillis()
+    {
+        return currentTimeMillis;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "tickingClock";
+    }
+}
@@ -0,0 +1,260 @@
+package io.github.pedegie.stats.api.queue;
+
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+
+import java.util.Arrays;
+
+/**
+ * Hierarchical timing wheel with 1 ms tick, used by {@link Flusher} instead of priority queue. Each of {@link #LEVELS}
+ * wheels has {@link #SLOTS} slots, slot of level {@code n} spans {@code 64^n} ms, so wheels cover ~4.6 hours, farther
+ * timeouts wait on overflow list which is re-placed once per whole range. Timeout is placed on the lowest level whose
+ * current block contains its deadline, and is cascaded one level down when wheel below wraps, so adding is O(1) and
+ * every timeout is moved at most {@link #LEVELS} times.
+ * <p>
+ * Non-empty slots are tracked by bitmaps, so finding next tick which has anything to do is O(1) as well, it lets
+ * {@link Flusher} sleep until that tick instead of waking up each millisecond. Slots are doubly linked lists, so
+ * timeout can be removed before it expires in O(1) too.
+ * <p>
+ * Not thread safe, all methods are invoked by Flusher thread (or before it starts).
+ */
+@FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+class TimingWheel
+{
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+    private static final long RANGE_MASK = (1L << (SLOT_BITS * LEVELS)) - 1;
+    private static final int OVERFLOW = LEVELS;
+    private static final int NOT_SCHEDULED = -1;
+
+    Timeout[][] wheels = new Timeout[LEVELS][SLOTS];
+    long[] occupiedSlots = new long[LEVELS];
+
+    @NonFinal
+    Timeout overflow;
+    /**
+     * Next tick to process, every tick before it is already expired
+     */
+    @NonFinal
+    long currentTick;
+    @NonFinal
+    int size;
+
+    TimingWheel(long currentTimeMillis)
+    {
+        this.currentTick = currentTimeMillis;
+    }
+
+    /**
+     * Timeouts with {@link Timeout#deadline} in the past expire on next {@link #advance(long)}
+     */
+    void add(Timeout timeout)
+    {
+        size++;
+        place(timeout);
+    }
+
+    /**
+     * @return {@code false} if {@code timeout} is not part of wheel, e.g. it has already expired
+     */
+    boolean remove(Timeout timeout)
+    {
+        if (timeout.level == NOT_SCHEDULED)
+            return false;
+
+        if (timeout.prev != null)
+            timeout.prev.next = timeout.next;
+        else if (timeout.level == OVERFLOW)
+            overflow = timeout.next;
+        else
+        {
+            wheels[timeout.level][timeout.slot] = timeout.next;
+            if (timeout.next == null)
+                occupiedSlots[timeout.level] &= ~(1L << timeout.slot);
+        }
+
+        if (timeout.next != null)
+            timeout.next.prev = timeout.prev;
+
+        timeout.next = null;
+        timeout.prev = null;
+        timeout.level = NOT_SCHEDULED;
+        size--;
+        return true;
+    }
+
+    /**
+     * Moves wheel to {@code currentTimeMillis}
+     *
+     * @return expired timeouts linked by {@link Timeout#next}, or {@code null}. They are not part of wheel anymore,
+     * so they can be added again while iterating, as long as {@code next} is read before
+     */
+    Timeout advance(long currentTimeMillis)
+    {
+        Timeout expired = null;
+        while (true)
+        {
+            long tick = nextTick();
+            if (tick > currentTimeMillis)
+            {
+                currentTick = Math.max(currentTick, currentTimeMillis + 1);
+                return expired;
+            }
+
+            currentTick = tick;
+            cascade(tick);
+
+            int slot = (int) tick & SLOT_MASK;
+            Timeout head = wheels[0][slot];
+            if (head != null)
+            {
+                wheels[0][slot] = null;
+                occupiedSlots[0] &= ~(1L << slot);
+
+                Timeout tail = head;
+                tail.level = NOT_SCHEDULED;
+                size--;
+                while (tail.next != null)
+                {
+                    tail = tail.next;
+                    tail.level = NOT_SCHEDULED;
+                    size--;
+                }
+                tail.next = expired;
+                expired = head;
+            }
+            currentTick = tick + 1;
+        }
+    }
+
+    /**
+     * @return the earliest tick at which some timeout expires or has to be cascaded, {@link Long#MAX_VALUE} if wheel
+     * is empty
+     */
+    long nextTick()
+    {
+        if (size == 0)
+            return Long.MAX_VALUE;
+
+        long next = Long.MAX_VALUE;
+        for (int level = 0; level < LEVELS; level++)
+        {
+            int shift = SLOT_BITS * level;
+            int index = (int) (currentTick >>> shift) & SLOT_MASK;
+            long candidates = occupiedSlots[level] & (-1L << index);
+            // cascade of current slot has already happened, unless we are exactly at its beginning
+            if (level > 0 && (currentTick & ((1L << shift) - 1)) != 0)
+                candidates &= ~(1L << index);
+
+            if (candidates != 0)
+            {
+                long blockStart = (currentTick >>> (shift + SLOT_BITS)) << (shift + SLOT_BITS);
+                next = Math.min(next, blockStart | ((long) Long.numberOfTrailingZeros(candidates) << shift));
+            }
+        }
+
+        if (overflow != null)
+            next = Math.min(next, (currentTick + RANGE_MASK) & ~RANGE_MASK);
+
+        return next;
+    }
+
+    int size()
+    {
+        return size;
+    }
+
+    /**
+     * Timeouts of cleared wheel must not be added to it again
+     */
+    void clear()
+    {
+        for (Timeout[] wheel : wheels)
+        {
+            Arrays.fill(wheel, null);
+        }
+        Arrays.fill(occupiedSlots, 0);
+        overflow = null;
+        size = 0;
+    }
+
+    private void cascade(long tick)
+    {
+        if ((tick & RANGE_MASK) == 0 && overflow != null)
+        {
+            Timeout timeouts = overflow;
+            overflow = null;
+            placeAll(timeouts);
+        }
+
+        for (int level = LEVELS - 1; level > 0; level--)
+        {
+            int shift = SLOT_BITS * level;
+            if ((tick & ((1L << shift) - 1)) != 0)
+                continue;
+
+            int slot = (int) (tick >>> shift) & SLOT_MASK;
+            Timeout timeouts = wheels[level][slot];
+            if (timeouts != null)
+            {
+                wheels[level][slot] = null;
+                occupiedSlots[level] &= ~(1L << slot);
+                placeAll(timeouts);
+            }
+        }
+    }
+
+    private void placeAll(Timeout timeouts)
+    {
+        while (timeouts != null)
+        {
+            Timeout next = timeouts.next;
+            place(timeouts);
+            timeouts = next;
+        }
+    }
+
+    private void place(Timeout timeout)
+    {
+        long deadline = Math.max(timeout.deadline, currentTick);
+        for (int level = 0; level < LEVELS; level++)
+        {
+            int blockShift = SLOT_BITS * (level + 1);
+            if ((deadline >>> blockShift) == (currentTick >>> blockShift))
+            {
+                int slot = (int) (deadline >>> (SLOT_BITS * level)) & SLOT_MASK;
+                wheels[level][slot] = push(wheels[level][slot], timeout, level, slot);
+                occupiedSlots[level] |= 1L << slot;
+                return;
+            }
+        }
+
+        overflow = push(overflow, timeout, OVERFLOW, 0);
+    }
+
+    private static Timeout push(Timeout head, Timeout timeout, int level, int slot)
+    {
+        timeout.level = level;
+        timeout.slot = slot;
+        timeout.prev = null;
+        timeout.next = head;
+        if (head != null)
+            head.prev = timeout;
+        return timeout;
+    }
+
+    /**
+     * Intrusive node of {@link TimingWheel}, so scheduling doesn't allocate
+     */
+    static class Timeout
+    {
+        long deadline;
+        Timeout next;
+        Timeout prev;
+        int level = NOT_SCHEDULED;
+        int slot;
+    }
+}
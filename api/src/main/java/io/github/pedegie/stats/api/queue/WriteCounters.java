@@ -0,0 +1,60 @@
+package io.github.pedegie.stats.api.queue;
+
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters behind {@link WriteMetrics}. Skipped writes are counted by concurrent writers, so they are
+ * {@link LongAdder}s - striped into padded cells under contention, they don't make writers share a cache line
+ */
+@FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+class WriteCounters
+{
+    LongAdder rejectedByThreshold = new LongAdder();
+    LongAdder lostCas = new LongAdder();
+    LongAdder droppedWhileDraining = new LongAdder();
+    LongAdder flusherFlushes = new LongAdder();
+    LongAdder inlineFlushes = new LongAdder();
+    LongAdder postponedFlushes = new LongAdder();
+    LongAdder flushNanos = new LongAdder();
+    LongAccumulator maxFlushNanos = new LongAccumulator(Math::max, 0);
+    LongAdder bytesWritten = new LongAdder();
+
+    void rejectedByThreshold()
+    {
+        rejectedByThreshold.increment();
+    }
+
+    void lostCas()
+    {
+        lostCas.increment();
+    }
+
+    void droppedWhileDraining()
+    {
+        droppedWhileDraining.increment();
+    }
+
+    void postponedFlush()
+    {
+        postponedFlushes.increment();
+    }
+
+    void flushed(boolean byFlusher, long nanos, long bytes)
+    {
+        (byFlusher ? flusherFlushes : inlineFlushes).increment();
+        flushNanos.add(nanos);
+        maxFlushNanos.accumulate(nanos);
+        bytesWritten.add(bytes);
+    }
+
+    WriteMetrics snapshot()
+    {
+        return new WriteMetrics(rejectedByThreshold.sum(), lostCas.sum(), droppedWhileDraining.sum(),
+                flusherFlushes.sum(), inlineFlushes.sum(), postponedFlushes.sum(), flushNanos.sum(), maxFlushNanos.get(),
+                bytesWritten.sum());
+    }
+}
@@ -0,0 +1,138 @@
+package io.github.pedegie.stats.api.queue;
+
+import lombok.AccessLevel;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.SneakyThrows;
+import lombok.ToString;
+import lombok.experimental.FieldDefaults;
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.bytes.BytesOut;
+import net.openhft.chronicle.queue.ExcerptTailer;
+import net.openhft.chronicle.queue.impl.single.SingleChronicleQueue;
+import net.openhft.chronicle.queue.impl.single.SingleChronicleQueueBuilder;
+import net.openhft.chronicle.wire.DocumentContext;
+
+import java.nio.file.Path;
+
+/**
+ * Snapshot of internal counters of single writer's pipeline, returned by {@link StatsWriter#internalMetrics()} when
+ * {@link QueueConfiguration#isInternalMetrics()} is enabled. All values are cumulative since creation of the writer.
+ */
+@RequiredArgsConstructor(access = AccessLevel.PACKAGE)
+@FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+@Getter
+@ToString
+@EqualsAndHashCode
+public class WriteMetrics
+{
+    /**
+     * "STWM", distinguishes metrics from Chronicle's own meta-data documents
+     */
+    private static final int MAGIC = 0x5354574D;
+    private static final int SIZE = Integer.BYTES + 9 * Long.BYTES;
+
+    /**
+     * Writes skipped because they came too fast according to {@link WriteThreshold}
+     */
+    long rejectedByThreshold;
+    /**
+     * Writes skipped because another writer (or Flusher) held the same write stripe, see zero-cost in README
+     */
+    long lostCas;
+    /**
+     * Writes skipped because batch was full and the previous one was still being written to file
+     */
+    long droppedWhileDraining;
+    /**
+     * Batches written by Flusher after {@link Batching#getFlushMillisThreshold()}
+     */
+    long flusherFlushes;
+    /**
+     * Full batches written by writer thread itself, including last one written on close
+     */
+    long inlineFlushes;
+    /**
+     * Flushes given up by Flusher after few tries and postponed to next interval, because writers held the stripes
+     */
+    long postponedFlushes;
+    /**
+     * Total time of writing batches to file, both by Flusher and inline
+     */
+    long flushNanos;
+    long maxFlushNanos;
+    /**
+     * Bytes of batch documents written to file, including their headers
+     */
+    long bytesWritten;
+
+    /**
+     * @return average time of single flush in nanoseconds, 0 if nothing has been flushed yet
+     */
+    public long averageFlushNanos()
+    {
+        long flushes = flusherFlushes + inlineFlushes;
+        return flushes == 0 ? 0 : flushNanos / flushes;
+    }
+
+    void writeTo(BytesOut<?> bytes)
+    {
+        bytes.writeInt(MAGIC);
+        bytes.writeLong(rejectedByThreshold);
+        bytes.writeLong(lostCas);
+        bytes.writeLong(droppedWhileDraining);
+        bytes.writeLong(flusherFlushes);
+        bytes.writeLong(inlineFlushes);
+        bytes.writeLong(postponedFlushes);
+        bytes.writeLong(flushNanos);
+        bytes.writeLong(maxFlushNanos);
+        bytes.writeLong(bytesWritten);
+    }
+
+    /**
+     * @return metrics stored in meta-data document or {@code null} if document holds something else
+     */
+    static WriteMetrics readFrom(Bytes<?> bytes)
+    {
+        if (bytes.readRemaining() != SIZE || bytes.readInt() != MAGIC)
+            return null;
+
+        return new WriteMetrics(bytes.readLong(), bytes.readLong(), bytes.readLong(), bytes.readLong(), bytes.readLong(),
+                bytes.readLong(), bytes.readLong(), bytes.readLong(), bytes.readLong());
+    }
+
+    /**
+     * Reads the latest metrics written to file by queue configured with
+     * {@link QueueConfiguration#getInternalMetricsWriteMillis()}. Metrics are stored as meta-data documents, which
+     * are skipped by {@code ProbeTailer}, and they are not indexed, so whole file is scanned - it's meant for
+     * diagnostics, not for periodic polling.
+     *
+     * @param path path of probes file
+     * @return the latest metrics or {@code null} if there are none
+     */
+    @SneakyThrows
+    public static WriteMetrics readLast(Path path)
+    {
+        try (SingleChronicleQueue chronicleQueue = SingleChronicleQueueBuilder.binary(path).build();
+             ExcerptTailer tailer = chronicleQueue.createTailer())
+        {
+            WriteMetrics last = null;
+            while (true)
+            {
+                try (DocumentContext dc = tailer.readingDocument(true))
+                {
+                    if (!dc.isPresent())
+                        return last;
+
+                    if (dc.isMetaData())
+                    {
+                        WriteMetrics metrics = readFrom(dc.wire().bytes());
+                        if (metrics != null)
+                            last = metrics;
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package io.github.pedegie.stats.api.queue;
+
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+
+/**
+ * Writers of {@link StatsQueue} are hashed by thread id into one of {@link QueueConfiguration#getWriteStripes()}
+ * stripes. Every stripe has its own {@link StateUpdater} and {@link BatchBuffers}, so writers of different stripes never
+ * compete for the same CAS, and a single stripe behaves exactly like the non-striped queue.
+ */
+@FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+class WriteStripe
+{
+    StateUpdater stateUpdater;
+    BatchBuffers batchBuffers;
+
+    WriteStripe(Synchronizer synchronizer, long batchCapacity, int probeSize, boolean padded)
+    {
+        this.stateUpdater = padded ? synchronizer.newPaddedStateUpdater() : synchronizer.newStateUpdater();
+        this.batchBuffers = new BatchBuffers(batchCapacity, probeSize);
+    }
+
+    StateUpdater stateUpdater()
+    {
+        return stateUpdater;
+    }
+
+    BatchBuffers batchBuffers()
+    {
+        return batchBuffers;
+    }
+}
@@ -0,0 +1,131 @@
+package io.github.pedegie.stats.api.queue.probe;
+
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.bytes.BytesOut;
+import net.openhft.chronicle.bytes.RandomDataInput;
+import net.openhft.chronicle.queue.ExcerptTailer;
+import net.openhft.chronicle.queue.TailerDirection;
+import net.openhft.chronicle.wire.DocumentContext;
+
+/**
+ * Header written by writer at the beginning of each batch stored in file, before probes serialized by
+ * {@link ProbeAccess#batchWrite}: {@code [format, probes, minTimestamp, maxTimestamp, timestampBound, totalProbes]},
+ * where {@code totalProbes} is running total of probes written to file, including this batch. Thanks to it
+ * {@code ProbeTailer} knows size of batch without decoding it and computes amount of probes available to read from
+ * headers of current and last batch only.
+ * <p>
+ * Probes written concurrently or by many write stripes aren't stored in timestamp order, so the oldest and the newest
+ * timestamp of batch are stored instead of its first and last one, which lets {@code ProbeTailer} skip batches out of
+ * time range without reading their probes. {@code timestampBound} is running max of {@code maxTimestamp} of file,
+ * including this batch, it never decreases in file order, so batches can be binary searched by it.
+ * <p>
+ * {@code format} is {@link #FORMAT}, files written before header had it, or by other version of it, are rejected by
+ * {@link #checkFormat} instead of being misread.
+ * <p>
+ * Accessors take absolute position of header and don't change read position.
+ */
+public final class BatchHeader
+{
+    /**
+     * "STB" followed by version of header layout
+     */
+    public static final int FORMAT = 0x53544202;
+    public static final int SIZE = 2 * Integer.BYTES + 4 * Long.BYTES;
+
+    private static final int PROBES_OFFSET = Integer.BYTES;
+    private static final int MIN_TIMESTAMP_OFFSET = PROBES_OFFSET + Integer.BYTES;
+    private static final int MAX_TIMESTAMP_OFFSET = MIN_TIMESTAMP_OFFSET + Long.BYTES;
+    private static final int TIMESTAMP_BOUND_OFFSET = MAX_TIMESTAMP_OFFSET + Long.BYTES;
+    private static final int TOTAL_PROBES_OFFSET = TIMESTAMP_BOUND_OFFSET + Long.BYTES;
+
+    private BatchHeader()
+    {
+    }
+
+    public static void write(BytesOut<?> bytes, int probes, long minTimestamp, long maxTimestamp, long timestampBound,
+                             long totalProbes)
+    {
+        bytes.writeInt(FORMAT);
+        bytes.writeInt(probes);
+        bytes.writeLong(minTimestamp);
+        bytes.writeLong(maxTimestamp);
+        bytes.writeLong(timestampBound);
+        bytes.writeLong(totalProbes);
+    }
+
+    /**
+     * @throws IllegalStateException if header at {@code position} wasn't written in {@link #FORMAT}
+     */
+    public static void checkFormat(RandomDataInput bytes, long position)
+    {
+        int format = bytes.readInt(position);
+        if (format != FORMAT)
+            throw new IllegalStateException("Unsupported format of batch header: " + Integer.toHexString(format) +
+                    ", expected " + Integer.toHexString(FORMAT) + ". File was written by other version of stats");
+    }
+
+    public static int probes(RandomDataInput bytes, long position)
+    {
+        return bytes.readInt(position + PROBES_OFFSET);
+    }
+
+    public static long minTimestamp(RandomDataInput bytes, long position)
+    {
+        return bytes.readLong(position + MIN_TIMESTAMP_OFFSET);
+    }
+
+    public static long maxTimestamp(RandomDataInput bytes, long position)
+    {
+        return bytes.readLong(position + MAX_TIMESTAMP_OFFSET);
+    }
+
+    public static long timestampBound(RandomDataInput bytes, long position)
+    {
+        return bytes.readLong(position + TIMESTAMP_BOUND_OFFSET);
+    }
+
+    public static long totalProbes(RandomDataInput bytes, long position)
+    {
+        return bytes.readLong(position + TOTAL_PROBES_OFFSET);
+    }
+
+    /**
+     * Moves {@code tailer} to the end of file and reads header of last batch, it's O(log n) index lookup
+     *
+     * @param tailer       tailer used only for this purpose, its direction is changed to backward
+     * @param headerOffset bytes stored before header, e.g. source id of journal
+     * @return {@code totalProbes} of last batch, 0 if file is empty
+     * @throws IllegalStateException if last batch wasn't written in {@link #FORMAT}
+     */
+    public static long lastTotalProbes(ExcerptTailer tailer, int headerOffset)
+    {
+        return lastHeaderField(tailer, headerOffset, TOTAL_PROBES_OFFSET, 0);
+    }
+
+    /**
+     * Same as {@link #lastTotalProbes(ExcerptTailer, int)} for {@code timestampBound}
+     *
+     * @return {@code timestampBound} of last batch, {@link Long#MIN_VALUE} if file is empty
+     */
+    public static long lastTimestampBound(ExcerptTailer tailer, int headerOffset)
+    {
+        return lastHeaderField(tailer, headerOffset, TIMESTAMP_BOUND_OFFSET, Long.MIN_VALUE);
+    }
+
+    private static long lastHeaderField(ExcerptTailer tailer, int headerOffset, int fieldOffset, long empty)
+    {
+        try (DocumentContext dc = tailer.direction(TailerDirection.BACKWARD).toEnd().readingDocument())
+        {
+            if (!dc.isPresent())
+                return empty;
+
+            Bytes<?> bytes = dc.wire().bytes();
+            if (bytes.readRemaining() < headerOffset + SIZE)
+                return empty;
+
+            long position = bytes.readPosition() + headerOffset;
+            checkFormat(bytes, position);
+            return bytes.readLong(position + fieldOffset);
+        }
+    }
+}
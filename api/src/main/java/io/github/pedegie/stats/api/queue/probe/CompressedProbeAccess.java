@@ -0,0 +1,50 @@
+package io.github.pedegie.stats.api.queue.probe;
+
+import net.openhft.chronicle.bytes.Bytes;
+
+/**
+ * Batch bytes keep probes in {@link DefaultProbeAccess} form, so there is no additional cost on writing probe.
+ * Compression happens during {@link #batchWrite(Bytes, Bytes)}, which stores batch as
+ * {@code [[timestampDelta, count], [timestampDelta, count], ...]}, where {@code timestampDelta} is {@code int}
+ * difference from {@link BatchHeader#minTimestamp} of batch, read from header preceding probes.
+ */
+class CompressedProbeAccess extends DefaultProbeAccess
+{
+    public static final CompressedProbeAccess INSTANCE = new CompressedProbeAccess();
+
+    static final int COMPRESSED_PROBE_SIZE = 8;
+
+    @Override
+    public void batchWrite(Bytes<?> memoryMappedFile, Bytes<?> batchBytes)
+    {
+        long position = batchBytes.readPosition();
+        long limit = batchBytes.readLimit();
+        if (position == limit)
+            return;
+
+        long baseTimestamp = BatchHeader.minTimestamp(memoryMappedFile, memoryMappedFile.writePosition() - BatchHeader.SIZE);
+
+        for (long i = position; i < limit; i += ProbeHolder.PROBE_SIZE)
+        {
+            memoryMappedFile.writeInt(Math.toIntExact(batchBytes.readLong(i) - baseTimestamp));
+            memoryMappedFile.writeInt(batchBytes.readInt(i + Long.BYTES));
+        }
+    }
+
+    @Override
+    public void batchRead(Bytes<?> memoryMappedFile, Bytes<?> batchBytes)
+    {
+        long baseTimestamp = BatchHeader.minTimestamp(memoryMappedFile, memoryMappedFile.readPosition() - BatchHeader.SIZE);
+        while (memoryMappedFile.readRemaining() >= COMPRESSED_PROBE_SIZE)
+        {
+            batchBytes.writeLong(baseTimestamp + memoryMappedFile.readInt());
+            batchBytes.writeInt(memoryMappedFile.readInt());
+        }
+    }
+
+    @Override
+    public boolean storesBatchLayout()
+    {
+        return false;
+    }
+}
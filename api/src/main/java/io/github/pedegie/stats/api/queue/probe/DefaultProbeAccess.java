@@ -21,6 +21,12 @@ class DefaultProbeAccess implements ProbeAccess
         probe.setCount(batchBytes.readInt());
     }
 
+    @Override
+    public boolean storesBatchLayout()
+    {
+        return true;
+    }
+
     @Override
     public String toString()
     {
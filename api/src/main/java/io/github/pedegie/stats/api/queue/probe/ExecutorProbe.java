@@ -0,0 +1,39 @@
+package io.github.pedegie.stats.api.queue.probe;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * Probe of {@code StatsThreadPoolExecutor}. {@link #getCount()} is number of tasks submitted but not started yet,
+ * {@link #getCompletedTasks()} and {@link #getRejectedTasks()} are deltas since previous probe
+ */
+@Setter
+@Getter
+@NoArgsConstructor
+@ToString(callSuper = true)
+public class ExecutorProbe extends ProbeHolder
+{
+    public static final int EXECUTOR_PROBE_SIZE = PROBE_SIZE + 4 * Integer.BYTES;
+
+    int activeThreads;
+    int poolSize;
+    int completedTasks;
+    int rejectedTasks;
+
+    public ExecutorProbe(int count, long timestamp, int activeThreads, int poolSize, int completedTasks, int rejectedTasks)
+    {
+        super(count, timestamp);
+        this.activeThreads = activeThreads;
+        this.poolSize = poolSize;
+        this.completedTasks = completedTasks;
+        this.rejectedTasks = rejectedTasks;
+    }
+
+    @Override
+    public Probe copyForStore()
+    {
+        return new ExecutorProbe(getCount(), getTimestamp(), activeThreads, poolSize, completedTasks, rejectedTasks);
+    }
+}
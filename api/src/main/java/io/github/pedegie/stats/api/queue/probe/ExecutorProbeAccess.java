@@ -0,0 +1,73 @@
+package io.github.pedegie.stats.api.queue.probe;
+
+import net.openhft.chronicle.bytes.BytesIn;
+import net.openhft.chronicle.bytes.BytesOut;
+
+import static io.github.pedegie.stats.api.queue.probe.ExecutorProbe.EXECUTOR_PROBE_SIZE;
+
+/**
+ * Stores {@link ExecutorProbe} as {@code [timestamp, count, activeThreads, poolSize, completedTasks, rejectedTasks]}
+ */
+public final class ExecutorProbeAccess implements ProbeAccess
+{
+    static final ExecutorProbeAccess INSTANCE = new ExecutorProbeAccess();
+
+    private ExecutorProbeAccess()
+    {
+    }
+
+    /**
+     * Writes probe without thread pool fields, they are filled with zeros
+     */
+    @Override
+    public void writeProbe(BytesOut<?> batchBytes, int count, long timestamp)
+    {
+        writeProbe(batchBytes, count, timestamp, 0, 0, 0, 0);
+    }
+
+    public void writeProbe(BytesOut<?> batchBytes, int count, long timestamp, int activeThreads, int poolSize, int completedTasks, int rejectedTasks)
+    {
+        batchBytes.writeLong(timestamp);
+        batchBytes.writeInt(count);
+        batchBytes.writeInt(activeThreads);
+        batchBytes.writeInt(poolSize);
+        batchBytes.writeInt(completedTasks);
+        batchBytes.writeInt(rejectedTasks);
+    }
+
+    @Override
+    public void readProbeInto(BytesIn<?> batchBytes, ProbeHolder probe)
+    {
+        ExecutorProbe executorProbe = (ExecutorProbe) probe;
+        executorProbe.setTimestamp(batchBytes.readLong());
+        executorProbe.setCount(batchBytes.readInt());
+        executorProbe.setActiveThreads(batchBytes.readInt());
+        executorProbe.setPoolSize(batchBytes.readInt());
+        executorProbe.setCompletedTasks(batchBytes.readInt());
+        executorProbe.setRejectedTasks(batchBytes.readInt());
+    }
+
+    @Override
+    public int batchProbeSize()
+    {
+        return EXECUTOR_PROBE_SIZE;
+    }
+
+    @Override
+    public boolean storesBatchLayout()
+    {
+        return true;
+    }
+
+    @Override
+    public ProbeHolder newProbeHolder()
+    {
+        return new ExecutorProbe();
+    }
+
+    @Override
+    public String toString()
+    {
+        return this.getClass().getName();
+    }
+}
@@ -29,7 +29,8 @@ public interface ProbeAccess
 
     /**
      * The only method which directly access memory mapped file. Invoked when writing probes exceeds batch threshold.
-     * Makes data visible to {@link ProbeTailer} for reading
+     * Makes data visible to {@link ProbeTailer} for reading. {@link BatchHeader} of batch is written right before it,
+     * at {@code memoryMappedFile.writePosition() - BatchHeader.SIZE}
      *
      * @param memoryMappedFile represents file with probes
      * @param batchBytes       batched data, aggregated during {@link #writeProbe(BytesOut, int, long)}
@@ -39,8 +40,79 @@ public interface ProbeAccess
         memoryMappedFile.write(batchBytes);
     }
 
+    /**
+     * Read-side counterpart of {@link #batchWrite(Bytes, Bytes)}. Invoked by {@link ProbeTailer} for every batch
+     * stored in file, after its {@link BatchHeader} is skipped, so header is at
+     * {@code memoryMappedFile.readPosition() - BatchHeader.SIZE}. It has to put probes into {@code batchBytes} in the same form as they were written by
+     * {@link #writeProbe(BytesOut, int, long)}, so they can be read by {@link #readProbeInto(BytesIn, ProbeHolder)}
+     *
+     * @param memoryMappedFile slice of file representing single batch
+     * @param batchBytes       {@code Bytes} where batch should be read to
+     */
+    default void batchRead(Bytes<?> memoryMappedFile, Bytes<?> batchBytes)
+    {
+        long length = memoryMappedFile.readRemaining();
+        batchBytes.write(memoryMappedFile, memoryMappedFile.readPosition(), length);
+        memoryMappedFile.readSkip(length);
+    }
+
+    /**
+     * Tells {@link ProbeTailer} it may read probes straight from file, without copying them by
+     * {@link #batchRead(Bytes, Bytes)}. Return {@code true} only if {@link #batchWrite(Bytes, Bytes)} stores batch
+     * exactly as it was written by {@link #writeProbe(BytesOut, int, long)}
+     *
+     * @return {@code true} if probes are stored in file in the same form as in batch
+     */
+    default boolean storesBatchLayout()
+    {
+        return false;
+    }
+
+    /**
+     * Writers size their batches with it and {@link ProbeTailer} uses it to find probes in batch read by
+     * {@link #batchRead(Bytes, Bytes)}. Each probe written by {@link #writeProbe(BytesOut, int, long)} has to take
+     * exactly this amount of bytes and start with its {@code long} timestamp followed by {@code int} count
+     *
+     * @return size in bytes of single probe written by {@link #writeProbe(BytesOut, int, long)}
+     */
+    default int batchProbeSize()
+    {
+        return ProbeHolder.PROBE_SIZE;
+    }
+
+    /**
+     * @return mutable probe passed to {@link #readProbeInto(BytesIn, ProbeHolder)}, override it if probe holds more
+     * than count and timestamp
+     */
+    default ProbeHolder newProbeHolder()
+    {
+        return new ProbeHolder();
+    }
+
     static ProbeAccess defaultAccess()
     {
         return DefaultProbeAccess.INSTANCE;
     }
+
+    /**
+     * {@link ProbeAccess} which stores timestamp of first probe at the beginning of each batch, and then every
+     * probe keeps only {@code int} difference between its timestamp and the first one. Each probe takes 8 bytes of
+     * file instead of 12
+     *
+     * @return compressing {@link ProbeAccess}
+     */
+    static ProbeAccess compressedAccess()
+    {
+        return CompressedProbeAccess.INSTANCE;
+    }
+
+    /**
+     * {@link ProbeAccess} used by {@code StatsThreadPoolExecutor}, each probe is {@link ExecutorProbe}
+     *
+     * @return thread pool {@link ProbeAccess}
+     */
+    static ExecutorProbeAccess executorAccess()
+    {
+        return ExecutorProbeAccess.INSTANCE;
+    }
 }
@@ -0,0 +1,104 @@
+package io.github.pedegie.stats.api.tailer;
+
+import io.github.pedegie.stats.api.queue.probe.Probe;
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Folds probes into fixed time windows aligned to epoch, e.g. {@code [12:00:00, 12:00:10)} for 10 seconds window,
+ * and publishes each of them to {@link WindowSink} as {@link ProbeWindow} with min, max, mean, last and percentiles
+ * of counts. Peaks between scrapes of integrations sampling only the latest probe are not lost this way.
+ * <p>
+ * Window is closed once probe of later window is read, or by {@link #advanceTo(long)}, windows without probes are
+ * skipped. Probes older than current window, e.g. written concurrently by different stripes, are folded into current
+ * window. Nothing is allocated per probe.
+ * <p>
+ * It can be configured as {@link Tailer} as well as {@link BatchTailer}, but as the others it's not thread safe.
+ */
+@FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+@Slf4j
+public final class AggregatingTailer implements Tailer, BatchTailer
+{
+    long windowMillis;
+    WindowSink sink;
+    ProbeWindow window;
+
+    /**
+     * @param windowMillis length of window in milliseconds
+     * @param sink         receiver of closed windows
+     */
+    public AggregatingTailer(long windowMillis, WindowSink sink)
+    {
+        if (windowMillis < 1)
+            throw new IllegalArgumentException("windowMillis [ " + windowMillis + " ] cannot be less than 1");
+
+        this.windowMillis = windowMillis;
+        this.sink = sink;
+        this.window = new ProbeWindow();
+        window.reset(Long.MIN_VALUE, Long.MIN_VALUE);
+    }
+
+    @Override
+    public void onProbe(Probe probe)
+    {
+        add(probe.getTimestamp(), probe.getCount());
+    }
+
+    @Override
+    public void onBatch(ProbeBatch batch)
+    {
+        for (int i = 0; i < batch.size(); i++)
+        {
+            add(batch.timestamp(i), batch.count(i));
+        }
+    }
+
+    /**
+     * Closes current window if {@code timestampMillis} is beyond it. Invoke it periodically if windows should be
+     * published even if no new probes are written
+     *
+     * @param timestampMillis current time in milliseconds
+     */
+    public void advanceTo(long timestampMillis)
+    {
+        if (timestampMillis >= window.end())
+            publish();
+    }
+
+    private void add(long timestamp, int count)
+    {
+        if (timestamp >= window.end())
+        {
+            publish();
+            long start = timestamp - Math.floorMod(timestamp, windowMillis);
+            window.reset(start, start + windowMillis);
+        }
+        window.add(count);
+    }
+
+    private void publish()
+    {
+        if (window.isEmpty())
+            return;
+
+        try
+        {
+            sink.onWindow(window);
+        } catch (Exception e)
+        {
+            log.error("Error during publishing window " + window, e);
+        }
+        window.reset(window.start(), window.end());
+    }
+
+    /**
+     * Publishes current window and closes {@link WindowSink}
+     */
+    @Override
+    public void onClose()
+    {
+        publish();
+        sink.onClose();
+    }
+}
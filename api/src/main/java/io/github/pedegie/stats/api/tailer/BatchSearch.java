@@ -0,0 +1,83 @@
+package io.github.pedegie.stats.api.tailer;
+
+import io.github.pedegie.stats.api.queue.probe.BatchHeader;
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.queue.ExcerptTailer;
+import net.openhft.chronicle.queue.RollCycle;
+import net.openhft.chronicle.queue.TailerDirection;
+import net.openhft.chronicle.queue.impl.single.SingleChronicleQueue;
+import net.openhft.chronicle.wire.DocumentContext;
+
+/**
+ * Binary search of batches by {@link BatchHeader#timestampBound}, shared by tailers of single file and of journal.
+ * Roll cycle of timestamp is computed from epoch of queue. Batch is written after its probes, so batches of earlier
+ * cycles can't contain newer probes, but batch containing timestamp may be in one of next cycles.
+ */
+final class BatchSearch
+{
+    private BatchSearch()
+    {
+    }
+
+    /**
+     * Cycles from the one of {@code timestamp} are visited in order, cycle whose last batch has lower bound is skipped
+     * by its single header, the first other one is binary searched by {@link ExcerptTailer#moveToIndex}. Batches whose
+     * header can't be read count as reaching {@code timestamp}, so search never moves past them.
+     *
+     * @param tailer       tailer used only for this purpose, its direction is changed to forward
+     * @param headerOffset bytes stored before header, e.g. source id of journal
+     * @return index of first batch whose {@link BatchHeader#timestampBound} is not lower than {@code timestamp}, -1 if
+     * there is no such batch, so no probe that new either
+     */
+    static long firstBatchReaching(SingleChronicleQueue chronicleQueue, ExcerptTailer tailer, int headerOffset, long timestamp)
+    {
+        RollCycle rollCycle = chronicleQueue.rollCycle();
+        long lastCycle = chronicleQueue.lastCycle();
+        long cycle = timestamp < chronicleQueue.epoch() ? chronicleQueue.firstCycle() :
+                Math.max(chronicleQueue.firstCycle(), (timestamp - chronicleQueue.epoch()) / rollCycle.length());
+        tailer.direction(TailerDirection.FORWARD);
+        for (; cycle <= lastCycle; cycle++)
+        {
+            long batches = chronicleQueue.exceptsPerCycle((int) cycle);
+            if (batches <= 0 || timestampBound(tailer, rollCycle.toIndex((int) cycle, batches - 1), headerOffset) < timestamp)
+                continue;
+
+            long low = 0;
+            long high = batches - 1;
+            while (low < high)
+            {
+                long middle = (low + high) >>> 1;
+                if (timestampBound(tailer, rollCycle.toIndex((int) cycle, middle), headerOffset) < timestamp)
+                    low = middle + 1;
+                else
+                    high = middle;
+            }
+            return rollCycle.toIndex((int) cycle, low);
+        }
+        return -1;
+    }
+
+    /**
+     * @return {@link BatchHeader#timestampBound} of batch at {@code index}, {@link Long#MAX_VALUE} if it can't be read
+     * @throws IllegalStateException if batch wasn't written in {@link BatchHeader#FORMAT}
+     */
+    private static long timestampBound(ExcerptTailer tailer, long index, int headerOffset)
+    {
+        if (!tailer.moveToIndex(index))
+            return Long.MAX_VALUE;
+
+        try (DocumentContext dc = tailer.readingDocument())
+        {
+            if (!dc.isPresent())
+                return Long.MAX_VALUE;
+
+            Bytes<?> bytes = dc.wire().bytes();
+            if (bytes.readRemaining() < headerOffset + BatchHeader.SIZE)
+                return Long.MAX_VALUE;
+
+            long position = bytes.readPosition() + headerOffset;
+            BatchHeader.checkFormat(bytes, position);
+            return BatchHeader.timestampBound(bytes, position);
+        }
+    }
+}
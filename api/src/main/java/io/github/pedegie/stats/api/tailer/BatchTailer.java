@@ -0,0 +1,61 @@
+package io.github.pedegie.stats.api.tailer;
+
+import io.github.pedegie.stats.api.queue.probe.ProbeHolder;
+
+/**
+ * Batch counterpart of {@link Tailer}, invoked once per batch instead of once per probe. Suits integrations which
+ * send probes somewhere in bulk anyway.
+ */
+@FunctionalInterface
+public interface BatchTailer
+{
+    /**
+     * {@link ProbeBatch} is reused for every batch, it's valid only until this method returns.
+     * If it throws, the same probes are passed again on next read, except the ones {@link #of(Tailer)} already passed
+     * to its {@link Tailer}.
+     *
+     * @param batch probes read by {@link ProbeTailer}, never empty
+     */
+    void onBatch(ProbeBatch batch);
+
+    /**
+     * Invoked after closing {@link ProbeTailer}
+     */
+    default void onClose()
+    {
+    }
+
+    /**
+     * Adapts {@link Tailer} to {@code BatchTailer}, passing each probe of batch to {@link Tailer#onProbe}. Only
+     * timestamp and count are passed, so it doesn't suit probes with additional fields like
+     * {@link io.github.pedegie.stats.api.queue.probe.ExecutorProbe}. If {@code tailer} throws, next read starts from
+     * the probe it failed on.
+     *
+     * @param tailer per-probe {@link Tailer}
+     * @return {@code BatchTailer} delegating to {@code tailer}
+     */
+    static BatchTailer of(Tailer tailer)
+    {
+        ProbeHolder probe = new ProbeHolder();
+        return new BatchTailer()
+        {
+            @Override
+            public void onBatch(ProbeBatch batch)
+            {
+                for (int i = 0; i < batch.size(); i++)
+                {
+                    probe.setTimestamp(batch.timestamp(i));
+                    probe.setCount(batch.count(i));
+                    tailer.onProbe(probe);
+                    batch.consumed(i + 1);
+                }
+            }
+
+            @Override
+            public void onClose()
+            {
+                tailer.onClose();
+            }
+        };
+    }
+}
@@ -0,0 +1,342 @@
+package io.github.pedegie.stats.api.tailer;
+
+import io.github.pedegie.stats.api.queue.probe.BatchHeader;
+import io.github.pedegie.stats.api.queue.probe.ProbeAccess;
+import io.github.pedegie.stats.api.queue.probe.ProbeHolder;
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import lombok.extern.slf4j.Slf4j;
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.queue.ExcerptTailer;
+import net.openhft.chronicle.queue.impl.single.SingleChronicleQueue;
+import net.openhft.chronicle.queue.impl.single.SingleChronicleQueueBuilder;
+import net.openhft.chronicle.wire.DocumentContext;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Reads journal shared by many decorators. Each batch starts with {@code int} source id of decorator which wrote
+ * it, so source is resolved once per batch and all its probes go to the same {@link Tailer}
+ */
+@FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+@Slf4j
+class JournalProbeTailerImpl implements ProbeTailer
+{
+    Map<Integer, Source> sources;
+    SingleChronicleQueue chronicleQueue;
+    ExcerptTailer chronicleTailer;
+    /**
+     * Random access to batch headers by {@link BatchSearch}
+     */
+    ExcerptTailer searchTailer;
+    Bytes<?> batchBytes;
+
+    @NonFinal
+    volatile DocumentContext currentBatchContext;
+    @NonFinal
+    Source currentSource;
+    /**
+     * {@link BatchHeader#timestampBound} of loaded batch
+     */
+    @NonFinal
+    long loadedTimestampBound;
+
+    public JournalProbeTailerImpl(JournalTailerConfiguration tailerConfiguration)
+    {
+        System.setProperty("disable.thread.safety", "true");
+
+        this.chronicleQueue = SingleChronicleQueueBuilder
+                .binary(tailerConfiguration.getPath())
+                .rollCycle(tailerConfiguration.getRollCycle())
+                .blockSize(tailerConfiguration.getMmapSize())
+                .build();
+
+        this.sources = new HashMap<>();
+        for (Map.Entry<Integer, Tailer> tailer : Objects.requireNonNull(tailerConfiguration.getTailers()).entrySet())
+        {
+            ProbeAccess probeAccess = tailerConfiguration.getSourceProbeAccesses()
+                    .getOrDefault(tailer.getKey(), tailerConfiguration.getProbeAccess());
+            sources.put(tailer.getKey(), new Source(tailer.getValue(), probeAccess));
+        }
+
+        this.chronicleTailer = chronicleQueue.createTailer(tailerConfiguration.getPath().toString());
+        this.currentBatchContext = chronicleTailer.readingDocument();
+        this.searchTailer = chronicleQueue.createTailer();
+        this.batchBytes = Bytes.allocateElasticDirect(0);
+    }
+
+    @Override
+    public boolean read(long amount)
+    {
+        while (amount > 0 && thereIsSomethingToRead(chronicleTailer))
+        {
+            while (amount > 0 && hasBatchedSomeData())
+            {
+                if (readSingleProbe())
+                    amount--;
+            }
+        }
+
+        return amount == 0;
+    }
+
+    @Override
+    public void read()
+    {
+        while (thereIsSomethingToRead(chronicleTailer))
+        {
+            readProbesFromBatchBytes();
+        }
+    }
+
+    @Override
+    public void readFromStart()
+    {
+        var fromStartTailer = chronicleTailer.toStart();
+        currentBatchContext = fromStartTailer.readingDocument();
+        batchBytes.clear();
+
+        while (thereIsSomethingToRead(fromStartTailer))
+        {
+            readProbesFromBatchBytes();
+        }
+    }
+
+    /**
+     * Batches of all sources share journal's {@link BatchHeader#timestampBound}, so they are binary searched together,
+     * then scanned by their headers until first batch of routed source having not older probe
+     */
+    @Override
+    public void seek(long timestampMillis)
+    {
+        currentBatchContext.close();
+        batchBytes.clear();
+        currentSource = null;
+        long index = BatchSearch.firstBatchReaching(chronicleQueue, searchTailer, Integer.BYTES, timestampMillis);
+        if (index < 0 || !chronicleTailer.moveToIndex(index))
+            chronicleTailer.toEnd();
+
+        currentBatchContext = chronicleTailer.readingDocument();
+        while (skipBatchesOutOf(timestampMillis, Long.MAX_VALUE) && thereIsSomethingToRead(chronicleTailer))
+        {
+            int probeSize = currentSource.probeAccess.batchProbeSize();
+            while (hasBatchedSomeData() && batchBytes.readLong(batchBytes.readPosition()) < timestampMillis)
+            {
+                batchBytes.readSkip(probeSize);
+            }
+
+            if (hasBatchedSomeData())
+                return;
+        }
+    }
+
+    /**
+     * Batch of routed source whose {@link BatchHeader#timestampBound} reaches {@code toMillis} is the last one read, its
+     * probes are passed up to the first one not older than {@code toMillis}
+     */
+    @Override
+    public void readRange(long fromMillis, long toMillis)
+    {
+        seek(fromMillis);
+        while (thereIsSomethingToRead(chronicleTailer))
+        {
+            long timestamp = batchBytes.readLong(batchBytes.readPosition());
+            if (timestamp >= toMillis)
+                return;
+
+            if (timestamp < fromMillis)
+                batchBytes.readSkip(currentSource.probeAccess.batchProbeSize());
+            else if (!readSingleProbe())
+                return;
+
+            if (!hasBatchedSomeData() && loadedTimestampBound >= toMillis)
+                return;
+        }
+    }
+
+    /**
+     * Skips not loaded batches which have no probe within {@code [fromMillis, toMillis)}, reading only source id and
+     * {@link BatchHeader}. Batches of not routed sources are skipped later, by {@link #thereIsSomethingToRead}
+     *
+     * @return false if there is nothing more to read
+     */
+    private boolean skipBatchesOutOf(long fromMillis, long toMillis)
+    {
+        if (hasBatchedSomeData())
+            return true;
+
+        while (!contextNotPresent(chronicleTailer))
+        {
+            Bytes<?> bytes = currentBatchContext.wire().bytes();
+            long position = bytes.readPosition() + Integer.BYTES;
+            if (bytes.readRemaining() >= Integer.BYTES + BatchHeader.SIZE)
+            {
+                BatchHeader.checkFormat(bytes, position);
+                if (BatchHeader.maxTimestamp(bytes, position) >= fromMillis && BatchHeader.minTimestamp(bytes, position) < toMillis)
+                    return true;
+            }
+
+            bytes.readSkip(bytes.readRemaining());
+            currentBatchContext.close();
+        }
+        return false;
+    }
+
+    private boolean hasBatchedSomeData()
+    {
+        return currentSource != null && countProbes(batchBytes) > 0;
+    }
+
+    private void readProbesFromBatchBytes()
+    {
+        while (hasBatchedSomeData())
+        {
+            readSingleProbe();
+        }
+    }
+
+    private boolean readSingleProbe()
+    {
+        var readPosition = batchBytes.readPosition();
+
+        try
+        {
+            currentSource.probeAccess.readProbeInto(batchBytes, currentSource.probe);
+            currentSource.tailer.onProbe(currentSource.probe);
+            return true;
+        } catch (Exception e)
+        {
+            batchBytes.readPosition(readPosition);
+            log.error("Error during reading probe.", e);
+            return false;
+        }
+    }
+
+    /**
+     * Moves to next batch of any routed source, batches of other sources are skipped without copying them
+     */
+    private boolean thereIsSomethingToRead(ExcerptTailer chronicleTailer)
+    {
+        if (batchBytes.readLimit() != 0 && batchBytes.readPosition() != batchBytes.readLimit())
+            return true;
+
+        batchBytes.clear();
+        while (true)
+        {
+            if (contextNotPresent(chronicleTailer))
+                return false;
+
+            Bytes<?> bytes = currentBatchContext.wire().bytes();
+            if (bytes.readRemaining() < Integer.BYTES + BatchHeader.SIZE)
+            {
+                bytes.readSkip(bytes.readRemaining());
+                currentBatchContext.close();
+                continue;
+            }
+
+            currentSource = sources.get(bytes.readInt());
+            if (currentSource == null)
+            {
+                bytes.readSkip(bytes.readRemaining());
+                continue;
+            }
+
+            BatchHeader.checkFormat(bytes, bytes.readPosition());
+            loadedTimestampBound = BatchHeader.timestampBound(bytes, bytes.readPosition());
+            bytes.readSkip(BatchHeader.SIZE);
+            currentSource.probeAccess.batchRead(bytes, batchBytes);
+            if (batchBytes.readLimit() != 0)
+                return true;
+        }
+    }
+
+    @Override
+    public void close()
+    {
+        readProbesFromBatchBytes();
+        currentBatchContext.close();
+        searchTailer.close();
+        chronicleQueue.close();
+        for (Source source : sources.values())
+        {
+            source.tailer.onClose();
+        }
+    }
+
+    /**
+     * Counts only probes of routed sources, so unlike {@link ProbeTailerImpl#probes()} it can't use running total of
+     * journal and has to visit header of every batch
+     */
+    @Override
+    public long probes()
+    {
+        if (contextNotPresent(chronicleTailer))
+            return 0;
+
+        ExcerptTailer excerptTailer = chronicleQueue.createTailer();
+        excerptTailer.moveToIndex(chronicleTailer.index());
+
+        long probes = 0;
+        while (true)
+        {
+            try (DocumentContext dc = excerptTailer.readingDocument())
+            {
+                if (!dc.isPresent())
+                    break;
+
+                Bytes<?> bytes = dc.wire().bytes();
+                if (bytes.readRemaining() < Integer.BYTES + BatchHeader.SIZE)
+                    continue;
+
+                long position = bytes.readPosition();
+                if (sources.containsKey(bytes.readInt(position)))
+                    probes += BatchHeader.probes(bytes, position + Integer.BYTES);
+            }
+        }
+
+        // substract already read probes of current batch
+        if (currentSource != null)
+            probes -= ((batchBytes.readLimit() - batchBytes.readRemaining()) / currentSource.probeAccess.batchProbeSize());
+
+        return probes;
+    }
+
+    private boolean contextNotPresent(ExcerptTailer chronicleTailer)
+    {
+        if (!currentBatchContext.isPresent())
+        {
+            currentBatchContext = chronicleTailer.readingDocument();
+            return !currentBatchContext.isPresent();
+        }
+        return false;
+    }
+
+    private long countProbes(Bytes<?> bytes)
+    {
+        return (bytes.readLimit() - bytes.readPosition()) / currentSource.probeAccess.batchProbeSize();
+    }
+
+    @Override
+    public boolean isClosed()
+    {
+        return chronicleQueue.isClosed();
+    }
+
+    @FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+    private static class Source
+    {
+        Tailer tailer;
+        ProbeAccess probeAccess;
+        ProbeHolder probe;
+
+        private Source(Tailer tailer, ProbeAccess probeAccess)
+        {
+            this.tailer = tailer;
+            this.probeAccess = probeAccess;
+            this.probe = probeAccess.newProbeHolder();
+        }
+    }
+}
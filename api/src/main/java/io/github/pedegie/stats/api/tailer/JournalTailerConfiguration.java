@@ -0,0 +1,38 @@
+package io.github.pedegie.stats.api.tailer;
+
+import io.github.pedegie.stats.api.queue.probe.ProbeAccess;
+import lombok.AccessLevel;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.With;
+import lombok.experimental.FieldDefaults;
+import net.openhft.chronicle.queue.RollCycle;
+import net.openhft.chronicle.queue.RollCycles;
+
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * Configuration of {@link ProbeTailer} reading probe journal written by many decorators. Probes of each source are
+ * routed to its {@link Tailer}, batches of sources without {@link Tailer} are skipped.
+ * {@link #getSourceProbeAccesses()} is needed only for sources which don't use {@link #getProbeAccess()}
+ */
+@Builder
+@Getter
+@FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+@With
+public class JournalTailerConfiguration
+{
+    private static final long MB_5 = 1024 * 1024 * 5;
+
+    Path path;
+    Map<Integer, Tailer> tailers;
+    @Builder.Default
+    Map<Integer, ProbeAccess> sourceProbeAccesses = Map.of();
+    @Builder.Default
+    ProbeAccess probeAccess = ProbeAccess.defaultAccess();
+    @Builder.Default
+    RollCycle rollCycle = RollCycles.DAILY;
+    @Builder.Default
+    long mmapSize = MB_5;
+}
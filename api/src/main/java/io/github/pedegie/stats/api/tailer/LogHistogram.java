@@ -0,0 +1,84 @@
+package io.github.pedegie.stats.api.tailer;
+
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-memory histogram of non-negative {@code int} values. Values lower than {@code 2^SUB_BUCKET_BITS} have their
+ * own bucket, every higher power of two range is split into {@code 2^SUB_BUCKET_BITS} equal buckets, so lowest value
+ * of bucket is lower than recorded one by at most {@code 1 / 2^SUB_BUCKET_BITS} (~3%) of it
+ */
+@FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+class LogHistogram
+{
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (Integer.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    long[] counts = new long[BUCKETS];
+    @NonFinal
+    int lowestBucket = BUCKETS;
+    @NonFinal
+    int highestBucket = -1;
+    @NonFinal
+    long total;
+
+    void record(int value)
+    {
+        int bucket = bucket(Math.max(value, 0));
+        counts[bucket]++;
+        total++;
+        lowestBucket = Math.min(lowestBucket, bucket);
+        highestBucket = Math.max(highestBucket, bucket);
+    }
+
+    /**
+     * @param quantile from 0 to 1
+     * @return lowest value of bucket containing {@code quantile}, 0 if histogram is empty
+     */
+    int valueAt(double quantile)
+    {
+        long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int bucket = lowestBucket; bucket <= highestBucket; bucket++)
+        {
+            seen += counts[bucket];
+            if (seen >= rank)
+                return lowestValue(bucket);
+        }
+        return 0;
+    }
+
+    void reset()
+    {
+        if (total == 0)
+            return;
+
+        Arrays.fill(counts, lowestBucket, highestBucket + 1, 0);
+        lowestBucket = BUCKETS;
+        highestBucket = -1;
+        total = 0;
+    }
+
+    static int bucket(int value)
+    {
+        if (value < SUB_BUCKETS)
+            return value;
+
+        int exponent = Integer.SIZE - 1 - Integer.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (value >>> shift) - SUB_BUCKETS;
+    }
+
+    static int lowestValue(int bucket)
+    {
+        if (bucket < SUB_BUCKETS)
+            return bucket;
+
+        int shift = bucket / SUB_BUCKETS - 1;
+        return (bucket % SUB_BUCKETS + SUB_BUCKETS) << shift;
+    }
+}
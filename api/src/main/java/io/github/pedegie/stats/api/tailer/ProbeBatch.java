@@ -0,0 +1,116 @@
+package io.github.pedegie.stats.api.tailer;
+
+import io.github.pedegie.stats.api.queue.probe.ProbeAccess;
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import net.openhft.chronicle.bytes.Bytes;
+
+import java.util.Objects;
+
+/**
+ * Read-only view over probes of single batch, passed to {@link BatchTailer}. It doesn't copy nor allocate anything,
+ * accessors read probes directly from batch bytes, where each probe takes {@link ProbeAccess#batchProbeSize()} bytes
+ * and starts with {@code long} timestamp followed by {@code int} count.
+ * <p>
+ * View is reused for every batch and valid only during {@link BatchTailer#onBatch(ProbeBatch)}, copy values you are
+ * going to keep, e.g. by {@link #timestamps(long[], int)} and {@link #counts(int[], int)}
+ */
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public final class ProbeBatch
+{
+    private static final int COUNT_OFFSET = Long.BYTES;
+
+    Bytes<?> bytes;
+    long offset;
+    int size;
+    int probeSize;
+    int consumed;
+
+    ProbeBatch()
+    {
+    }
+
+    void wrap(Bytes<?> bytes, long offset, int size, int probeSize)
+    {
+        this.bytes = bytes;
+        this.offset = offset;
+        this.size = size;
+        this.probeSize = probeSize;
+        this.consumed = 0;
+    }
+
+    /**
+     * Marks first {@code probes} probes as handled, so if {@link BatchTailer} throws afterwards they are skipped
+     * instead of being passed again on next read
+     */
+    void consumed(int probes)
+    {
+        this.consumed = probes;
+    }
+
+    int consumed()
+    {
+        return consumed;
+    }
+
+    /**
+     * @return amount of probes in this batch
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * @return timestamp in milliseconds of {@code index}-th probe
+     */
+    public long timestamp(int index)
+    {
+        return bytes.readLong(position(index));
+    }
+
+    /**
+     * @return count of {@code index}-th probe
+     */
+    public int count(int index)
+    {
+        return bytes.readInt(position(index) + COUNT_OFFSET);
+    }
+
+    /**
+     * Copies timestamps of all {@link #size()} probes into {@code target} starting at {@code targetOffset}
+     */
+    public void timestamps(long[] target, int targetOffset)
+    {
+        Objects.checkFromIndexSize(targetOffset, size, target.length);
+        long position = offset;
+        for (int i = 0; i < size; i++, position += probeSize)
+        {
+            target[targetOffset + i] = bytes.readLong(position);
+        }
+    }
+
+    /**
+     * Copies counts of all {@link #size()} probes into {@code target} starting at {@code targetOffset}
+     */
+    public void counts(int[] target, int targetOffset)
+    {
+        Objects.checkFromIndexSize(targetOffset, size, target.length);
+        long position = offset + COUNT_OFFSET;
+        for (int i = 0; i < size; i++, position += probeSize)
+        {
+            target[targetOffset + i] = bytes.readInt(position);
+        }
+    }
+
+    private long position(int index)
+    {
+        return offset + (long) Objects.checkIndex(index, size) * probeSize;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "ProbeBatch{size=" + size + '}';
+    }
+}
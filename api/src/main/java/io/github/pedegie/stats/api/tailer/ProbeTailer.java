@@ -24,9 +24,35 @@ public interface ProbeTailer extends Closeable
     void readFromStart();
 
     /**
-     * This is really expensive method, it's not as simple as subtracting two indexes. It has to access every each
-     * batch because their sizes may vary. Rather used for debugging or testing. You shouldn't rely on it in
-     * loops-logic, instead use any of read() methods.
+     * Moves this {@code ProbeTailer} to the first probe, in file order, not older than {@code timestampMillis}, so next
+     * read starts there. Roll cycle file is picked from timestamp and its batches are binary searched by running max
+     * of timestamps stored in their headers, then the few batches with all probes older are skipped by their headers,
+     * without reading probes. If there is no such probe, it moves to the end of file.
+     * <p>
+     * Probes of concurrent writers, of many {@code writeStripes} or of cached {@code Clock} aren't stored in timestamp
+     * order, so probes read after seek may still contain older ones, use {@link #readRange} to get only probes of
+     * given time range. Tailer of journal stops at first such probe of any of its sources.
+     *
+     * @param timestampMillis timestamp in milliseconds, the same clock as writer's one
+     */
+    void seek(long timestampMillis);
+
+    /**
+     * {@link #seek(long) Seeks} to {@code fromMillis} and reads probes from there, passing only those within range to
+     * tailer, until the first batch whose running max of timestamps reaches {@code toMillis}. It's left at the first
+     * probe of that batch not older than {@code toMillis}, or after that batch if there is no such probe, so next read
+     * continues from there. Probes aren't stored in timestamp order, so probes within range written after that point
+     * by other writers or stripes are passed by next read, not by this one.
+     *
+     * @param fromMillis inclusive beginning of range in milliseconds
+     * @param toMillis   exclusive end of range in milliseconds
+     */
+    void readRange(long fromMillis, long toMillis);
+
+    /**
+     * Every batch stored in file carries running total of written probes, so it's computed from headers of current
+     * and last batch only, which is cheap enough to monitor tailer lag periodically. Tailer of journal counts only
+     * probes of its sources, so it still has to access header of every batch.
      *
      * @return probes available to read
      */
@@ -48,4 +74,16 @@ public interface ProbeTailer extends Closeable
     {
         return new ProbeTailerImpl(tailerConfiguration);
     }
+
+    /**
+     * Same as {@link #from(TailerConfiguration)}, but reads journal shared by many decorators, routing probes of each
+     * source to its own {@link Tailer}
+     *
+     * @param tailerConfiguration Journal Tailer Configuration
+     * @return {@code ProbeTailer}
+     */
+    static ProbeTailer fromJournal(JournalTailerConfiguration tailerConfiguration)
+    {
+        return new JournalProbeTailerImpl(tailerConfiguration);
+    }
 }
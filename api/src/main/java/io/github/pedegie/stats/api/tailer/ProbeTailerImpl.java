@@ -9,31 +9,54 @@ import net.openhft.chronicle.queue.ExcerptTailer;
 import net.openhft.chronicle.queue.impl.single.SingleChronicleQueue;
 import net.openhft.chronicle.queue.impl.single.SingleChronicleQueueBuilder;
 import net.openhft.chronicle.wire.DocumentContext;
+import io.github.pedegie.stats.api.queue.probe.BatchHeader;
 import io.github.pedegie.stats.api.queue.probe.ProbeAccess;
 import io.github.pedegie.stats.api.queue.probe.ProbeHolder;
 
-import static io.github.pedegie.stats.api.queue.probe.ProbeHolder.PROBE_SIZE;
-
 @FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
 @Slf4j
 class ProbeTailerImpl implements ProbeTailer
 {
     Tailer tailer;
+    BatchTailer batchTailer;
+    ProbeBatch probeBatch;
     SingleChronicleQueue chronicleQueue;
     ExcerptTailer chronicleTailer;
+    ExcerptTailer lastBatchTailer;
     ProbeAccess probeAccess;
-    ProbeHolder probe = new ProbeHolder();
+    ProbeHolder probe;
     Bytes<?> batchBytes;
+    boolean zeroCopy;
 
     @NonFinal
     volatile DocumentContext currentBatchContext;
+    /**
+     * Probes of loaded batch, {@link #batchBytes} or, in zero-copy mode, bytes of {@link #currentBatchContext} itself,
+     * read position of which is position of next probe to read
+     */
+    @NonFinal
+    Bytes<?> probeBytes;
+    /**
+     * Index and {@link BatchHeader#totalProbes} of loaded batch
+     */
+    @NonFinal
+    long loadedIndex = -1;
+    @NonFinal
+    long loadedTotalProbes;
+    /**
+     * {@link BatchHeader#timestampBound} of loaded batch
+     */
     @NonFinal
-    volatile long perBatchProbes;
+    long loadedTimestampBound;
 
     public ProbeTailerImpl(TailerConfiguration tailerConfiguration)
     {
         System.setProperty("disable.thread.safety", "true");
 
+        if ((tailerConfiguration.getTailer() == null) == (tailerConfiguration.getBatchTailer() == null))
+            throw new IllegalArgumentException("Wrong configuration of " + TailerConfiguration.class.getName() + "\n" +
+                    "exactly one of tailer and batchTailer has to be set");
+
         this.chronicleQueue = SingleChronicleQueueBuilder
                 .binary(tailerConfiguration.getPath())
                 .rollCycle(tailerConfiguration.getRollCycle())
@@ -41,11 +64,16 @@ class ProbeTailerImpl implements ProbeTailer
                 .build();
 
         this.tailer = tailerConfiguration.getTailer();
+        this.batchTailer = tailerConfiguration.getBatchTailer();
+        this.probeBatch = new ProbeBatch();
         this.chronicleTailer = chronicleQueue.createTailer(tailerConfiguration.getPath().toString());
         this.currentBatchContext = chronicleTailer.readingDocument();
+        this.lastBatchTailer = chronicleQueue.createTailer();
         this.probeAccess = tailerConfiguration.getProbeAccess();
+        this.probe = probeAccess.newProbeHolder();
         this.batchBytes = Bytes.allocateElasticDirect(0);
-        tryToFigureOutPerBatchProbes();
+        this.probeBytes = batchBytes;
+        this.zeroCopy = tailerConfiguration.isZeroCopy() && probeAccess.storesBatchLayout();
     }
 
     @Override
@@ -53,7 +81,11 @@ class ProbeTailerImpl implements ProbeTailer
     {
         while (readRequestNotFulfilledYet(amount) && thereIsSomethingToRead(chronicleTailer))
         {
-            amount = batchRead(amount);
+            long left = batchRead(amount);
+            if (left == amount)
+                break;
+
+            amount = left;
         }
 
         return amount == 0;
@@ -66,6 +98,9 @@ class ProbeTailerImpl implements ProbeTailer
 
     private long batchRead(long amount)
     {
+        if (batchTailer != null)
+            return amount - readBatch(amount);
+
         while (amount > 0 && hasBatchedSomeData())
         {
             if (readSingleProbe())
@@ -76,7 +111,7 @@ class ProbeTailerImpl implements ProbeTailer
 
     private boolean hasBatchedSomeData()
     {
-        return countProbes(batchBytes) > 0 && batchBytes.readLong(batchBytes.readPosition()) != 0;
+        return countProbes(probeBytes) > 0;
     }
 
     @Override
@@ -84,7 +119,8 @@ class ProbeTailerImpl implements ProbeTailer
     {
         while (thereIsSomethingToRead(chronicleTailer))
         {
-            readProbesFromBatchBytes();
+            if (!readProbesFromBatchBytes())
+                return;
         }
     }
 
@@ -93,124 +129,266 @@ class ProbeTailerImpl implements ProbeTailer
     {
         var fromStartTailer = chronicleTailer.toStart();
         currentBatchContext = fromStartTailer.readingDocument();
-        batchBytes.clear();
+        unloadBatch();
 
         while (thereIsSomethingToRead(fromStartTailer))
         {
-            readProbesFromBatchBytes();
+            if (!readProbesFromBatchBytes())
+                return;
+        }
+    }
+
+    @Override
+    public void seek(long timestampMillis)
+    {
+        unloadBatch();
+        currentBatchContext.close();
+        long index = BatchSearch.firstBatchReaching(chronicleQueue, lastBatchTailer, 0, timestampMillis);
+        if (index < 0 || !chronicleTailer.moveToIndex(index))
+            chronicleTailer.toEnd();
+
+        currentBatchContext = chronicleTailer.readingDocument();
+        while (skipBatchesOutOf(timestampMillis, Long.MAX_VALUE) && thereIsSomethingToRead(chronicleTailer))
+        {
+            long older = probesOlderThan(timestampMillis);
+            probeBytes.readSkip(older * probeAccess.batchProbeSize());
+            if (hasBatchedSomeData())
+                return;
+        }
+    }
+
+    /**
+     * Batch whose {@link BatchHeader#timestampBound} reaches {@code toMillis} is the last one read, its probes are
+     * passed up to the first one not older than {@code toMillis}
+     */
+    @Override
+    public void readRange(long fromMillis, long toMillis)
+    {
+        seek(fromMillis);
+        int probeSize = probeAccess.batchProbeSize();
+        while (thereIsSomethingToRead(chronicleTailer))
+        {
+            probeBytes.readSkip(probesOlderThan(fromMillis) * probeSize);
+            long inRange = probesOutOf(fromMillis, toMillis, true);
+            if (inRange > 0 && batchRead(inRange) > 0)
+                return;
+
+            if (hasBatchedSomeData() ? probeBytes.readLong(probeBytes.readPosition()) >= toMillis : loadedTimestampBound >= toMillis)
+                return;
+        }
+    }
+
+    /**
+     * Skips not loaded batches which have no probe within {@code [fromMillis, toMillis)}, reading only their
+     * {@link BatchHeader}
+     *
+     * @return false if there is nothing more to read
+     */
+    private boolean skipBatchesOutOf(long fromMillis, long toMillis)
+    {
+        if (probeBytes.readRemaining() > 0)
+            return true;
+
+        while (!contextNotPresent(chronicleTailer))
+        {
+            Bytes<?> bytes = currentBatchContext.wire().bytes();
+            long position = bytes.readPosition();
+            if (bytes.readRemaining() >= BatchHeader.SIZE)
+            {
+                BatchHeader.checkFormat(bytes, position);
+                if (BatchHeader.maxTimestamp(bytes, position) >= fromMillis && BatchHeader.minTimestamp(bytes, position) < toMillis)
+                    return true;
+            }
+
+            bytes.readSkip(bytes.readRemaining());
+            currentBatchContext.close();
+        }
+        return false;
+    }
+
+    /**
+     * Probes of batch aren't ordered by timestamp, so it counts only consecutive ones from read position
+     *
+     * @return amount of loaded probes from read position which are older than {@code timestamp}
+     */
+    private long probesOlderThan(long timestamp)
+    {
+        return probesOutOf(timestamp, Long.MAX_VALUE, false);
+    }
+
+    /**
+     * @param inRange whether to count probes within {@code [fromMillis, toMillis)} or out of it
+     * @return amount of consecutive loaded probes from read position which are within or out of range
+     */
+    private long probesOutOf(long fromMillis, long toMillis, boolean inRange)
+    {
+        int probeSize = probeAccess.batchProbeSize();
+        long loaded = countProbes(probeBytes);
+        long position = probeBytes.readPosition();
+        long probes = 0;
+        while (probes < loaded)
+        {
+            long timestamp = probeBytes.readLong(position);
+            if ((timestamp >= fromMillis && timestamp < toMillis) != inRange)
+                break;
+
+            probes++;
+            position += probeSize;
         }
+        return probes;
     }
 
-    private void readProbesFromBatchBytes()
+    /**
+     * @return false if {@link BatchTailer} failed, so reading should stop and its batch is passed again on next read
+     */
+    private boolean readProbesFromBatchBytes()
     {
+        if (batchTailer != null)
+            return readBatch(Long.MAX_VALUE) > 0;
+
         while (hasBatchedSomeData())
         {
             readSingleProbe();
         }
+        return true;
+    }
+
+    /**
+     * Passes up to {@code amount} batched probes to {@link BatchTailer} at once. If it fails, probes it marked as
+     * consumed are skipped and the rest is passed again on next read
+     *
+     * @return amount of read probes, 0 if {@link BatchTailer} failed
+     */
+    private long readBatch(long amount)
+    {
+        int probeSize = probeAccess.batchProbeSize();
+        long readPosition = probeBytes.readPosition();
+        int probes = (int) Math.min(amount, countProbes(probeBytes));
+        if (probes == 0)
+            return 0;
+
+        probeBatch.wrap(probeBytes, readPosition, probes, probeSize);
+        try
+        {
+            batchTailer.onBatch(probeBatch);
+        } catch (Exception e)
+        {
+            probeBytes.readPosition(readPosition + (long) probeBatch.consumed() * probeSize);
+            log.error("Error during reading probe batch.", e);
+            return 0;
+        }
+        probeBytes.readPosition(readPosition + (long) probes * probeSize);
+        return probes;
     }
 
     private boolean readSingleProbe()
     {
-        var readPosition = batchBytes.readPosition();
+        var readPosition = probeBytes.readPosition();
 
         try
         {
-            probeAccess.readProbeInto(batchBytes, probe);
+            probeAccess.readProbeInto(probeBytes, probe);
             tailer.onProbe(probe);
             return true;
         } catch (Exception e)
         {
-            batchBytes.readPosition(readPosition);
+            probeBytes.readPosition(readPosition);
             log.error("Error during reading probe.", e);
             return false;
         }
     }
 
+    /**
+     * Loads next batch if the current one is read. In zero-copy mode probes are read straight from mapped document,
+     * which stays open until all its probes are read, even across {@code read(amount)} invocations
+     */
     private boolean thereIsSomethingToRead(ExcerptTailer chronicleTailer)
     {
-        if (batchBytes.readLimit() == 0 || batchBytes.readPosition() == batchBytes.readLimit())
-        {
-            batchBytes.clear();
+        if (probeBytes.readRemaining() > 0)
+            return true;
 
+        unloadBatch();
+        while (true)
+        {
             if (contextNotPresent(chronicleTailer))
                 return false;
 
             Bytes<?> bytes = currentBatchContext.wire().bytes();
-
-            if (bytes.readPosition() == bytes.readLimit())
+            if (bytes.readRemaining() < BatchHeader.SIZE)
             {
+                bytes.readSkip(bytes.readRemaining());
                 currentBatchContext.close();
-                if (contextNotPresent(chronicleTailer))
-                    return false;
+                continue;
             }
 
-            long len = bytes.readRemaining();
-            batchBytes.write(bytes, bytes.readPosition(), len);
-            bytes.readSkip(len);
+            BatchHeader.checkFormat(bytes, bytes.readPosition());
+            loadedIndex = currentBatchContext.index();
+            loadedTotalProbes = BatchHeader.totalProbes(bytes, bytes.readPosition());
+            loadedTimestampBound = BatchHeader.timestampBound(bytes, bytes.readPosition());
+            bytes.readSkip(BatchHeader.SIZE);
+            if (zeroCopy)
+                probeBytes = bytes;
+            else
+                probeAccess.batchRead(bytes, batchBytes);
+
+            if (probeBytes.readRemaining() > 0)
+                return true;
         }
-        return batchBytes.readLimit() != 0;
+    }
+
+    private void unloadBatch()
+    {
+        batchBytes.clear();
+        probeBytes = batchBytes;
+        loadedIndex = -1;
     }
 
     @Override
     public void close()
     {
-        readProbesFromBatchBytes();
-        currentBatchContext.close();
-        chronicleQueue.close();
-        tailer.onClose();
+        try
+        {
+            readProbesFromBatchBytes();
+        } finally
+        {
+            unloadBatch();
+            currentBatchContext.close();
+            lastBatchTailer.close();
+            chronicleQueue.close();
+            if (batchTailer != null)
+                batchTailer.onClose();
+            else
+                tailer.onClose();
+        }
     }
 
+    /**
+     * Difference between {@link BatchHeader#totalProbes} of last batch in file and probes read so far, so only two
+     * batch headers are accessed
+     */
     @Override
     public long probes()
     {
+        long unread = countProbes(probeBytes);
         if (contextNotPresent(chronicleTailer))
-            return 0;
-
-        var currentIndex = chronicleTailer.index();
-        ExcerptTailer excerptTailer = chronicleQueue.createTailer();
-        excerptTailer.moveToIndex(currentIndex);
-
-        long bytes = 0;
-        long lastBatchBytes = 0;
+            return unread;
 
-        // count all written bytes
-        while (true)
+        long readTotalProbes;
+        if (currentBatchContext.index() != loadedIndex)
         {
-            try (DocumentContext dc = excerptTailer.readingDocument())
-            {
-                if (dc.isPresent())
-                {
-                    lastBatchBytes = dc.wire().bytes().readRemaining();
-                    bytes += lastBatchBytes;
-                } else
-                {
-                    break;
-                }
-            }
-        }
-        // substract the last batch bytes, because there is no guarantee it was fully written
-        long probes = (bytes - lastBatchBytes) / PROBE_SIZE;
-        // count last batch probes linearly, checking if its really fully written or not
-        excerptTailer.moveToIndex(excerptTailer.index() - 1);
-        probes += countProbesLinearly(excerptTailer.readingDocument().wire().bytes());
-        // substract already read probes
-        probes -= ((batchBytes.readLimit() - batchBytes.readRemaining()) / PROBE_SIZE);
-
-        return probes;
-
-    }
+            // next batch is not loaded yet, everything before it is read
+            Bytes<?> bytes = currentBatchContext.wire().bytes();
+            if (bytes.readRemaining() < BatchHeader.SIZE)
+                return unread;
 
-    private long countProbesLinearly(Bytes<?> bytes)
-    {
-        var probes = 0;
-        for (long i = bytes.readPosition(); i < bytes.readLimit(); i += PROBE_SIZE)
+            long position = bytes.readPosition();
+            readTotalProbes = BatchHeader.totalProbes(bytes, position) - BatchHeader.probes(bytes, position);
+        } else
         {
-            if (bytes.readLong(i) == 0)
-                break;
-
-            probes++;
+            readTotalProbes = loadedTotalProbes - unread;
         }
-        return probes;
+
+        return BatchHeader.lastTotalProbes(lastBatchTailer, 0) - readTotalProbes;
     }
 
     private boolean contextNotPresent(ExcerptTailer chronicleTailer)
@@ -223,21 +401,9 @@ class ProbeTailerImpl implements ProbeTailer
         return false;
     }
 
-    private void tryToFigureOutPerBatchProbes()
-    {
-        if (perBatchProbes == 0)
-        {
-            var wire = chronicleQueue.createTailer().readingDocument().wire();
-            if (wire != null)
-            {
-                perBatchProbes = countProbes(wire.bytes());
-            }
-        }
-    }
-
     private long countProbes(Bytes<?> bytes)
     {
-        return (bytes.readLimit() - bytes.readPosition()) / PROBE_SIZE;
+        return (bytes.readLimit() - bytes.readPosition()) / probeAccess.batchProbeSize();
     }
 
     @Override
@@ -0,0 +1,128 @@
+package io.github.pedegie.stats.api.tailer;
+
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+
+/**
+ * Aggregate of probes with timestamps within {@code [start, end)}, published by {@link AggregatingTailer}.
+ * Percentiles are approximated by fixed-memory log-bucketed histogram, lower by at most 1/32 (~3%). {@link #min()}
+ * and {@link #max()} are exact.
+ * <p>
+ * Window is reused, it's valid only during {@link WindowSink#onWindow(ProbeWindow)}
+ */
+@FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+public final class ProbeWindow
+{
+    LogHistogram histogram = new LogHistogram();
+    @NonFinal
+    long start;
+    @NonFinal
+    long end;
+    @NonFinal
+    long probes;
+    @NonFinal
+    long sum;
+    @NonFinal
+    int min;
+    @NonFinal
+    int max;
+    @NonFinal
+    int last;
+
+    ProbeWindow()
+    {
+    }
+
+    void reset(long start, long end)
+    {
+        this.start = start;
+        this.end = end;
+        this.probes = 0;
+        this.sum = 0;
+        this.min = Integer.MAX_VALUE;
+        this.max = Integer.MIN_VALUE;
+        histogram.reset();
+    }
+
+    void add(int count)
+    {
+        probes++;
+        sum += count;
+        min = Math.min(min, count);
+        max = Math.max(max, count);
+        last = count;
+        histogram.record(count);
+    }
+
+    /**
+     * @return inclusive beginning of window in milliseconds
+     */
+    public long start()
+    {
+        return start;
+    }
+
+    /**
+     * @return exclusive end of window in milliseconds
+     */
+    public long end()
+    {
+        return end;
+    }
+
+    /**
+     * @return amount of probes in window
+     */
+    public long probes()
+    {
+        return probes;
+    }
+
+    public int min()
+    {
+        return min;
+    }
+
+    public int max()
+    {
+        return max;
+    }
+
+    public double mean()
+    {
+        return probes == 0 ? 0 : (double) sum / probes;
+    }
+
+    /**
+     * @return count of the latest probe in window
+     */
+    public int last()
+    {
+        return last;
+    }
+
+    /**
+     * @param quantile from 0 to 1, e.g. 0.99 for 99th percentile
+     * @return approximated count at given quantile, bounded by {@link #min()} and {@link #max()}
+     */
+    public int percentile(double quantile)
+    {
+        if (quantile < 0 || quantile > 1)
+            throw new IllegalArgumentException("quantile [ " + quantile + " ] has to be within [0, 1]");
+
+        return Math.max(min, Math.min(max, histogram.valueAt(quantile)));
+    }
+
+    boolean isEmpty()
+    {
+        return probes == 0;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "ProbeWindow{start=" + start + ", end=" + end + ", probes=" + probes + ", min=" + min + ", max=" + max +
+                ", mean=" + mean() + ", last=" + last + '}';
+    }
+}
@@ -21,10 +21,20 @@ public class TailerConfiguration
 
     Path path;
     Tailer tailer;
+    /**
+     * Used instead of {@link #tailer}, exactly one of them has to be set
+     */
+    BatchTailer batchTailer;
     @Builder.Default
     ProbeAccess probeAccess = ProbeAccess.defaultAccess();
     @Builder.Default
     RollCycle rollCycle = RollCycles.DAILY;
     @Builder.Default
     long mmapSize = MB_5;
+    /**
+     * Reads probes straight from memory mapped file instead of copying each batch first, applies only to
+     * {@link ProbeAccess} which {@link ProbeAccess#storesBatchLayout()}
+     */
+    @Builder.Default
+    boolean zeroCopy = true;
 }
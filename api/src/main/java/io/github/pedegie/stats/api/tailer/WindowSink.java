@@ -0,0 +1,22 @@
+package io.github.pedegie.stats.api.tailer;
+
+/**
+ * Receives windows closed by {@link AggregatingTailer}
+ */
+@FunctionalInterface
+public interface WindowSink
+{
+    /**
+     * {@link ProbeWindow} is reused for every window, it's valid only until this method returns.
+     *
+     * @param window closed window, contains at least one probe
+     */
+    void onWindow(ProbeWindow window);
+
+    /**
+     * Invoked after closing {@link ProbeTailer}, once the last window is published
+     */
+    default void onClose()
+    {
+    }
+}
@@ -0,0 +1,105 @@
+package io.github.pedegie.stats.api.queue
+
+import net.openhft.chronicle.core.OS
+import spock.lang.Specification
+
+class AdaptiveWriteThresholdTest extends Specification
+{
+    def setup()
+    {
+        StatsQueue.stopFlusher()
+        FileUtils.cleanDirectory(TestQueueUtil.PATH.getParent())
+    }
+
+    def cleanupSpec()
+    {
+        FileUtils.cleanDirectory(TestQueueUtil.PATH.getParent())
+    }
+
+    def "should widen gates above budget and narrow them back when queue calms down"()
+    {
+        given:
+            long now = 0
+            StatsQueue<Integer> queue = TestQueueUtil.createQueue(configuration(AdaptiveWriteThreshold.of(10, 4, 1000), { now }))
+        when: "100 writes within first interval, 10 times over budget"
+            (1..100).forEach({ queue.add(it) })
+        then: "queue starts with full resolution"
+            queue.internalMetrics().rejectedByThreshold == 0
+        when: "the same rate in next interval"
+            now = 1000
+            (1..100).forEach({ queue.add(it) })
+        then: "only first write within millisecond passes"
+            queue.internalMetrics().rejectedByThreshold == 99
+        when: "single write was accepted in previous interval"
+            now = 2000
+            (1..10).forEach({ queue.add(it) })
+        then: "gates are back at full resolution"
+            queue.internalMetrics().rejectedByThreshold == 99
+        cleanup:
+            queue.close()
+    }
+
+    def "should scale budget by time elapsed since previous adjustment"()
+    {
+        given:
+            long now = 0
+            StatsQueue<Integer> queue = TestQueueUtil.createQueue(configuration(AdaptiveWriteThreshold.of(10, 4, 1000), { now }))
+        when: "15 writes, over budget of single interval, then queue is idle for 3 intervals"
+            (1..15).forEach({ queue.add(it) })
+            now = 3000
+            (1..10).forEach({ queue.add(it) })
+        then: "they fit budget of 3 seconds, so gates stay at full resolution"
+            queue.internalMetrics().rejectedByThreshold == 0
+        cleanup:
+            queue.close()
+    }
+
+    def "should not widen delay above its maximum"()
+    {
+        given:
+            long now = 0
+            StatsQueue<Integer> queue = TestQueueUtil.createQueue(configuration(AdaptiveWriteThreshold.of(1, 4, 1000), { now }))
+            List<Long> rejectedPerInterval = []
+        when: "one write per millisecond during first 100 ms of each interval"
+            for (int interval = 0; interval < 5; interval++)
+            {
+                long rejected = queue.internalMetrics().rejectedByThreshold
+                for (int i = 0; i < 100; i++)
+                {
+                    now = interval * 1000 + i
+                    queue.add(i)
+                }
+                rejectedPerInterval.add(queue.internalMetrics().rejectedByThreshold - rejected)
+            }
+        then: "delay goes 0, 1, 2, 4 and stays at 4 ms"
+            rejectedPerInterval == [0L, 0L, 50L, 75L, 75L]
+        cleanup:
+            queue.close()
+    }
+
+    def "should throw an exception if adaptive threshold is wrongly configured"()
+    {
+        when:
+            TestQueueUtil.createQueue(configuration(writeThreshold, Clock.systemClock()))
+        then:
+            thrown(IllegalArgumentException)
+        where:
+            writeThreshold << [
+                    AdaptiveWriteThreshold.probesPerSecond(0),
+                    AdaptiveWriteThreshold.of(10, 0, 1000),
+                    AdaptiveWriteThreshold.of(10, 100, 0)
+            ]
+    }
+
+    private static QueueConfiguration configuration(WriteThreshold writeThreshold, Clock clock)
+    {
+        return QueueConfiguration.builder()
+                .path(TestQueueUtil.PATH)
+                .mmapSize(OS.pageSize())
+                .batching(new Batching(1000))
+                .writeThreshold(writeThreshold)
+                .clock(clock)
+                .internalMetrics(true)
+                .build()
+    }
+}
@@ -0,0 +1,95 @@
+package io.github.pedegie.stats.api.queue
+
+import io.github.pedegie.stats.api.tailer.ProbeTailer
+import io.github.pedegie.stats.api.tailer.TailerFactory
+import net.openhft.chronicle.bytes.Bytes
+import net.openhft.chronicle.core.OS
+import spock.lang.Specification
+
+import static io.github.pedegie.stats.api.queue.probe.ProbeHolder.PROBE_SIZE
+
+class BatchBuffersTest extends Specification
+{
+    def setup()
+    {
+        StatsQueue.stopFlusher()
+        FileUtils.cleanDirectory(TestQueueUtil.PATH.getParent())
+    }
+
+    def cleanupSpec()
+    {
+        FileUtils.cleanDirectory(TestQueueUtil.PATH.getParent())
+    }
+
+    def "should swap full batch with empty one"()
+    {
+        given:
+            BatchBuffers buffers = new BatchBuffers(2 * PROBE_SIZE, PROBE_SIZE)
+            buffers.active().writeLong(1L).writeInt(1)
+            buffers.active().writeLong(2L).writeInt(2)
+        expect:
+            buffers.isFull()
+        when:
+            Bytes<?> fullBatch = buffers.swap()
+        then:
+            fullBatch.readLong(0) == 1L
+            buffers.isEmpty()
+            !buffers.isFull()
+            buffers.isDraining()
+        cleanup:
+            buffers.release(fullBatch)
+            buffers.releaseLast()
+    }
+
+    def "should not swap until drained batch is released"()
+    {
+        given:
+            BatchBuffers buffers = new BatchBuffers(PROBE_SIZE, PROBE_SIZE)
+            buffers.active().writeLong(1L).writeInt(1)
+            Bytes<?> drainedBatch = buffers.swap()
+            buffers.active().writeLong(2L).writeInt(2)
+        when:
+            Bytes<?> secondBatch = buffers.swap()
+        then:
+            secondBatch == null
+            buffers.active().readLong(0) == 2L
+        when:
+            buffers.release(drainedBatch)
+            secondBatch = buffers.swap()
+        then:
+            secondBatch.readLong(0) == 2L
+            buffers.isEmpty()
+        cleanup:
+            buffers.release(secondBatch)
+            buffers.releaseLast()
+    }
+
+    def "writes between batch flushes should land in file"()
+    {
+        given:
+            QueueConfiguration queueConfiguration = QueueConfiguration.builder()
+                    .path(TestQueueUtil.PATH)
+                    .mmapSize(OS.pageSize())
+                    .batching(new Batching(100))
+                    .writeThreshold(WriteThreshold.flushOnEachWrite())
+                    .build()
+            StatsQueue<Integer> queue = TestQueueUtil.createQueue(queueConfiguration)
+            ProbeTailer tailer = TailerFactory.tailerFor(TestQueueUtil.PATH)
+        when:
+            queue.add(1)
+            queue.add(2)
+            boolean flushed = queue.batchFlush()
+            queue.add(3)
+        then:
+            flushed
+            tailer.probes() == 2
+        when:
+            flushed = queue.batchFlush()
+        then:
+            flushed
+            tailer.probes() == 3
+        cleanup:
+            queue.close()
+            tailer.close()
+    }
+}
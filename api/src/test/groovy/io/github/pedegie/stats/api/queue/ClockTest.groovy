@@ -0,0 +1,98 @@
+package io.github.pedegie.stats.api.queue
+
+import io.github.pedegie.stats.api.tailer.ProbeTailer
+import io.github.pedegie.stats.api.tailer.TailerFactory
+import net.openhft.chronicle.core.OS
+import spock.lang.Specification
+
+class ClockTest extends Specification
+{
+    def setup()
+    {
+        StatsQueue.stopFlusher()
+        FileUtils.cleanDirectory(TestQueueUtil.PATH.getParent())
+    }
+
+    def cleanupSpec()
+    {
+        FileUtils.cleanDirectory(TestQueueUtil.PATH.getParent())
+    }
+
+    def "should write probes with timestamps generated by configured clock"()
+    {
+        given:
+            QueueConfiguration queueConfiguration = QueueConfiguration.builder()
+                    .path(TestQueueUtil.PATH)
+                    .mmapSize(OS.pageSize())
+                    .batching(new Batching(2))
+                    .writeThreshold(WriteThreshold.flushOnEachWrite())
+                    .clock({ 1234L })
+                    .build()
+            StatsQueue<Integer> queue = TestQueueUtil.createQueue(queueConfiguration)
+            TestTailer tailer = new TestTailer()
+            ProbeTailer probeTailer = TailerFactory.tailerFor(TestQueueUtil.PATH, tailer)
+        when:
+            queue.add(1)
+            queue.add(2)
+            probeTailer.read()
+        then:
+            tailer.probes*.timestamp == [1234L, 1234L]
+        cleanup:
+            queue.close()
+            probeTailer.close()
+    }
+
+    def "cached clock should read time only every n calls"()
+    {
+        given:
+            Clock clock = Clock.cachedClock(3)
+        when:
+            long first = clock.currentTimeMillis()
+            sleep(5)
+            long second = clock.currentTimeMillis()
+            long third = clock.currentTimeMillis()
+            long fourth = clock.currentTimeMillis()
+        then:
+            first == second
+            second == third
+            fourth > third
+    }
+
+    def "cached clock should keep separate cache per thread"()
+    {
+        given:
+            Clock clock = Clock.cachedClock(1000)
+            long mainThreadTime = clock.currentTimeMillis()
+            long otherThreadTime = 0
+        when:
+            sleep(5)
+            Thread thread = Thread.start { otherThreadTime = clock.currentTimeMillis() }
+            thread.join()
+        then:
+            otherThreadTime > mainThreadTime
+            clock.currentTimeMillis() == mainThreadTime
+    }
+
+    def "ticking clock should follow system time"()
+    {
+        given:
+            Clock clock = Clock.tickingClock()
+        when:
+            long before = clock.currentTimeMillis()
+            sleep(20)
+            long after = clock.currentTimeMillis()
+        then:
+            after - before >= 10
+            Math.abs(System.currentTimeMillis() - after) < 20
+    }
+
+    def "should throw an exception if cached clock reads time less often than every call"()
+    {
+        when:
+            Clock.cachedClock(readEvery)
+        then:
+            thrown(IllegalArgumentException)
+        where:
+            readEvery << [0, -1]
+    }
+}
@@ -0,0 +1,103 @@
+package io.github.pedegie.stats.api.queue
+
+import io.github.pedegie.stats.api.queue.probe.ProbeAccess
+import io.github.pedegie.stats.api.tailer.ProbeTailer
+import io.github.pedegie.stats.api.tailer.TailerConfiguration
+import net.openhft.chronicle.core.OS
+import spock.lang.Specification
+
+class CompressedProbeAccessTest extends Specification
+{
+    def setup()
+    {
+        StatsQueue.stopFlusher()
+        FileUtils.cleanDirectory(TestQueueUtil.PATH.getParent())
+    }
+
+    def cleanupSpec()
+    {
+        FileUtils.cleanDirectory(TestQueueUtil.PATH.getParent())
+    }
+
+    def "should read the same probes which were written"()
+    {
+        given:
+            QueueConfiguration queueConfiguration = QueueConfiguration.builder()
+                    .path(TestQueueUtil.PATH)
+                    .mmapSize(OS.pageSize())
+                    .batching(new Batching(3))
+                    .writeThreshold(WriteThreshold.flushOnEachWrite())
+                    .probeAccess(ProbeAccess.compressedAccess())
+                    .build()
+            StatsQueue<Integer> queue = TestQueueUtil.createQueue(queueConfiguration)
+            TestTailer tailer = new TestTailer()
+            ProbeTailer probeTailer = ProbeTailer.from(tailerConfiguration(tailer))
+        when:
+            queue.add(1)
+            queue.add(2)
+            sleep(5)
+            queue.add(3)
+            queue.remove(1)
+            queue.close()
+            probeTailer.read()
+        then:
+            tailer.probes*.count == [1, 2, 3, 2, 2]
+            tailer.probes[2].timestamp - tailer.probes[0].timestamp >= 5
+            tailer.probes.every { it.timestamp > 0 }
+        cleanup:
+            probeTailer.close()
+    }
+
+    def "should count probes of compressed batches"()
+    {
+        given:
+            QueueConfiguration queueConfiguration = QueueConfiguration.builder()
+                    .path(TestQueueUtil.PATH)
+                    .mmapSize(OS.pageSize())
+                    .batching(new Batching(3))
+                    .writeThreshold(WriteThreshold.flushOnEachWrite())
+                    .probeAccess(ProbeAccess.compressedAccess())
+                    .build()
+            StatsQueue<Integer> queue = TestQueueUtil.createQueue(queueConfiguration)
+            TestTailer tailer = new TestTailer()
+            ProbeTailer probeTailer = ProbeTailer.from(tailerConfiguration(tailer))
+        when:
+            (1..7).forEach({ queue.add(it) })
+        then:
+            probeTailer.probes() == 6
+        when:
+            probeTailer.read(4)
+        then:
+            probeTailer.probes() == 2
+            tailer.probes.size() == 4
+        when:
+            queue.close()
+        then:
+            probeTailer.probes() == 4
+        cleanup:
+            probeTailer.close()
+    }
+
+    def "should throw an exception if flushMillisThreshold doesn't fit into int"()
+    {
+        given:
+            QueueConfiguration queueConfiguration = QueueConfiguration.builder()
+                    .path(TestQueueUtil.PATH)
+                    .batching(new Batching(1, Integer.MAX_VALUE + 1L))
+                    .probeAccess(ProbeAccess.compressedAccess())
+                    .build()
+        when:
+            TestQueueUtil.createQueue(queueConfiguration)
+        then:
+            thrown(IllegalArgumentException)
+    }
+
+    private static TailerConfiguration tailerConfiguration(TestTailer tailer)
+    {
+        return TailerConfiguration.builder()
+                .tailer(tailer)
+                .probeAccess(ProbeAccess.compressedAccess())
+                .path(TestQueueUtil.PATH)
+                .build()
+    }
+}
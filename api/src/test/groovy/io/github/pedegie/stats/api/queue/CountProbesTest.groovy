@@ -1,6 +1,12 @@
 package io.github.pedegie.stats.api.queue
 
+import io.github.pedegie.stats.api.queue.probe.BatchHeader
 import io.github.pedegie.stats.api.tailer.ProbeTailer
+import net.openhft.chronicle.bytes.Bytes
+import net.openhft.chronicle.queue.ExcerptTailer
+import net.openhft.chronicle.queue.impl.single.SingleChronicleQueue
+import net.openhft.chronicle.queue.impl.single.SingleChronicleQueueBuilder
+import net.openhft.chronicle.wire.DocumentContext
 import net.openhft.chronicle.core.OS
 import io.github.pedegie.stats.api.tailer.TailerConfiguration
 import spock.lang.Specification
@@ -204,4 +210,73 @@ class CountProbesTest extends Specification
         cleanup:
             probeTailer.close()
     }
+
+    def "should store probes count, timestamps and running total in batch header"()
+    {
+        given:
+            writeElementsTo(5, TestQueueUtil.PATH, 3)
+            writeElementsTo(3, TestQueueUtil.PATH, 3)
+            TestTailer testTailer = new TestTailer()
+            ProbeTailer.from(TailerConfiguration.builder().tailer(testTailer).path(TestQueueUtil.PATH).build()).withCloseable { it.read() }
+            SingleChronicleQueue chronicleQueue = SingleChronicleQueueBuilder.binary(TestQueueUtil.PATH).build()
+            ExcerptTailer tailer = chronicleQueue.createTailer()
+            List<List<Long>> headers = []
+        when:
+            while (true)
+            {
+                DocumentContext dc = tailer.readingDocument()
+                if (!dc.isPresent())
+                    break
+
+                Bytes<?> bytes = dc.wire().bytes()
+                long position = bytes.readPosition()
+                headers.add([BatchHeader.probes(bytes, position), BatchHeader.minTimestamp(bytes, position),
+                             BatchHeader.maxTimestamp(bytes, position), BatchHeader.totalProbes(bytes, position),
+                             BatchHeader.timestampBound(bytes, position)] as List<Long>)
+                dc.close()
+            }
+        then: "batches of 3, 2, 3 probes where the second writer continues running total and timestamp bound"
+            headers*.get(0) == [3, 2, 3]
+            headers*.get(3) == [3, 5, 8]
+            headers*.get(1) == [0, 3, 5].collect { testTailer.probes[it].timestamp }
+            headers*.get(2) == [2, 4, 7].collect { testTailer.probes[it].timestamp }
+            headers*.get(4) == [0, 1, 2].collect { headers[0..it]*.get(2).max() }
+        cleanup:
+            chronicleQueue.close()
+    }
+
+    def "should reject file written without batch header format"()
+    {
+        given: "batch in layout of header without format marker"
+            SingleChronicleQueue chronicleQueue = SingleChronicleQueueBuilder.binary(TestQueueUtil.PATH).build()
+            chronicleQueue.acquireAppender().writingDocument().withCloseable {
+                Bytes<?> bytes = it.wire().bytes()
+                bytes.writeInt(1)
+                bytes.writeLong(100L)
+                bytes.writeLong(100L)
+                bytes.writeLong(1L)
+                bytes.writeLong(100L)
+                bytes.writeInt(1)
+            }
+            chronicleQueue.close()
+            ProbeTailer probeTailer = ProbeTailer.from(TailerConfiguration.builder()
+                    .tailer(new TestTailer())
+                    .path(TestQueueUtil.PATH)
+                    .build())
+        when:
+            probeTailer.read()
+        then:
+            thrown(IllegalStateException)
+        when:
+            TestQueueUtil.createQueue(QueueConfiguration.builder()
+                    .path(TestQueueUtil.PATH)
+                    .mmapSize(OS.pageSize())
+                    .build())
+        then:
+            thrown(IllegalStateException)
+        when: "file is released even though remaining probes can't be read"
+            probeTailer.close()
+        then:
+            thrown(IllegalStateException)
+    }
 }
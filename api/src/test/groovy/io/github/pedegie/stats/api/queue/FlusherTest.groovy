@@ -3,6 +3,8 @@ package io.github.pedegie.stats.api.queue
 
 import spock.lang.Specification
 
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
 import java.util.concurrent.TimeUnit
 import java.util.concurrent.atomic.AtomicInteger
 
@@ -93,6 +95,39 @@ class FlusherTest extends Specification
             flusher.stop()
     }
 
+    def "should remove flushables before their next flush"()
+    {
+        given:
+            Flusher flusher = new Flusher()
+            flusher.start()
+            List<TestFlushable> flushables = (1..100).collect { new TestFlushable(60_000) }
+            flushables.each { flusher.addFlushable(it) }
+            BusyWaiter.busyWaitMillis({ flusher.flushables.size() == 100 }, 300, "waiting for registrations")
+        when:
+            flushables.each { it.close() }
+            flusher.removeFlushables(flushables)
+        then:
+            BusyWaiter.busyWaitMillis({ flusher.flushables.size() == 0 }, 300, "waiting for deregistrations")
+        cleanup:
+            flusher.stop()
+    }
+
+    def "should accept flushables registered concurrently"()
+    {
+        given:
+            Flusher flusher = new Flusher(1)
+            flusher.start()
+            List<TestFlushable> flushables = (1..1000).collect { new TestFlushable(100) }
+            ExecutorService executor = Executors.newFixedThreadPool(16)
+        when:
+            flushables.collect { flushable -> executor.submit({ flusher.addFlushable(flushable) } as Runnable) }*.get()
+        then:
+            BusyWaiter.busyWaitMillis({ flushables.every { it.flushedTimes > 0 } }, 1000, "waiting for flushes")
+        cleanup:
+            executor.shutdown()
+            flusher.stop()
+    }
+
     def "should flush flushables within given interval"()
     {
         given:
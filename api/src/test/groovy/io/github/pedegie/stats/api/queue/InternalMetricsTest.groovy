@@ -0,0 +1,106 @@
+package io.github.pedegie.stats.api.queue
+
+import io.github.pedegie.stats.api.tailer.ProbeTailer
+import io.github.pedegie.stats.api.tailer.TailerFactory
+import net.openhft.chronicle.core.OS
+import spock.lang.Specification
+
+class InternalMetricsTest extends Specification
+{
+    def setup()
+    {
+        StatsQueue.stopFlusher()
+        FileUtils.cleanDirectory(TestQueueUtil.PATH.getParent())
+    }
+
+    def cleanupSpec()
+    {
+        FileUtils.cleanDirectory(TestQueueUtil.PATH.getParent())
+    }
+
+    def "should count writes rejected by threshold and inline flushes"()
+    {
+        given:
+            StatsQueue<Integer> queue = TestQueueUtil.createQueue(configuration()
+                    .writeThreshold(WriteThreshold.of(60_000, 2))
+                    .build())
+        when:
+            queue.add(1)
+            queue.add(2)
+            queue.add(3)
+            WriteMetrics metrics = queue.internalMetrics()
+        then:
+            metrics.rejectedByThreshold == 2
+            metrics.lostCas == 0
+            metrics.droppedWhileDraining == 0
+            metrics.inlineFlushes == 1
+            metrics.flusherFlushes == 0
+            metrics.bytesWritten > 0
+            metrics.maxFlushNanos > 0
+            metrics.averageFlushNanos() <= metrics.maxFlushNanos
+        cleanup:
+            queue.close()
+    }
+
+    def "should write metrics into probes file without affecting tailers"()
+    {
+        given:
+            StatsQueue<Integer> queue = TestQueueUtil.createQueue(configuration()
+                    .writeThreshold(WriteThreshold.of(0, 1))
+                    .internalMetricsWriteMillis(1)
+                    .build())
+        when:
+            (1..10).forEach({ queue.add(it) })
+            queue.close()
+        then:
+            WriteMetrics.readLast(TestQueueUtil.PATH) == queue.internalMetrics()
+            queue.internalMetrics().inlineFlushes == 11
+            ProbeTailer tailer = TailerFactory.tailerFor(TestQueueUtil.PATH)
+            tailer.probes() == 11
+            tailer.close()
+    }
+
+    def "should return null if there are no metrics in file"()
+    {
+        given:
+            StatsQueue<Integer> queue = TestQueueUtil.createQueue(configuration().build())
+            queue.add(1)
+            queue.close()
+        expect:
+            WriteMetrics.readLast(TestQueueUtil.PATH) == null
+    }
+
+    def "should throw an exception if internal metrics are disabled"()
+    {
+        given:
+            StatsQueue<Integer> queue = TestQueueUtil.createQueue(configuration().internalMetrics(false).build())
+        when:
+            queue.internalMetrics()
+        then:
+            thrown(IllegalStateException)
+        cleanup:
+            queue.close()
+    }
+
+    def "should throw an exception if metrics write interval is wrongly configured"()
+    {
+        when:
+            TestQueueUtil.createQueue(builder.build())
+        then:
+            thrown(IllegalArgumentException)
+        where:
+            builder << [
+                    configuration().internalMetricsWriteMillis(-1),
+                    configuration().internalMetrics(false).internalMetricsWriteMillis(1000)
+            ]
+    }
+
+    private static QueueConfiguration.QueueConfigurationBuilder configuration()
+    {
+        return QueueConfiguration.builder()
+                .path(TestQueueUtil.PATH)
+                .mmapSize(OS.pageSize())
+                .batching(new Batching(1))
+                .internalMetrics(true)
+    }
+}
@@ -0,0 +1,105 @@
+package io.github.pedegie.stats.api.queue
+
+import io.github.pedegie.stats.api.tailer.TailerFactory
+import net.openhft.chronicle.core.OS
+import net.openhft.chronicle.queue.impl.single.SingleChronicleQueue
+import net.openhft.chronicle.queue.impl.single.SingleChronicleQueueBuilder
+import spock.lang.Specification
+
+class PreToucherTest extends Specification
+{
+    def setup()
+    {
+        StatsQueue.stopFlusher()
+        FileUtils.cleanDirectory(TestQueueUtil.PATH.getParent())
+    }
+
+    def cleanupSpec()
+    {
+        FileUtils.cleanDirectory(TestQueueUtil.PATH.getParent())
+    }
+
+    def "should start pre-toucher on first added queue"()
+    {
+        given:
+            PreToucher preToucher = new PreToucher(1)
+            SingleChronicleQueue queue = chronicleQueue()
+        when:
+            preToucher.addQueue(queue)
+        then:
+            preToucher.preToucherThread.isAlive()
+            preToucher.queues.contains(queue)
+        when:
+            preToucher.removeQueue(queue)
+        then:
+            preToucher.queues.isEmpty()
+            preToucher.touching != queue
+        cleanup:
+            preToucher.stop()
+            queue.close()
+    }
+
+    def "should stop pre-touching closed queue"()
+    {
+        given:
+            PreToucher preToucher = new PreToucher(1)
+            SingleChronicleQueue queue = chronicleQueue()
+            preToucher.addQueue(queue)
+        when:
+            queue.close()
+        then:
+            BusyWaiter.busyWaitMillis({ preToucher.queues.isEmpty() }, 3000, "waiting for removal of closed queue")
+        cleanup:
+            preToucher.stop()
+    }
+
+    def "should terminate pre-toucher thread on stop"()
+    {
+        given:
+            PreToucher preToucher = new PreToucher(1)
+            SingleChronicleQueue queue = chronicleQueue()
+            preToucher.addQueue(queue)
+        when:
+            preToucher.stop()
+        then:
+            !preToucher.preToucherThread.isAlive()
+        cleanup:
+            queue.close()
+    }
+
+    def "should not accept pre-touch interval less than 1"()
+    {
+        when:
+            new PreToucher(0)
+        then:
+            thrown(IllegalArgumentException)
+    }
+
+    def "should write probes of pre-touched queue"()
+    {
+        given:
+            QueueConfiguration queueConfiguration = QueueConfiguration.builder()
+                    .path(TestQueueUtil.PATH)
+                    .mmapSize(OS.pageSize())
+                    .preTouch(true)
+                    .writeThreshold(WriteThreshold.flushOnEachWrite())
+                    .build()
+            StatsQueue<Integer> statsQueue = TestQueueUtil.createQueue(queueConfiguration)
+            TestTailer tailer = new TestTailer()
+        when:
+            for (int i = 0; i < 1000; i++)
+                statsQueue.add(i)
+            statsQueue.close()
+            TailerFactory.tailerFor(TestQueueUtil.PATH, tailer).read()
+        then:
+            tailer.probes.size() == 1001
+    }
+
+    private static SingleChronicleQueue chronicleQueue()
+    {
+        return SingleChronicleQueueBuilder
+                .binary(TestQueueUtil.PATH)
+                .blockSize(OS.pageSize())
+                .build()
+    }
+}
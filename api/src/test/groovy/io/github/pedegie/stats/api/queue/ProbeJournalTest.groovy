@@ -0,0 +1,219 @@
+package io.github.pedegie.stats.api.queue
+
+import io.github.pedegie.stats.api.queue.probe.ExecutorProbe
+import io.github.pedegie.stats.api.queue.probe.ProbeAccess
+import io.github.pedegie.stats.api.tailer.JournalTailerConfiguration
+import io.github.pedegie.stats.api.tailer.ProbeTailer
+import net.openhft.chronicle.core.OS
+import net.openhft.chronicle.queue.RollCycles
+import spock.lang.Specification
+
+import java.util.concurrent.ConcurrentLinkedQueue
+import java.util.concurrent.TimeUnit
+
+class ProbeJournalTest extends Specification
+{
+    private ProbeJournal journal
+
+    def setup()
+    {
+        StatsQueue.stopFlusher()
+        FileUtils.cleanDirectory(TestQueueUtil.PATH.getParent())
+        journal = ProbeJournal.open(TestQueueUtil.PATH, OS.pageSize(), RollCycles.DAILY)
+    }
+
+    def cleanup()
+    {
+        journal.close()
+    }
+
+    def cleanupSpec()
+    {
+        FileUtils.cleanDirectory(TestQueueUtil.PATH.getParent())
+    }
+
+    def "should route probes of each source to its tailer"()
+    {
+        given:
+            StatsQueue<Integer> first = StatsQueue.queue(new ConcurrentLinkedQueue<Integer>(), configuration(1))
+            StatsQueue<Integer> second = StatsQueue.queue(new ConcurrentLinkedQueue<Integer>(), configuration(2))
+            TestTailer firstTailer = new TestTailer()
+            TestTailer secondTailer = new TestTailer()
+            ProbeTailer probeTailer = ProbeTailer.fromJournal(JournalTailerConfiguration.builder()
+                    .path(TestQueueUtil.PATH)
+                    .tailers([1: firstTailer, 2: secondTailer])
+                    .build())
+        when:
+            first.add(1)
+            second.add(1)
+            second.add(2)
+            first.add(2)
+            first.add(3)
+            first.close()
+            second.close()
+            probeTailer.read()
+        then:
+            firstTailer.probes.collect { it.count } == [1, 2, 3, 3]
+            secondTailer.probes.collect { it.count } == [1, 2, 2]
+        cleanup:
+            probeTailer.close()
+    }
+
+    def "should read range of probes of each source"()
+    {
+        given:
+            long start = System.currentTimeMillis() - 10_000
+            long ticks = 0
+            Clock clock = { start + 10 * ticks++ } as Clock
+            StatsQueue<Integer> first = StatsQueue.queue(new ConcurrentLinkedQueue<Integer>(), configuration(1, clock))
+            StatsQueue<Integer> second = StatsQueue.queue(new ConcurrentLinkedQueue<Integer>(), configuration(2, clock))
+            (1..10).forEach {
+                first.add(it)
+                second.add(it)
+            }
+            first.close()
+            second.close()
+            TestTailer firstExpected = new TestTailer()
+            TestTailer secondExpected = new TestTailer()
+            ProbeTailer.fromJournal(journalConfiguration([1: firstExpected, 2: secondExpected])).withCloseable { it.readFromStart() }
+            TestTailer firstTailer = new TestTailer()
+            TestTailer secondTailer = new TestTailer()
+            ProbeTailer probeTailer = ProbeTailer.fromJournal(journalConfiguration([1: firstTailer, 2: secondTailer]))
+        when:
+            probeTailer.readRange(start + 55, start + 155)
+        then:
+            firstTailer.probes*.timestamp == firstExpected.probes*.timestamp.findAll { it >= start + 55 && it < start + 155 }
+            secondTailer.probes*.timestamp == secondExpected.probes*.timestamp.findAll { it >= start + 55 && it < start + 155 }
+            !firstTailer.probes.isEmpty()
+            !secondTailer.probes.isEmpty()
+        when:
+            firstTailer.probes.clear()
+            probeTailer.seek(start + 155)
+            probeTailer.read()
+        then: "batches of other source may still bring older probes after seek position"
+            firstTailer.probes*.timestamp.containsAll(firstExpected.probes*.timestamp.findAll { it >= start + 155 })
+        cleanup:
+            probeTailer.close()
+    }
+
+    def "should skip sources without tailer"()
+    {
+        given:
+            StatsQueue<Integer> first = StatsQueue.queue(new ConcurrentLinkedQueue<Integer>(), configuration(1))
+            StatsQueue<Integer> second = StatsQueue.queue(new ConcurrentLinkedQueue<Integer>(), configuration(2))
+            TestTailer secondTailer = new TestTailer()
+            ProbeTailer probeTailer = ProbeTailer.fromJournal(JournalTailerConfiguration.builder()
+                    .path(TestQueueUtil.PATH)
+                    .tailers([2: secondTailer])
+                    .build())
+        when:
+            first.add(1)
+            first.add(2)
+            second.add(1)
+            first.close()
+            second.close()
+        then:
+            probeTailer.probes() == 2
+        when:
+            probeTailer.read(2)
+        then:
+            secondTailer.probes.collect { it.count } == [1, 1]
+        cleanup:
+            probeTailer.close()
+    }
+
+    def "should read sources written with different probe access"()
+    {
+        given:
+            StatsQueue<Integer> queue = StatsQueue.queue(new ConcurrentLinkedQueue<Integer>(), configuration(1))
+            StatsThreadPoolExecutor executor = StatsExecutors.newFixedThreadPool(1, configuration(2))
+            TestTailer queueTailer = new TestTailer()
+            TestTailer executorTailer = new TestTailer()
+            ProbeTailer probeTailer = ProbeTailer.fromJournal(JournalTailerConfiguration.builder()
+                    .path(TestQueueUtil.PATH)
+                    .tailers([1: queueTailer, 2: executorTailer])
+                    .sourceProbeAccesses([2: ProbeAccess.executorAccess()])
+                    .build())
+        when:
+            queue.add(1)
+            executor.execute {}
+            executor.shutdown()
+            executor.awaitTermination(5, TimeUnit.SECONDS)
+            queue.close()
+            probeTailer.read()
+        then:
+            queueTailer.probes.collect { it.count } == [1, 1]
+            executorTailer.probes.every { it instanceof ExecutorProbe }
+            executorTailer.probes.sum { (it as ExecutorProbe).completedTasks } == 1
+        cleanup:
+            probeTailer.close()
+    }
+
+    def "should not allow two decorators with the same source id"()
+    {
+        given:
+            StatsQueue<Integer> first = StatsQueue.queue(new ConcurrentLinkedQueue<Integer>(), configuration(1))
+        when:
+            StatsQueue.queue(new ConcurrentLinkedQueue<Integer>(), configuration(1))
+        then:
+            thrown(IllegalArgumentException)
+            journal.sources() == 1
+        when:
+            first.close()
+            StatsQueue<Integer> reopened = StatsQueue.queue(new ConcurrentLinkedQueue<Integer>(), configuration(1))
+        then:
+            journal.sources() == 1
+        cleanup:
+            reopened?.close()
+    }
+
+    def "should close all sources when journal is closed"()
+    {
+        given:
+            StatsQueue<Integer> first = StatsQueue.queue(new ConcurrentLinkedQueue<Integer>(), configuration(1))
+            StatsQueue<Integer> second = StatsQueue.queue(new ConcurrentLinkedQueue<Integer>(), configuration(2))
+        when:
+            journal.close()
+        then:
+            first.isClosed()
+            second.isClosed()
+            journal.isClosed()
+            journal.sources() == 0
+    }
+
+    def "should not allow to open the same journal twice"()
+    {
+        when:
+            ProbeJournal.open(TestQueueUtil.PATH)
+        then:
+            thrown(IllegalArgumentException)
+    }
+
+    private QueueConfiguration configuration(int sourceId, Clock clock)
+    {
+        return QueueConfiguration.builder()
+                .journal(journal)
+                .sourceId(sourceId)
+                .batching(new Batching(4))
+                .writeThreshold(WriteThreshold.flushOnEachWrite())
+                .clock(clock)
+                .build()
+    }
+
+    private static JournalTailerConfiguration journalConfiguration(Map<Integer, TestTailer> tailers)
+    {
+        return JournalTailerConfiguration.builder()
+                .path(TestQueueUtil.PATH)
+                .tailers(tailers)
+                .build()
+    }
+
+    private QueueConfiguration configuration(int sourceId)
+    {
+        return QueueConfiguration.builder()
+                .journal(journal)
+                .sourceId(sourceId)
+                .writeThreshold(WriteThreshold.flushOnEachWrite())
+                .build()
+    }
+}
@@ -0,0 +1,119 @@
+package io.github.pedegie.stats.api.queue
+
+import io.github.pedegie.stats.api.tailer.ProbeTailer
+import io.github.pedegie.stats.api.tailer.TailerFactory
+import net.openhft.chronicle.core.OS
+import spock.lang.Specification
+
+import java.nio.file.Path
+import java.util.concurrent.ConcurrentLinkedDeque
+
+class StatsDequeTest extends Specification
+{
+    private StatsDeque<Integer> statsDeque
+    private TestTailer tailer
+    private ProbeTailer probeTailer
+
+    def setup()
+    {
+        StatsQueue.stopFlusher()
+        FileUtils.cleanDirectory(TestQueueUtil.PATH.getParent())
+        QueueConfiguration queueConfiguration = QueueConfiguration.builder()
+                .path(TestQueueUtil.PATH)
+                .mmapSize(OS.pageSize())
+                .writeThreshold(WriteThreshold.flushOnEachWrite())
+                .disableSynchronization(true)
+                .build()
+        statsDeque = StatsDeque.deque(new ArrayDeque<Integer>(), queueConfiguration)
+        tailer = new TestTailer()
+        probeTailer = TailerFactory.tailerFor(TestQueueUtil.PATH, tailer)
+    }
+
+    def cleanup()
+    {
+        statsDeque.close()
+        probeTailer.close()
+    }
+
+    def cleanupSpec()
+    {
+        FileUtils.cleanDirectory(TestQueueUtil.PATH.getParent())
+    }
+
+    def "should count elements added and removed at both ends"()
+    {
+        when:
+            statsDeque.push(1)
+            statsDeque.addLast(2)
+            statsDeque.offerFirst(3)
+            statsDeque.offerLast(4)
+            statsDeque.pop()
+            statsDeque.pollLast()
+            statsDeque.removeLast()
+            statsDeque.pollFirst()
+            statsDeque.pollFirst()
+        then:
+            statsDeque.isEmpty()
+            probeCounts() == [1, 2, 3, 4, 3, 2, 1, 0, 0]
+    }
+
+    def "should count elements removed by occurrence and descending iterator"()
+    {
+        given:
+            statsDeque.addAll([1, 2, 1, 3, 4])
+        when:
+            statsDeque.removeFirstOccurrence(1)
+            statsDeque.removeLastOccurrence(1)
+            statsDeque.removeLastOccurrence(7)
+            Iterator<Integer> iterator = statsDeque.descendingIterator()
+            iterator.next()
+            iterator.remove()
+        then:
+            statsDeque.toList() == [2, 3]
+            probeCounts() == [5, 4, 3, 2, 2]
+    }
+
+    def "should count bulk removals"()
+    {
+        given:
+            statsDeque.addAll(1..10)
+        when:
+            statsDeque.removeIf { it % 2 == 0 }
+            statsDeque.removeAll([1, 3, 11])
+            statsDeque.retainAll([5, 7])
+        then:
+            statsDeque.toList() == [5, 7]
+            probeCounts() == [10, 5, 3, 2, 2]
+    }
+
+    def "should count only elements removed by itself when they are concurrently removed by others"()
+    {
+        given:
+            Path path = Path.of(TestQueueUtil.PATH.toString() + "_concurrent")
+            StatsDeque<Integer> concurrentDeque = StatsDeque.deque(new ConcurrentLinkedDeque<Integer>(), QueueConfiguration.builder()
+                    .path(path)
+                    .mmapSize(OS.pageSize())
+                    .writeThreshold(WriteThreshold.flushOnEachWrite())
+                    .build())
+            concurrentDeque.addAll(1..10)
+        when: "odd elements are removed in meantime, as if by another thread"
+            concurrentDeque.removeIf {
+                if (it % 2 == 1)
+                    concurrentDeque.remove(it)
+                true
+            }
+            concurrentDeque.close()
+        then:
+            concurrentDeque.isEmpty()
+            TestTailer concurrentTailer = new TestTailer()
+            TailerFactory.tailerFor(path, concurrentTailer).withCloseable { it.read() }
+            concurrentTailer.probes.last().count == 0
+    }
+
+    private List<Integer> probeCounts()
+    {
+        statsDeque.close()
+        probeTailer.read()
+        return tailer.probes.collect { it.count }
+    }
+}
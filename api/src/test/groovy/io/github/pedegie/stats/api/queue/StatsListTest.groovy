@@ -0,0 +1,112 @@
+package io.github.pedegie.stats.api.queue
+
+import io.github.pedegie.stats.api.tailer.ProbeTailer
+import io.github.pedegie.stats.api.tailer.TailerFactory
+import net.openhft.chronicle.core.OS
+import spock.lang.Specification
+
+class StatsListTest extends Specification
+{
+    private StatsList<Integer> statsList
+    private TestTailer tailer
+    private ProbeTailer probeTailer
+
+    def setup()
+    {
+        StatsQueue.stopFlusher()
+        FileUtils.cleanDirectory(TestQueueUtil.PATH.getParent())
+        QueueConfiguration queueConfiguration = QueueConfiguration.builder()
+                .path(TestQueueUtil.PATH)
+                .mmapSize(OS.pageSize())
+                .writeThreshold(WriteThreshold.flushOnEachWrite())
+                .disableSynchronization(true)
+                .build()
+        statsList = StatsList.list(new ArrayList<Integer>(), queueConfiguration)
+        tailer = new TestTailer()
+        probeTailer = TailerFactory.tailerFor(TestQueueUtil.PATH, tailer)
+    }
+
+    def cleanup()
+    {
+        statsList.close()
+        probeTailer.close()
+    }
+
+    def cleanupSpec()
+    {
+        FileUtils.cleanDirectory(TestQueueUtil.PATH.getParent())
+    }
+
+    def "should count index based modifications"()
+    {
+        when:
+            statsList.add(1)
+            statsList.add(0, 2)
+            statsList.addAll(1, [3, 4])
+            statsList.set(0, 5)
+            statsList.removeAt(0)
+            statsList.removeElement(4)
+        then:
+            statsList == [3, 1]
+            probeCounts() == [1, 2, 4, 3, 2, 2]
+    }
+
+    def "should count sub list modifications"()
+    {
+        given:
+            statsList.addAll(1..10)
+        when:
+            statsList.subList(0, 3).clear()
+            statsList.subList(2, 6).subList(0, 2).clear()
+            statsList.subList(0, 2).add(11)
+            statsList.subList(0, 4).removeIf { it > 10 }
+        then:
+            statsList == [4, 5, 8, 9, 10]
+            probeCounts() == [10, 7, 5, 6, 5, 5]
+    }
+
+    def "should count list iterator modifications"()
+    {
+        given:
+            statsList.addAll([1, 2, 3])
+        when:
+            ListIterator<Integer> iterator = statsList.listIterator()
+            iterator.next()
+            iterator.remove()
+            iterator.next()
+            iterator.add(7)
+            iterator.add(8)
+            iterator.next()
+            iterator.set(9)
+        then:
+            statsList == [2, 7, 8, 9]
+            probeCounts() == [3, 2, 3, 4, 4]
+    }
+
+    def "should remove exactly matched elements of synchronized list"()
+    {
+        given:
+            statsList.close()
+            statsList = StatsList.list(new ArrayList<Integer>(), QueueConfiguration.builder()
+                    .path(TestQueueUtil.PATH)
+                    .mmapSize(OS.pageSize())
+                    .writeThreshold(WriteThreshold.flushOnEachWrite())
+                    .build())
+            Integer first = Integer.valueOf(1000)
+            Integer second = Integer.valueOf(1000)
+            statsList.addAll([first, second, 1])
+        when:
+            statsList.removeIf { it.is(second) }
+        then:
+            statsList.size() == 2
+            statsList[0].is(first)
+            probeCounts().last() == 2
+    }
+
+    private List<Integer> probeCounts()
+    {
+        statsList.close()
+        probeTailer.read()
+        return tailer.probes.collect { it.count }
+    }
+}
@@ -0,0 +1,186 @@
+package io.github.pedegie.stats.api.queue
+
+import io.github.pedegie.stats.api.tailer.ProbeTailer
+import io.github.pedegie.stats.api.tailer.TailerFactory
+import net.openhft.chronicle.core.OS
+import spock.lang.Specification
+
+import java.nio.file.Path
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.CountDownLatch
+
+class StatsMapTest extends Specification
+{
+    private StatsConcurrentMap<Integer, Integer> statsMap
+    private TestTailer tailer
+    private ProbeTailer probeTailer
+
+    def setup()
+    {
+        StatsQueue.stopFlusher()
+        FileUtils.cleanDirectory(TestQueueUtil.PATH.getParent())
+        statsMap = StatsMap.concurrentMap(new ConcurrentHashMap<Integer, Integer>(), configuration())
+        tailer = new TestTailer()
+        probeTailer = TailerFactory.tailerFor(TestQueueUtil.PATH, tailer)
+    }
+
+    def cleanup()
+    {
+        statsMap.close()
+        probeTailer.close()
+    }
+
+    def cleanupSpec()
+    {
+        FileUtils.cleanDirectory(TestQueueUtil.PATH.getParent())
+    }
+
+    def "should count put, putIfAbsent and remove"()
+    {
+        when:
+            statsMap.put(1, 1)
+            statsMap.put(1, 2)
+            statsMap.put(2, 2)
+            statsMap.putIfAbsent(2, 3)
+            statsMap.putIfAbsent(3, 3)
+            statsMap.remove(1)
+            statsMap.remove(1)
+            statsMap.remove(2, 5)
+            statsMap.remove(2, 2)
+        then:
+            lastProbeCount() == 1
+            tailer.probes.collect { it.count } == [1, 2, 3, 2, 1, 1]
+    }
+
+    def "should count compute, computeIfAbsent, computeIfPresent and merge"()
+    {
+        when:
+            statsMap.computeIfAbsent(1, { 1 })
+            statsMap.computeIfAbsent(1, { 2 })
+            statsMap.computeIfAbsent(2, { null })
+            statsMap.compute(2, { k, v -> 2 })
+            statsMap.compute(2, { k, v -> v + 1 })
+            statsMap.computeIfPresent(3, { k, v -> 3 })
+            statsMap.computeIfPresent(1, { k, v -> null })
+            statsMap.merge(4, 4, { o, n -> o + n })
+            statsMap.merge(4, 4, { o, n -> o + n })
+            statsMap.merge(2, 1, { o, n -> null })
+        then:
+            statsMap.size() == 1
+            statsMap.get(4) == 8
+            lastProbeCount() == 1
+    }
+
+    def "should count putAll and clear"()
+    {
+        when:
+            statsMap.putAll([1: 1, 2: 2, 3: 3])
+            statsMap.putAll([3: 3, 4: 4])
+            statsMap.clear()
+        then:
+            lastProbeCount() == 0
+            tailer.probes.collect { it.count } == [3, 4, 0, 0]
+    }
+
+    def "should count removals through views"()
+    {
+        given:
+            statsMap.putAll((1..10).collectEntries { [it, it] })
+        when:
+            statsMap.keySet().remove(1)
+            statsMap.values().removeIf { it % 2 == 0 }
+            statsMap.entrySet().remove(new AbstractMap.SimpleEntry<>(3, 3))
+            Iterator<Integer> iterator = statsMap.keySet().iterator()
+            iterator.next()
+            iterator.remove()
+        then:
+            statsMap.size() == 2
+            lastProbeCount() == 2
+    }
+
+    def "should reject null values"()
+    {
+        when:
+            statsMap.put(1, null)
+        then:
+            thrown(NullPointerException)
+    }
+
+    def "should reject null values set by replaceAll and entry"()
+    {
+        given:
+            statsMap.put(1, 1)
+        when:
+            statsMap.replaceAll({ k, v -> null })
+        then:
+            thrown(NullPointerException)
+        when:
+            statsMap.entrySet().iterator().next().setValue(null)
+        then:
+            thrown(NullPointerException)
+            statsMap.get(1) == 1
+        when:
+            statsMap.entrySet().iterator().next().setValue(2)
+        then:
+            statsMap.get(1) == 2
+            lastProbeCount() == 1
+    }
+
+    def "should count nested compute of another map"()
+    {
+        given:
+            StatsConcurrentMap<Integer, Integer> other = StatsMap.concurrentMap(new ConcurrentHashMap<Integer, Integer>(),
+                    configuration().withPath(Path.of(TestQueueUtil.PATH.toString() + "_other")))
+        when:
+            statsMap.computeIfAbsent(1, { k -> other.computeIfAbsent(k, { 1 }) + 1 })
+            statsMap.compute(1, { k, v -> other.compute(k, { k2, v2 -> null }) })
+        then:
+            statsMap.size() == 0
+            other.size() == 0
+            lastProbeCount() == 0
+        cleanup:
+            other.close()
+    }
+
+    def "should correctly count size from multiple threads"()
+    {
+        given:
+            int threads = 4
+            CountDownLatch start = new CountDownLatch(1)
+            List<Thread> writers = (0..<threads).collect { int thread ->
+                new Thread({
+                    start.await()
+                    for (int i = 0; i < 1000; i++)
+                    {
+                        int key = thread * 1000 + i
+                        statsMap.merge(key, 1, { o, n -> o + n })
+                        if (i % 2 == 0)
+                            statsMap.remove(key)
+                    }
+                })
+            }
+        when:
+            writers.each { it.start() }
+            start.countDown()
+            writers.each { it.join() }
+        then:
+            statsMap.size() == 2000
+            lastProbeCount() == 2000
+    }
+
+    private int lastProbeCount()
+    {
+        statsMap.close()
+        probeTailer.read()
+        return tailer.probes.last().count
+    }
+
+    private static QueueConfiguration configuration()
+    {
+        return QueueConfiguration.builder()
+                .path(TestQueueUtil.PATH)
+                .mmapSize(OS.pageSize())
+                .writeThreshold(WriteThreshold.flushOnEachWrite())
+                .build()
+    }
+}
@@ -0,0 +1,99 @@
+package io.github.pedegie.stats.api.queue
+
+import io.github.pedegie.stats.api.tailer.ProbeTailer
+import io.github.pedegie.stats.api.tailer.TailerFactory
+import net.openhft.chronicle.core.OS
+import spock.lang.Specification
+
+import java.util.concurrent.ConcurrentSkipListSet
+import java.util.concurrent.CountDownLatch
+
+class StatsSetTest extends Specification
+{
+    private StatsSet<Integer> statsSet
+    private TestTailer tailer
+    private ProbeTailer probeTailer
+
+    def setup()
+    {
+        StatsQueue.stopFlusher()
+        FileUtils.cleanDirectory(TestQueueUtil.PATH.getParent())
+        QueueConfiguration queueConfiguration = QueueConfiguration.builder()
+                .path(TestQueueUtil.PATH)
+                .mmapSize(OS.pageSize())
+                .writeThreshold(WriteThreshold.flushOnEachWrite())
+                .build()
+        statsSet = StatsSet.set(new ConcurrentSkipListSet<Integer>(), queueConfiguration)
+        tailer = new TestTailer()
+        probeTailer = TailerFactory.tailerFor(TestQueueUtil.PATH, tailer)
+    }
+
+    def cleanup()
+    {
+        statsSet.close()
+        probeTailer.close()
+    }
+
+    def cleanupSpec()
+    {
+        FileUtils.cleanDirectory(TestQueueUtil.PATH.getParent())
+    }
+
+    def "should not count duplicates"()
+    {
+        when:
+            statsSet.add(1)
+            statsSet.add(1)
+            statsSet.addAll([1, 2, 3])
+            statsSet.addAll([2, 3])
+        then:
+            statsSet.size() == 3
+            probeCounts() == [1, 3, 3]
+    }
+
+    def "should count bulk removals"()
+    {
+        given:
+            statsSet.addAll(1..10)
+        when:
+            statsSet.removeIf { it > 8 }
+            statsSet.removeAll([1, 2, 20])
+            statsSet.retainAll([3, 4, 5])
+            Iterator<Integer> iterator = statsSet.iterator()
+            iterator.next()
+            iterator.remove()
+        then:
+            statsSet.toList() == [4, 5]
+            probeCounts() == [10, 8, 6, 3, 2, 2]
+    }
+
+    def "should correctly count size from multiple threads"()
+    {
+        given:
+            int threads = 4
+            CountDownLatch start = new CountDownLatch(1)
+            List<Thread> writers = (0..<threads).collect { int thread ->
+                new Thread({
+                    start.await()
+                    for (int i = 0; i < 1000; i++)
+                    {
+                        statsSet.add(i)
+                        statsSet.remove(i - 1)
+                    }
+                })
+            }
+        when:
+            writers.each { it.start() }
+            start.countDown()
+            writers.each { it.join() }
+        then:
+            probeCounts().last() == statsSet.size()
+    }
+
+    private List<Integer> probeCounts()
+    {
+        statsSet.close()
+        probeTailer.read()
+        return tailer.probes.collect { it.count }
+    }
+}
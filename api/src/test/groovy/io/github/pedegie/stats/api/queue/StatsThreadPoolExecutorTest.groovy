@@ -0,0 +1,238 @@
+package io.github.pedegie.stats.api.queue
+
+import io.github.pedegie.stats.api.queue.probe.ExecutorProbe
+import io.github.pedegie.stats.api.queue.probe.ProbeAccess
+import io.github.pedegie.stats.api.tailer.ProbeTailer
+import io.github.pedegie.stats.api.tailer.TailerConfiguration
+import net.openhft.chronicle.core.OS
+import spock.lang.Specification
+
+import java.util.concurrent.ArrayBlockingQueue
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.Future
+import java.util.concurrent.RejectedExecutionException
+import java.util.concurrent.RejectedExecutionHandler
+import java.util.concurrent.ThreadPoolExecutor
+import java.util.concurrent.TimeUnit
+
+class StatsThreadPoolExecutorTest extends Specification
+{
+    private QueueConfiguration queueConfiguration
+    private TestTailer tailer
+    private ProbeTailer probeTailer
+
+    def setup()
+    {
+        StatsQueue.stopFlusher()
+        FileUtils.cleanDirectory(TestQueueUtil.PATH.getParent())
+        queueConfiguration = QueueConfiguration.builder()
+                .path(TestQueueUtil.PATH)
+                .mmapSize(OS.pageSize())
+                .writeThreshold(WriteThreshold.flushOnEachWrite())
+                .build()
+        tailer = new TestTailer()
+        probeTailer = ProbeTailer.from(TailerConfiguration.builder()
+                .tailer(tailer)
+                .probeAccess(ProbeAccess.executorAccess())
+                .path(TestQueueUtil.PATH)
+                .build())
+    }
+
+    def cleanup()
+    {
+        probeTailer.close()
+    }
+
+    def cleanupSpec()
+    {
+        FileUtils.cleanDirectory(TestQueueUtil.PATH.getParent())
+    }
+
+    def "should write waiting tasks, active threads and completed tasks"()
+    {
+        given:
+            StatsThreadPoolExecutor executor = StatsExecutors.newFixedThreadPool(1, queueConfiguration)
+            CountDownLatch started = new CountDownLatch(1)
+            CountDownLatch release = new CountDownLatch(1)
+        when:
+            executor.execute { started.countDown(); release.await() }
+            started.await()
+            executor.execute {}
+            executor.execute {}
+            release.countDown()
+            List<ExecutorProbe> probes = shutdown(executor)
+        then:
+            probes.collect { it.count }.max() == 2
+            probes.collect { it.activeThreads }.max() == 1
+            probes.collect { it.poolSize }.max() == 1
+            probes.sum { it.completedTasks } == 3
+            probes.sum { it.rejectedTasks } == 0
+            probes.last().count == 0
+            probes.last().activeThreads == 0
+    }
+
+    def "should write rejected tasks"()
+    {
+        given:
+            StatsThreadPoolExecutor executor = new StatsThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<Runnable>(1), queueConfiguration)
+            CountDownLatch release = new CountDownLatch(1)
+        when:
+            executor.execute { release.await() }
+            executor.execute {}
+            executor.execute {}
+        then:
+            thrown(RejectedExecutionException)
+        when:
+            release.countDown()
+            List<ExecutorProbe> probes = shutdown(executor)
+        then:
+            probes.sum { it.rejectedTasks } == 1
+            probes.sum { it.completedTasks } == 2
+            probes.last().count == 0
+    }
+
+    def "should subtract tasks removed by remove and purge"()
+    {
+        given:
+            StatsThreadPoolExecutor executor = StatsExecutors.newFixedThreadPool(1, queueConfiguration)
+            CountDownLatch release = new CountDownLatch(1)
+            Runnable removedTask = {}
+        when:
+            executor.execute { release.await() }
+            executor.execute(removedTask)
+            Future<?> cancelled = executor.submit({} as Runnable)
+            executor.execute {}
+            cancelled.cancel(false)
+            executor.remove(removedTask)
+            executor.purge()
+            release.countDown()
+            List<ExecutorProbe> probes = shutdown(executor)
+        then:
+            probes.collect { it.count }.max() == 3
+            probes.sum { it.completedTasks } == 2
+            probes.last().count == 0
+    }
+
+    def "should subtract tasks returned by shutdownNow"()
+    {
+        given:
+            StatsThreadPoolExecutor executor = StatsExecutors.newFixedThreadPool(1, queueConfiguration)
+            CountDownLatch started = new CountDownLatch(1)
+        when:
+            executor.execute { started.countDown(); new CountDownLatch(1).await() }
+            started.await()
+            (1..3).forEach { executor.execute {} }
+            List<Runnable> notStarted = executor.shutdownNow()
+            executor.awaitTermination(5, TimeUnit.SECONDS)
+            probeTailer.read()
+            List<ExecutorProbe> probes = tailer.probes.collect { it as ExecutorProbe }
+        then:
+            notStarted.size() == 3
+            probes.collect { it.count }.max() == 3
+            probes.last().count == 0
+    }
+
+    def "should subtract task discarded by DiscardOldestPolicy and count retried one once"()
+    {
+        given:
+            StatsThreadPoolExecutor executor = new StatsThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<Runnable>(1), Executors.defaultThreadFactory(),
+                    new ThreadPoolExecutor.DiscardOldestPolicy(), queueConfiguration)
+            CountDownLatch release = new CountDownLatch(1)
+        when:
+            executor.execute { release.await() }
+            executor.execute {}
+            executor.execute {}
+            release.countDown()
+            List<ExecutorProbe> probes = shutdown(executor)
+        then:
+            probes.collect { it.count }.max() == 1
+            probes.sum { it.rejectedTasks } == 1
+            probes.sum { it.completedTasks } == 2
+            probes.last().count == 0
+    }
+
+    def "should subtract task run by CallerRunsPolicy"()
+    {
+        given:
+            StatsThreadPoolExecutor executor = new StatsThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<Runnable>(1), Executors.defaultThreadFactory(),
+                    new ThreadPoolExecutor.CallerRunsPolicy(), queueConfiguration)
+            CountDownLatch release = new CountDownLatch(1)
+            boolean ranByCaller = false
+        when:
+            executor.execute { release.await() }
+            executor.execute {}
+            executor.execute { ranByCaller = true }
+            release.countDown()
+            List<ExecutorProbe> probes = shutdown(executor)
+        then:
+            ranByCaller
+            probes.collect { it.count }.max() == 1
+            probes.sum { it.rejectedTasks } == 1
+            probes.sum { it.completedTasks } == 2
+            probes.last().count == 0
+    }
+
+    def "should subtract task rejected by shutdown concurrent with submission once"()
+    {
+        given:
+            StatsThreadPoolExecutor executor = StatsExecutors.newFixedThreadPool(2, queueConfiguration)
+            CountDownLatch submitting = new CountDownLatch(4)
+            List<Thread> submitters = (1..4).collect {
+                Thread.start {
+                    submitting.countDown()
+                    try
+                    {
+                        while (true)
+                            executor.execute {}
+                    } catch (RejectedExecutionException ignored)
+                    {
+                    }
+                }
+            }
+        when:
+            submitting.await()
+            Thread.sleep(10)
+            List<ExecutorProbe> probes = shutdown(executor)
+            submitters.each { it.join() }
+        then:
+            probes.every { it.count >= 0 }
+            probes.last().count == 0
+    }
+
+    def "should expose not decorated rejected execution handler"()
+    {
+        given:
+            RejectedExecutionHandler handler = new ThreadPoolExecutor.DiscardPolicy()
+            StatsThreadPoolExecutor executor = new StatsThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<Runnable>(1), queueConfiguration)
+        when:
+            executor.setRejectedExecutionHandler(handler)
+        then:
+            executor.getRejectedExecutionHandler() == handler
+        cleanup:
+            shutdown(executor)
+    }
+
+    def "should close probes file when executor terminates"()
+    {
+        given:
+            StatsThreadPoolExecutor executor = StatsExecutors.newCachedThreadPool(queueConfiguration)
+        when:
+            executor.execute {}
+            shutdown(executor)
+        then:
+            executor.isStatsClosed()
+    }
+
+    private List<ExecutorProbe> shutdown(StatsThreadPoolExecutor executor)
+    {
+        executor.shutdown()
+        executor.awaitTermination(5, TimeUnit.SECONDS)
+        probeTailer.read()
+        return tailer.probes.collect { it as ExecutorProbe }
+    }
+}
@@ -0,0 +1,134 @@
+package io.github.pedegie.stats.api.queue
+
+import spock.lang.Specification
+
+class TimingWheelTest extends Specification
+{
+    private static final long START = 1_600_000_000_123L
+
+    def "should expire timeout exactly at its deadline"()
+    {
+        given:
+            TimingWheel wheel = new TimingWheel(START)
+            TimingWheel.Timeout timeout = timeout(START + delay)
+            wheel.add(timeout)
+        expect:
+            wheel.nextTick() <= START + delay
+            wheel.advance(START + delay - 1) == null
+            expired(wheel.advance(START + delay)) == [timeout]
+            wheel.size() == 0
+            wheel.nextTick() == Long.MAX_VALUE
+        where:
+            delay << [1, 63, 64, 65, 4095, 4096, 262_143, 262_144, 16_777_215, 16_777_216, 50_000_000]
+    }
+
+    def "should expire timeouts with deadline in the past on next advance"()
+    {
+        given:
+            TimingWheel wheel = new TimingWheel(START)
+            wheel.advance(START + 1000)
+            TimingWheel.Timeout timeout = timeout(START)
+        when:
+            wheel.add(timeout)
+        then:
+            expired(wheel.advance(START + 1001)) == [timeout]
+    }
+
+    def "should keep timeout with max deadline"()
+    {
+        given:
+            TimingWheel wheel = new TimingWheel(START)
+            wheel.add(timeout(Long.MAX_VALUE))
+        expect:
+            wheel.advance(START + 100_000_000) == null
+            wheel.size() == 1
+    }
+
+    def "should expire exactly timeouts whose deadline passed"()
+    {
+        given:
+            Random random = new Random(7)
+            TimingWheel wheel = new TimingWheel(START)
+            List<TimingWheel.Timeout> pending = []
+            long now = START
+            boolean correct = true
+        when:
+            for (int step = 0; step < 2000; step++)
+            {
+                for (int i = 0; i < 5; i++)
+                {
+                    TimingWheel.Timeout timeout = timeout(now + (long) (Math.pow(2, random.nextInt(27)) * random.nextDouble()))
+                    pending.add(timeout)
+                    wheel.add(timeout)
+                }
+                now += 1 + (long) (Math.pow(2, random.nextInt(22)) * random.nextDouble())
+                Set<TimingWheel.Timeout> expected = pending.findAll { it.deadline <= now } as Set
+                pending.removeAll(expected)
+                correct &= expired(wheel.advance(now)) as Set == expected
+                correct &= wheel.size() == pending.size()
+            }
+        then:
+            correct
+    }
+
+    def "should not expire removed timeouts"()
+    {
+        given:
+            Random random = new Random(11)
+            TimingWheel wheel = new TimingWheel(START)
+            List<TimingWheel.Timeout> pending = []
+            long now = START
+            boolean correct = true
+        when:
+            for (int step = 0; step < 2000; step++)
+            {
+                for (int i = 0; i < 5; i++)
+                {
+                    TimingWheel.Timeout timeout = timeout(now + (long) (Math.pow(2, random.nextInt(27)) * random.nextDouble()))
+                    pending.add(timeout)
+                    wheel.add(timeout)
+                }
+                for (int i = 0; i < 3 && !pending.isEmpty(); i++)
+                {
+                    correct &= wheel.remove(pending.remove(random.nextInt(pending.size())))
+                }
+                now += 1 + (long) (Math.pow(2, random.nextInt(22)) * random.nextDouble())
+                Set<TimingWheel.Timeout> expected = pending.findAll { it.deadline <= now } as Set
+                pending.removeAll(expected)
+                correct &= expired(wheel.advance(now)) as Set == expected
+                correct &= wheel.size() == pending.size()
+            }
+        then:
+            correct
+    }
+
+    def "should not remove timeout which already expired"()
+    {
+        given:
+            TimingWheel wheel = new TimingWheel(START)
+            TimingWheel.Timeout timeout = timeout(START + 10)
+            wheel.add(timeout)
+            wheel.advance(START + 10)
+        expect:
+            !wheel.remove(timeout)
+            wheel.size() == 0
+    }
+
+    private static TimingWheel.Timeout timeout(long deadline)
+    {
+        TimingWheel.Timeout timeout = new TimingWheel.Timeout()
+        timeout.deadline = deadline
+        return timeout
+    }
+
+    private static List<TimingWheel.Timeout> expired(TimingWheel.Timeout expired)
+    {
+        List<TimingWheel.Timeout> timeouts = []
+        while (expired != null)
+        {
+            timeouts.add(expired)
+            expired = expired.next
+        }
+        return timeouts
+    }
+}
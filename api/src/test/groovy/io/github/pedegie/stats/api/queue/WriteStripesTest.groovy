@@ -0,0 +1,154 @@
+package io.github.pedegie.stats.api.queue
+
+import io.github.pedegie.stats.api.tailer.ProbeTailer
+import io.github.pedegie.stats.api.tailer.TailerFactory
+import net.openhft.chronicle.core.OS
+import spock.lang.Specification
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.ThreadLocalRandom
+
+class WriteStripesTest extends Specification
+{
+    def setup()
+    {
+        StatsQueue.stopFlusher()
+        FileUtils.cleanDirectory(TestQueueUtil.PATH.getParent())
+    }
+
+    def cleanupSpec()
+    {
+        FileUtils.cleanDirectory(TestQueueUtil.PATH.getParent())
+    }
+
+    def "should throw an exception when write stripes is not positive power of 2"()
+    {
+        given:
+            QueueConfiguration queueConfiguration = QueueConfiguration.builder()
+                    .path(TestQueueUtil.PATH)
+                    .writeStripes(writeStripes)
+                    .build()
+        when:
+            TestQueueUtil.createQueue(queueConfiguration)
+        then:
+            thrown(IllegalArgumentException)
+        where:
+            writeStripes << [-2, 0, 3, 12]
+    }
+
+    def "should throw an exception when striping non synchronized queue"()
+    {
+        given:
+            QueueConfiguration queueConfiguration = QueueConfiguration.builder()
+                    .path(TestQueueUtil.PATH)
+                    .writeStripes(4)
+                    .disableSynchronization(true)
+                    .build()
+        when:
+            TestQueueUtil.createQueue(queueConfiguration)
+        then:
+            thrown(IllegalArgumentException)
+    }
+
+    def "should merge probes of all stripes ordered by timestamp"()
+    {
+        given:
+            int threads = 4
+            int elementsPerThread = 500
+            QueueConfiguration queueConfiguration = QueueConfiguration.builder()
+                    .path(TestQueueUtil.PATH)
+                    .mmapSize(OS.pageSize())
+                    .batching(new Batching(threads * elementsPerThread))
+                    .writeThreshold(WriteThreshold.flushOnEachWrite())
+                    .writeStripes(threads)
+                    .build()
+            StatsQueue<Integer> queue = TestQueueUtil.createQueue(queueConfiguration)
+            CountDownLatch start = new CountDownLatch(1)
+            List<Thread> writers = (1..threads).collect {
+                new Thread({
+                    start.await()
+                    elementsPerThread.times { queue.add(it) }
+                })
+            }
+            TestTailer tailer = new TestTailer()
+            ProbeTailer probeTailer = TailerFactory.tailerFor(TestQueueUtil.PATH, tailer)
+        when:
+            writers.each { it.start() }
+            start.countDown()
+            writers.each { it.join() }
+            queue.close()
+            probeTailer.read()
+        then:
+            tailer.probes.size() > elementsPerThread
+            tailer.probes.size() <= threads * elementsPerThread + 1 // +1 during close flush
+            tailer.probes.collect { it.timestamp } == tailer.probes.collect { it.timestamp }.sort(false)
+        cleanup:
+            probeTailer.close()
+    }
+
+    def "should read range of probes written out of order by many stripes without losing any"()
+    {
+        given: "timestamps of the last second in random order and batches drained inline between merged ones"
+            int threads = 4
+            long start = System.currentTimeMillis() - 10_000
+            QueueConfiguration queueConfiguration = QueueConfiguration.builder()
+                    .path(TestQueueUtil.PATH)
+                    .mmapSize(OS.pageSize())
+                    .batching(new Batching(8))
+                    .writeThreshold(WriteThreshold.flushOnEachWrite())
+                    .writeStripes(threads)
+                    .clock({ start + ThreadLocalRandom.current().nextInt(1000) } as Clock)
+                    .build()
+            StatsQueue<Integer> queue = TestQueueUtil.createQueue(queueConfiguration)
+            CountDownLatch started = new CountDownLatch(1)
+            List<Thread> writers = (1..threads).collect {
+                new Thread({
+                    started.await()
+                    500.times { queue.add(it) }
+                })
+            }
+            writers.each { it.start() }
+            started.countDown()
+            writers.each { it.join() }
+            queue.close()
+            TestTailer expected = new TestTailer()
+            TailerFactory.tailerFor(TestQueueUtil.PATH, expected).withCloseable { it.readFromStart() }
+            TestTailer tailer = new TestTailer()
+            ProbeTailer probeTailer = TailerFactory.tailerFor(TestQueueUtil.PATH, tailer)
+        when:
+            probeTailer.readRange(start + 250, start + 750)
+            List<Long> range = tailer.probes*.timestamp
+            tailer.probes.clear()
+            probeTailer.read()
+        then: "older probes of other stripes written after batch reaching end of range are left for next read"
+            range.every { it >= start + 250 && it < start + 750 }
+            range + tailer.probes*.timestamp.findAll { it >= start + 250 && it < start + 750 } ==
+                    expected.probes*.timestamp.findAll { it >= start + 250 && it < start + 750 }
+        cleanup:
+            probeTailer.close()
+    }
+
+    def "should keep every probe of single stripe writers"()
+    {
+        given:
+            QueueConfiguration queueConfiguration = QueueConfiguration.builder()
+                    .path(TestQueueUtil.PATH)
+                    .mmapSize(OS.pageSize())
+                    .batching(new Batching(10))
+                    .writeThreshold(WriteThreshold.flushOnEachWrite())
+                    .writeStripes(8)
+                    .build()
+            StatsQueue<Integer> queue = TestQueueUtil.createQueue(queueConfiguration)
+            TestTailer tailer = new TestTailer()
+            ProbeTailer probeTailer = TailerFactory.tailerFor(TestQueueUtil.PATH, tailer)
+        when:
+            95.times { queue.add(it) }
+            queue.close()
+            probeTailer.read()
+        then:
+            tailer.probes.size() == 96 // +1 during close flush
+            tailer.probes.last().count == 95
+        cleanup:
+            probeTailer.close()
+    }
+}
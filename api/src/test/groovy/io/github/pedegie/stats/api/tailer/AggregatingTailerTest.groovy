@@ -0,0 +1,151 @@
+package io.github.pedegie.stats.api.tailer
+
+import io.github.pedegie.stats.api.queue.FileUtils
+import io.github.pedegie.stats.api.queue.StatsQueue
+import io.github.pedegie.stats.api.queue.TestQueueUtil
+import io.github.pedegie.stats.api.queue.TestTailer
+import io.github.pedegie.stats.api.queue.probe.ProbeHolder
+import spock.lang.Specification
+
+import static io.github.pedegie.stats.api.tailer.ProbeTailerTest.writeElementsEvery10MillisTo
+
+class AggregatingTailerTest extends Specification
+{
+    def setup()
+    {
+        StatsQueue.stopFlusher()
+        FileUtils.cleanDirectory(TestQueueUtil.PATH.getParent())
+    }
+
+    def cleanupSpec()
+    {
+        FileUtils.cleanDirectory(TestQueueUtil.PATH.getParent())
+    }
+
+    def "should publish window once probe of later window is read"()
+    {
+        given:
+            TestWindowSink sink = new TestWindowSink()
+            AggregatingTailer tailer = new AggregatingTailer(1000, sink)
+        when:
+            probe(tailer, 1000, 5)
+            probe(tailer, 1200, 1)
+            probe(tailer, 1999, 3)
+        then:
+            sink.windows.isEmpty()
+        when:
+            probe(tailer, 3500, 7)
+        then:
+            sink.windows.size() == 1
+            with(sink.windows[0]) {
+                start == 1000
+                end == 2000
+                probes == 3
+                min == 1
+                max == 5
+                mean == 3.0d
+                last == 3
+            }
+        when:
+            tailer.onClose()
+        then:
+            sink.windows.size() == 2
+            sink.windows[1].start == 3000
+            sink.windows[1].last == 7
+            sink.closed
+    }
+
+    def "should close window on advance"()
+    {
+        given:
+            TestWindowSink sink = new TestWindowSink()
+            AggregatingTailer tailer = new AggregatingTailer(1000, sink)
+            probe(tailer, 1500, 5)
+        when:
+            tailer.advanceTo(1999)
+        then:
+            sink.windows.isEmpty()
+        when:
+            tailer.advanceTo(2000)
+            tailer.advanceTo(5000)
+        then:
+            sink.windows*.start == [1000L]
+    }
+
+    def "should approximate percentiles within 1/32 of exact value"()
+    {
+        given:
+            TestWindowSink sink = new TestWindowSink(quantiles: [0.5d, 0.9d, 0.99d, 1.0d])
+            AggregatingTailer tailer = new AggregatingTailer(1000, sink)
+            List<Integer> counts = (1..10_000).collect { (it * 7919) % 10_000 + 1 }
+        when:
+            counts.each { probe(tailer, 100, it) }
+            tailer.onClose()
+        then:
+            List<Integer> sorted = counts.sort(false)
+            [0.5d, 0.9d, 0.99d, 1.0d].eachWithIndex { double quantile, int i ->
+                int exact = sorted[(int) Math.ceil(quantile * sorted.size()) - 1]
+                assert Math.abs(sink.percentiles[0][i] - exact) <= exact / 32
+            }
+            sink.percentiles[0][3] == 10_000
+    }
+
+    def "should aggregate probes read by ProbeTailer"()
+    {
+        given:
+            long start = writeElementsEvery10MillisTo(50, TestQueueUtil.PATH, 4)
+            TestTailer expected = new TestTailer()
+            ProbeTailer.from(TailerConfiguration.builder().tailer(expected).path(TestQueueUtil.PATH).build()).withCloseable { it.read() }
+            TestWindowSink sink = new TestWindowSink()
+            ProbeTailer probeTailer = ProbeTailer.from(TailerConfiguration.builder()
+                    .batchTailer(new AggregatingTailer(100, sink))
+                    .path(TestQueueUtil.PATH)
+                    .build())
+        when:
+            probeTailer.readFromStart()
+            probeTailer.close()
+        then:
+            sink.windows*.probes.sum() == expected.probes.size()
+            sink.windows*.max == expected.probes.groupBy { it.timestamp.intdiv(100) }.values().collect { it*.count.max() }
+            sink.windows.every { it.end - it.start == 100 && it.start % 100 == 0 }
+            sink.windows[0].start <= start
+    }
+
+    def "should throw an exception if window is not positive"()
+    {
+        when:
+            new AggregatingTailer(0, {})
+        then:
+            thrown(IllegalArgumentException)
+    }
+
+    private static void probe(AggregatingTailer tailer, long timestamp, int count)
+    {
+        ProbeHolder probe = new ProbeHolder()
+        probe.setTimestamp(timestamp)
+        probe.setCount(count)
+        tailer.onProbe(probe)
+    }
+
+    private static class TestWindowSink implements WindowSink
+    {
+        List<Double> quantiles = []
+        List<Map> windows = []
+        List<List<Integer>> percentiles = []
+        boolean closed
+
+        @Override
+        void onWindow(ProbeWindow window)
+        {
+            windows.add([start: window.start(), end: window.end(), probes: window.probes(), min: window.min(),
+                          max : window.max(), mean: window.mean(), last: window.last()])
+            percentiles.add(quantiles.collect { window.percentile(it) })
+        }
+
+        @Override
+        void onClose()
+        {
+            closed = true
+        }
+    }
+}
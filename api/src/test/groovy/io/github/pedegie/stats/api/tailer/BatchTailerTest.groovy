@@ -0,0 +1,224 @@
+package io.github.pedegie.stats.api.tailer
+
+import io.github.pedegie.stats.api.queue.Batching
+import io.github.pedegie.stats.api.queue.FileUtils
+import io.github.pedegie.stats.api.queue.QueueConfiguration
+import io.github.pedegie.stats.api.queue.StatsQueue
+import io.github.pedegie.stats.api.queue.TestExpectedException
+import io.github.pedegie.stats.api.queue.TestQueueUtil
+import io.github.pedegie.stats.api.queue.TestTailer
+import io.github.pedegie.stats.api.queue.probe.Probe
+import io.github.pedegie.stats.api.queue.probe.ProbeAccess
+import net.openhft.chronicle.core.OS
+import spock.lang.Specification
+
+import static io.github.pedegie.stats.api.tailer.ProbeTailerTest.writeElementsTo
+
+class BatchTailerTest extends Specification
+{
+    def setup()
+    {
+        StatsQueue.stopFlusher()
+        FileUtils.cleanDirectory(TestQueueUtil.PATH.getParent())
+    }
+
+    def cleanupSpec()
+    {
+        FileUtils.cleanDirectory(TestQueueUtil.PATH.getParent())
+    }
+
+    def "should read the same probes as per-probe tailer"()
+    {
+        given:
+            writeElementsTo(20, TestQueueUtil.PATH, 3)
+            TestTailer tailer = new TestTailer()
+            ProbeTailer.from(configuration().tailer(tailer).build()).withCloseable { it.read() }
+            TestBatchTailer batchTailer = new TestBatchTailer()
+            ProbeTailer probeTailer = ProbeTailer.from(configuration().batchTailer(batchTailer).build())
+        when:
+            probeTailer.readFromStart()
+        then:
+            batchTailer.timestamps == tailer.probes*.timestamp
+            batchTailer.counts == tailer.probes*.count
+            batchTailer.batchSizes.every { it <= 3 }
+        cleanup:
+            probeTailer.close()
+    }
+
+    def "should read probes of compressed batches"()
+    {
+        given:
+            StatsQueue<Integer> queue = TestQueueUtil.createQueue(QueueConfiguration.builder()
+                    .path(TestQueueUtil.PATH)
+                    .mmapSize(OS.pageSize())
+                    .batching(new Batching(4))
+                    .probeAccess(ProbeAccess.compressedAccess())
+                    .build())
+            (1..9).forEach({ queue.add(it) })
+            queue.close()
+            TestTailer tailer = new TestTailer()
+            ProbeTailer.from(configuration().tailer(tailer).probeAccess(ProbeAccess.compressedAccess()).build()).withCloseable { it.read() }
+            TestBatchTailer batchTailer = new TestBatchTailer()
+            ProbeTailer probeTailer = ProbeTailer.from(configuration().batchTailer(batchTailer).probeAccess(ProbeAccess.compressedAccess()).build())
+        when:
+            probeTailer.readFromStart()
+        then:
+            batchTailer.timestamps.size() == 10
+            batchTailer.timestamps == tailer.probes*.timestamp
+            batchTailer.counts == tailer.probes*.count
+        cleanup:
+            probeTailer.close()
+    }
+
+    def "should pass at most requested amount of probes"()
+    {
+        given:
+            writeElementsTo(10, TestQueueUtil.PATH, 4)
+            TestBatchTailer batchTailer = new TestBatchTailer()
+            ProbeTailer probeTailer = ProbeTailer.from(configuration().batchTailer(batchTailer).build())
+        when:
+            boolean readAll = probeTailer.read(6)
+        then:
+            readAll
+            batchTailer.batchSizes == [4, 2]
+        when:
+            readAll = probeTailer.read(6)
+        then:
+            !readAll
+            batchTailer.batchSizes == [4, 2, 2, 2]
+            probeTailer.probes() == 0
+        cleanup:
+            probeTailer.close()
+    }
+
+    def "should pass the same batch again if batch tailer throws"()
+    {
+        given:
+            writeElementsTo(10, TestQueueUtil.PATH, 4)
+            TestBatchTailer batchTailer = new TestBatchTailer(throwOn: 2)
+            ProbeTailer probeTailer = ProbeTailer.from(configuration().batchTailer(batchTailer).build())
+        when:
+            probeTailer.read()
+        then:
+            batchTailer.batchSizes == [4, 4]
+        when:
+            probeTailer.read()
+        then:
+            batchTailer.batchSizes == [4, 4, 4, 2]
+            batchTailer.timestamps.size() == 10
+        cleanup:
+            probeTailer.close()
+    }
+
+    def "should adapt per-probe tailer"()
+    {
+        given:
+            writeElementsTo(10, TestQueueUtil.PATH)
+            TestTailer expected = new TestTailer()
+            ProbeTailer.from(configuration().tailer(expected).build()).withCloseable { it.read() }
+            TestTailer tailer = new TestTailer()
+            ProbeTailer probeTailer = ProbeTailer.from(configuration().batchTailer(BatchTailer.of(tailer)).build())
+        when:
+            probeTailer.readFromStart()
+        then:
+            tailer.probes*.timestamp == expected.probes*.timestamp
+            tailer.probes*.count == expected.probes*.count
+        cleanup:
+            probeTailer.close()
+    }
+
+    def "should not pass probes again to adapted per-probe tailer after it throws"()
+    {
+        given:
+            writeElementsTo(10, TestQueueUtil.PATH, 4)
+            TestTailer expected = new TestTailer()
+            ProbeTailer.from(configuration().tailer(expected).build()).withCloseable { it.read() }
+            TestTailer tailer = new ThrowingTestTailer(throwOn: 6)
+            ProbeTailer probeTailer = ProbeTailer.from(configuration().batchTailer(BatchTailer.of(tailer)).build())
+        when:
+            probeTailer.read()
+        then:
+            tailer.probes.size() == 5
+        when:
+            probeTailer.read()
+        then:
+            tailer.probes*.timestamp == expected.probes*.timestamp
+            tailer.probes*.count == expected.probes*.count
+        cleanup:
+            probeTailer.close()
+    }
+
+    def "should bulk copy probes into arrays"()
+    {
+        given:
+            writeElementsTo(5, TestQueueUtil.PATH, 10)
+            long[] timestamps = new long[7]
+            int[] counts = new int[7]
+            ProbeTailer probeTailer = ProbeTailer.from(configuration().batchTailer({ ProbeBatch batch ->
+                batch.timestamps(timestamps, 2)
+                batch.counts(counts, 2)
+            }).build())
+        when:
+            probeTailer.read()
+        then:
+            timestamps[0] == 0 && timestamps[1] == 0
+            timestamps[2..6].every { it > 0 }
+            counts[2..6] == [1, 2, 3, 4, 4]
+        cleanup:
+            probeTailer.close()
+    }
+
+    def "should throw an exception if not exactly one tailer is configured"()
+    {
+        when:
+            ProbeTailer.from(configuration().tailer(tailer).batchTailer(batchTailer).build())
+        then:
+            thrown(IllegalArgumentException)
+        where:
+            tailer           | batchTailer
+            null             | null
+            new TestTailer() | new TestBatchTailer()
+    }
+
+    private static TailerConfiguration.TailerConfigurationBuilder configuration()
+    {
+        return TailerConfiguration.builder().path(TestQueueUtil.PATH)
+    }
+
+    private static class ThrowingTestTailer extends TestTailer
+    {
+        int throwOn
+        int calls
+
+        @Override
+        void onProbe(Probe probe)
+        {
+            if (++calls == throwOn)
+                throw new TestExpectedException()
+
+            super.onProbe(probe)
+        }
+    }
+
+    private static class TestBatchTailer implements BatchTailer
+    {
+        int throwOn
+        List<Integer> batchSizes = []
+        List<Long> timestamps = []
+        List<Integer> counts = []
+
+        @Override
+        void onBatch(ProbeBatch batch)
+        {
+            batchSizes.add(batch.size())
+            if (batchSizes.size() == throwOn)
+                throw new TestExpectedException()
+
+            for (int i = 0; i < batch.size(); i++)
+            {
+                timestamps.add(batch.timestamp(i))
+                counts.add(batch.count(i))
+            }
+        }
+    }
+}
@@ -10,8 +10,10 @@ import net.openhft.chronicle.bytes.BytesIn
 import net.openhft.chronicle.bytes.BytesOut
 import net.openhft.chronicle.core.OS
 import io.github.pedegie.stats.api.queue.Batching
+import io.github.pedegie.stats.api.queue.Clock
 import io.github.pedegie.stats.api.queue.QueueConfiguration
 import io.github.pedegie.stats.api.queue.TestExpectedException
+import io.github.pedegie.stats.api.queue.WriteThreshold
 import io.github.pedegie.stats.api.queue.probe.ProbeHolder
 import spock.lang.Specification
 
@@ -483,6 +485,93 @@ class ProbeTailerTest extends Specification
             probeTailer.close()
     }
 
+    def "should resume partially read batch with and without zero copy"()
+    {
+        given:
+            writeElementsTo(20, TestQueueUtil.PATH, 7)
+            TestTailer expected = new TestTailer()
+            ProbeTailer.from(TailerConfiguration.builder().tailer(expected).path(TestQueueUtil.PATH).build()).withCloseable { it.read() }
+            TestTailer tailer = new TestTailer()
+            ProbeTailer probeTailer = ProbeTailer.from(TailerConfiguration.builder()
+                    .tailer(tailer)
+                    .zeroCopy(zeroCopy)
+                    .path(TestQueueUtil.PATH)
+                    .build())
+        when:
+            probeTailer.readFromStart()
+            tailer.probes.clear()
+            probeTailer.close()
+            probeTailer = ProbeTailer.from(TailerConfiguration.builder()
+                    .tailer(tailer)
+                    .zeroCopy(zeroCopy)
+                    .path(TestQueueUtil.PATH)
+                    .build())
+            writeElementsTo(20, TestQueueUtil.PATH, 7)
+            List<Long> probes = []
+            while (probeTailer.read(3))
+            {
+                probes.add(probeTailer.probes())
+            }
+        then:
+            tailer.probes.size() == 20
+            tailer.probes*.count == expected.probes*.count
+            probes == [17L, 14L, 11L, 8L, 5L, 2L]
+        cleanup:
+            probeTailer.close()
+        where:
+            zeroCopy << [true, false]
+    }
+
+    def "should seek to first probe not older than given timestamp"()
+    {
+        given:
+            long start = writeElementsEvery10MillisTo(20, TestQueueUtil.PATH, 4)
+            TestTailer expected = new TestTailer()
+            ProbeTailer.from(TailerConfiguration.builder().tailer(expected).path(TestQueueUtil.PATH).build()).withCloseable { it.read() }
+            TestTailer tailer = new TestTailer()
+            ProbeTailer probeTailer = ProbeTailer.from(TailerConfiguration.builder()
+                    .tailer(tailer)
+                    .path(TestQueueUtil.PATH)
+                    .build())
+        when:
+            probeTailer.seek(start + offset)
+            probeTailer.read()
+        then:
+            tailer.probes*.timestamp == expected.probes*.timestamp.findAll { it >= start + offset }
+        cleanup:
+            probeTailer.close()
+        where:
+            offset << [-10_000L, 0L, 55L, 60L, 185L, 190L, 10_000L]
+    }
+
+    def "should read range of probes and continue reading from the first probe past range"()
+    {
+        given:
+            long start = writeElementsEvery10MillisTo(20, TestQueueUtil.PATH, 4)
+            TestTailer expected = new TestTailer()
+            ProbeTailer.from(TailerConfiguration.builder().tailer(expected).path(TestQueueUtil.PATH).build()).withCloseable { it.read() }
+            List<Long> timestamps = expected.probes*.timestamp
+            TestTailer tailer = new TestTailer()
+            ProbeTailer probeTailer = ProbeTailer.from(TailerConfiguration.builder()
+                    .tailer(tailer)
+                    .zeroCopy(zeroCopy)
+                    .path(TestQueueUtil.PATH)
+                    .build())
+        when:
+            probeTailer.readRange(start + 55, start + 125)
+        then:
+            tailer.probes*.timestamp == timestamps.findAll { it >= start + 55 && it < start + 125 }
+        when:
+            tailer.probes.clear()
+            probeTailer.read()
+        then:
+            tailer.probes*.timestamp == timestamps.findAll { it >= start + 125 }
+        cleanup:
+            probeTailer.close()
+        where:
+            zeroCopy << [true, false]
+    }
+
     def "closing probe tailer should be idempotent"()
     {
         given:
@@ -519,6 +608,29 @@ class ProbeTailerTest extends Specification
         queue.close()
     }
 
+    /**
+     * Timestamps start a second in the past, so every batch is written after its probes like with real clock
+     *
+     * @return timestamp of first probe
+     */
+    static long writeElementsEvery10MillisTo(int elements, Path path, int batchSize)
+    {
+        long start = System.currentTimeMillis() - 1000
+        long writes = 0
+        QueueConfiguration queueConfiguration = QueueConfiguration.builder()
+                .path(path)
+                .batching(new Batching(batchSize))
+                .writeThreshold(WriteThreshold.of(0, 1))
+                .clock({ start + 10 * writes++ } as Clock)
+                .mmapSize(OS.pageSize())
+                .build()
+        StatsQueue<Integer> queue = TestQueueUtil.createQueue(queueConfiguration)
+
+        (2..elements).forEach({ queue.add(it) })
+        queue.close()
+        return start
+    }
+
     private static class ThrowOnReadProbeAccess implements ProbeAccess
     {
         private final int throwOn
@@ -1,12 +1,18 @@
 package io.github.pedegie.stats.jmh;
 
+import io.github.pedegie.stats.api.queue.Batching;
 import io.github.pedegie.stats.api.queue.BusyWaiter;
+import io.github.pedegie.stats.api.queue.QueueConfiguration;
+import io.github.pedegie.stats.api.queue.StatsQueue;
+import io.github.pedegie.stats.api.queue.WriteThreshold;
 import org.jetbrains.annotations.NotNull;
 
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Queue;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
@@ -73,6 +79,66 @@ public class BenchmarkUtils
         };
     }
 
+    /**
+     * Every thread puts, merges and then removes its own range of keys, so map grows and shrinks all the time
+     */
+    public static Supplier<Void> runBenchmarkForMap(Map<Integer, Integer> map, int threads, ExecutorService pool)
+    {
+        int keysPerThread = 50000;
+        return () ->
+        {
+            List<CompletableFuture<?>> futures = new ArrayList<>(threads);
+            IntStream.range(0, threads).forEach(index ->
+                    futures.add(CompletableFuture.supplyAsync(() ->
+                    {
+                        int firstKey = index * keysPerThread;
+                        for (int key = firstKey; key < firstKey + keysPerThread; key++)
+                        {
+                            map.put(key, key);
+                            map.merge(key, 1, Integer::sum);
+                        }
+                        for (int key = firstKey; key < firstKey + keysPerThread; key++)
+                        {
+                            map.remove(key);
+                        }
+                        return null;
+                    }, pool)));
+
+            try
+            {
+                CompletableFuture.allOf(futures.toArray(new CompletableFuture[]{})).get(60, TimeUnit.SECONDS);
+            } catch (Exception e)
+            {
+                e.printStackTrace();
+            }
+            return null;
+        };
+    }
+
+    /**
+     * Size of queue changes by one on each write, so every add/poll writes probe. Closing queue writes the last one
+     */
+    public static void writeProbes(Path path, int probes, int batchSize)
+    {
+        var queueConfiguration = QueueConfiguration.builder()
+                .path(path)
+                .mmapSize(Integer.MAX_VALUE)
+                .preTouch(false)
+                .writeThreshold(WriteThreshold.of(0, 1))
+                .batching(new Batching(batchSize, TimeUnit.MINUTES.toMillis(10)))
+                .build();
+
+        StatsQueue<Integer> queue = StatsQueue.queue(new LinkedList<>(), queueConfiguration);
+        for (int i = 0; i < probes - 1; i++)
+        {
+            if (i % 1000 < 500)
+                queue.add(i);
+            else
+                queue.poll();
+        }
+        queue.close();
+    }
+
     private static Runnable writer(Queue<Integer> queue, int messagesToSendPerThread)
     {
         return () ->
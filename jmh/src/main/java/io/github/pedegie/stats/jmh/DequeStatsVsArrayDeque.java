@@ -0,0 +1,125 @@
+package io.github.pedegie.stats.jmh;
+
+import io.github.pedegie.stats.api.queue.Batching;
+import io.github.pedegie.stats.api.queue.FileUtils;
+import io.github.pedegie.stats.api.queue.QueueConfiguration;
+import io.github.pedegie.stats.api.queue.StatsDeque;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Timeout;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static io.github.pedegie.stats.jmh.BenchmarkUtils.randomPath;
+
+/**
+ * Work stack used by single thread (e.g. actor), so synchronization is disabled
+ */
+public class DequeStatsVsArrayDeque
+{
+    @Fork(value = 1)
+    @Warmup(iterations = 5, time = 5)
+    @Measurement(iterations = 4, time = 5)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @BenchmarkMode({Mode.AverageTime})
+    @State(Scope.Benchmark)
+    @Timeout(time = 120)
+    public static class TestBenchmark
+    {
+        @Benchmark
+        public void StatsDequeArrayDeque(DequeConfiguration dequeConfiguration)
+        {
+            dequeConfiguration.statsDequeArrayDequeBenchmark.get();
+        }
+
+        @Benchmark
+        public void ArrayDeque(DequeConfiguration dequeConfiguration)
+        {
+            dequeConfiguration.arrayDequeBenchmark.get();
+        }
+
+        @State(Scope.Benchmark)
+        public static class DequeConfiguration
+        {
+            Supplier<Void> statsDequeArrayDequeBenchmark;
+            Supplier<Void> arrayDequeBenchmark;
+
+            StatsDeque<Integer> statsDeque;
+
+            @Setup(Level.Trial)
+            public void setUp()
+            {
+                FileUtils.cleanDirectory(BenchmarkUtils.testQueuePath.getParent());
+                var queueConfiguration = QueueConfiguration.builder()
+                        .path(randomPath())
+                        .preTouch(true)
+                        .mmapSize(4L << 30)
+                        .batching(new Batching(20000, Long.MAX_VALUE))
+                        .disableSynchronization(true)
+                        .build();
+
+                statsDeque = StatsDeque.deque(new ArrayDeque<>(), queueConfiguration);
+                statsDequeArrayDequeBenchmark = benchmarkFor(statsDeque);
+                arrayDequeBenchmark = benchmarkFor(new ArrayDeque<>());
+            }
+
+            @TearDown(Level.Trial)
+            public void teardownTrial()
+            {
+                statsDeque.close();
+            }
+
+            private Supplier<Void> benchmarkFor(Deque<Integer> deque)
+            {
+                return () ->
+                {
+                    for (int i = 0; i < 5_000; i++)
+                        deque.push(i);
+
+                    for (int i = 0; i < 2_500; i++)
+                        deque.pop();
+
+                    Iterator<Integer> descending = deque.descendingIterator();
+                    while (descending.hasNext())
+                    {
+                        if (descending.next() % 2 == 0)
+                            descending.remove();
+                    }
+
+                    deque.removeIf(element -> element % 3 == 0);
+
+                    while (!deque.isEmpty())
+                        deque.pollLast();
+
+                    return null;
+                };
+            }
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options options = new OptionsBuilder()
+                .include(DequeStatsVsArrayDeque.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
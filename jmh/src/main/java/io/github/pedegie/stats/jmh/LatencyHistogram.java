@@ -0,0 +1,79 @@
+package io.github.pedegie.stats.jmh;
+
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+
+/**
+ * Log-bucketed recorder of non-negative {@code long} values in the spirit of HdrHistogram. Values lower than
+ * {@code 2^SUB_BUCKET_BITS} have their own bucket, every higher power of two range is split into
+ * {@code 2^SUB_BUCKET_BITS} equal buckets, so reported value is lower than recorded one by at most
+ * {@code 1 / 2^SUB_BUCKET_BITS} (< 1%) of it. Not thread safe.
+ */
+@FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+class LatencyHistogram
+{
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    long[] counts = new long[BUCKETS];
+    @NonFinal
+    long total;
+    @NonFinal
+    long max;
+
+    void record(long value)
+    {
+        value = Math.max(value, 0);
+        counts[bucket(value)]++;
+        total++;
+        max = Math.max(max, value);
+    }
+
+    long total()
+    {
+        return total;
+    }
+
+    long max()
+    {
+        return max;
+    }
+
+    /**
+     * @param quantile from 0 to 1
+     * @return lowest value of bucket containing {@code quantile}, 0 if histogram is empty
+     */
+    long valueAt(double quantile)
+    {
+        long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++)
+        {
+            seen += counts[bucket];
+            if (seen >= rank)
+                return lowestValue(bucket);
+        }
+        return 0;
+    }
+
+    private static int bucket(long value)
+    {
+        if (value < SUB_BUCKETS)
+            return (int) value;
+
+        int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+
+    private static long lowestValue(int bucket)
+    {
+        if (bucket < SUB_BUCKETS)
+            return bucket;
+
+        int shift = bucket / SUB_BUCKETS - 1;
+        return (long) (bucket % SUB_BUCKETS + SUB_BUCKETS) << shift;
+    }
+}
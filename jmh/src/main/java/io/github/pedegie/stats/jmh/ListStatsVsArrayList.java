@@ -0,0 +1,112 @@
+package io.github.pedegie.stats.jmh;
+
+import io.github.pedegie.stats.api.queue.Batching;
+import io.github.pedegie.stats.api.queue.FileUtils;
+import io.github.pedegie.stats.api.queue.QueueConfiguration;
+import io.github.pedegie.stats.api.queue.StatsList;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Timeout;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static io.github.pedegie.stats.jmh.BenchmarkUtils.randomPath;
+
+public class ListStatsVsArrayList
+{
+    @Fork(value = 1)
+    @Warmup(iterations = 5, time = 5)
+    @Measurement(iterations = 4, time = 5)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @BenchmarkMode({Mode.AverageTime})
+    @State(Scope.Benchmark)
+    @Timeout(time = 120)
+    public static class TestBenchmark
+    {
+        @Benchmark
+        public void StatsListArrayList(ListConfiguration listConfiguration)
+        {
+            listConfiguration.statsListArrayListBenchmark.get();
+        }
+
+        @Benchmark
+        public void ArrayList(ListConfiguration listConfiguration)
+        {
+            listConfiguration.arrayListBenchmark.get();
+        }
+
+        @State(Scope.Benchmark)
+        public static class ListConfiguration
+        {
+            Supplier<Void> statsListArrayListBenchmark;
+            Supplier<Void> arrayListBenchmark;
+
+            StatsList<Integer> statsList;
+
+            @Setup(Level.Trial)
+            public void setUp()
+            {
+                FileUtils.cleanDirectory(BenchmarkUtils.testQueuePath.getParent());
+                var queueConfiguration = QueueConfiguration.builder()
+                        .path(randomPath())
+                        .preTouch(true)
+                        .mmapSize(4L << 30)
+                        .batching(new Batching(20000, Long.MAX_VALUE))
+                        .disableSynchronization(true)
+                        .build();
+
+                statsList = StatsList.list(new ArrayList<>(), queueConfiguration);
+                statsListArrayListBenchmark = benchmarkFor(statsList);
+                arrayListBenchmark = benchmarkFor(new ArrayList<>());
+            }
+
+            @TearDown(Level.Trial)
+            public void teardownTrial()
+            {
+                statsList.close();
+            }
+
+            private Supplier<Void> benchmarkFor(List<Integer> list)
+            {
+                return () ->
+                {
+                    for (int i = 0; i < 5_000; i++)
+                        list.add(i);
+
+                    list.removeIf(element -> element % 2 == 0);
+                    list.subList(0, 1_000).clear();
+
+                    for (int i = list.size() - 1; i >= 0; i--)
+                        list.remove(i);
+
+                    return null;
+                };
+            }
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options options = new OptionsBuilder()
+                .include(ListStatsVsArrayList.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
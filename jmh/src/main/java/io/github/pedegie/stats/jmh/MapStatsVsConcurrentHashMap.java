@@ -0,0 +1,112 @@
+package io.github.pedegie.stats.jmh;
+
+import io.github.pedegie.stats.api.queue.Batching;
+import io.github.pedegie.stats.api.queue.FileUtils;
+import io.github.pedegie.stats.api.queue.StatsConcurrentMap;
+import io.github.pedegie.stats.api.queue.StatsMap;
+import io.github.pedegie.stats.api.queue.WriteThreshold;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Timeout;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static io.github.pedegie.stats.jmh.BenchmarkUtils.randomPath;
+import static io.github.pedegie.stats.jmh.BenchmarkUtils.runBenchmarkForMap;
+
+public class MapStatsVsConcurrentHashMap
+{
+    @Fork(value = 1)
+    @Warmup(iterations = 5)
+    @Measurement(iterations = 4)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @BenchmarkMode({Mode.AverageTime})
+    @State(Scope.Benchmark)
+    @Timeout(time = 120)
+    public static class TestBenchmark
+    {
+        @Benchmark
+        public void StatsMapConcurrentHashMap(MapConfiguration mapConfiguration)
+        {
+            mapConfiguration.statsMapConcurrentHashMapBenchmark.get();
+        }
+
+        @Benchmark
+        public void ConcurrentHashMap(MapConfiguration mapConfiguration)
+        {
+            mapConfiguration.concurrentHashMapBenchmark.get();
+        }
+
+        @State(Scope.Benchmark)
+        public static class MapConfiguration
+        {
+            @Param({"1", "2", "4", "8", "16", "32", "64", "128"})
+            public int threads;
+
+            Supplier<Void> statsMapConcurrentHashMapBenchmark;
+            Supplier<Void> concurrentHashMapBenchmark;
+
+            ExecutorService threadPool;
+            StatsConcurrentMap<Integer, Integer> statsMap;
+
+            @Setup(Level.Trial)
+            public void setUp()
+            {
+                threadPool = Executors.newFixedThreadPool(threads, new BenchmarkUtils.NamedThreadFactory("map_pool-%d"));
+                FileUtils.cleanDirectory(BenchmarkUtils.testQueuePath.getParent());
+                var queueConfiguration = io.github.pedegie.stats.api.queue.QueueConfiguration.builder()
+                        .path(randomPath())
+                        .preTouch(true)
+                        .mmapSize(Integer.MAX_VALUE)
+                        .writeThreshold(WriteThreshold.minSizeDifference(2))
+                        .batching(new Batching(20000, 5000))
+                        .build();
+
+                statsMap = StatsMap.concurrentMap(new ConcurrentHashMap<>(), queueConfiguration);
+                statsMapConcurrentHashMapBenchmark = runBenchmarkForMap(statsMap, threads, threadPool);
+                concurrentHashMapBenchmark = runBenchmarkForMap(new ConcurrentHashMap<>(), threads, threadPool);
+            }
+
+            @TearDown(Level.Trial)
+            public void teardownTrial()
+            {
+                threadPool.shutdown();
+                try
+                {
+                    threadPool.awaitTermination(60, TimeUnit.SECONDS);
+                } catch (InterruptedException e)
+                {
+                    e.printStackTrace();
+                }
+                statsMap.close();
+            }
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options options = new OptionsBuilder()
+                .include(MapStatsVsConcurrentHashMap.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,131 @@
+package io.github.pedegie.stats.jmh;
+
+import io.github.pedegie.stats.api.queue.FileUtils;
+import io.github.pedegie.stats.api.queue.QueueConfiguration;
+import io.github.pedegie.stats.api.queue.StatsQueue;
+import lombok.SneakyThrows;
+import net.openhft.chronicle.core.OS;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Timeout;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static io.github.pedegie.stats.jmh.BenchmarkUtils.randomPath;
+
+/**
+ * Startup of service which creates many queues in parallel, each of them registers itself in Flusher
+ */
+public class ParallelQueueCreation
+{
+    @Fork(value = 1)
+    @Warmup(iterations = 5)
+    @Measurement(iterations = 10)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @BenchmarkMode({Mode.SingleShotTime})
+    @State(Scope.Benchmark)
+    @Timeout(time = 120)
+    public static class TestBenchmark
+    {
+        @Benchmark
+        @SneakyThrows
+        public void createQueues(QueueCreationConfiguration configuration)
+        {
+            List<Future<?>> futures = new ArrayList<>(configuration.queues);
+            for (Path path : configuration.paths)
+            {
+                futures.add(configuration.pool.submit(() -> configuration.statsQueues.add(StatsQueue.queue(new ConcurrentLinkedQueue<Integer>(), configuration.configuration(path)))));
+            }
+
+            for (Future<?> future : futures)
+            {
+                future.get();
+            }
+        }
+
+        @State(Scope.Benchmark)
+        public static class QueueCreationConfiguration
+        {
+            @Param({"16"})
+            public int threads;
+
+            @Param({"1000"})
+            public int queues;
+
+            ExecutorService pool;
+            List<Path> paths = new ArrayList<>();
+            ConcurrentLinkedQueue<StatsQueue<Integer>> statsQueues = new ConcurrentLinkedQueue<>();
+
+            @Setup(Level.Trial)
+            public void setUpTrial()
+            {
+                pool = Executors.newFixedThreadPool(threads, new BenchmarkUtils.NamedThreadFactory("creator_pool-%d"));
+            }
+
+            @Setup(Level.Iteration)
+            public void setUp()
+            {
+                FileUtils.cleanDirectory(BenchmarkUtils.testQueuePath.getParent());
+                for (int i = 0; i < queues; i++)
+                {
+                    paths.add(randomPath());
+                }
+            }
+
+            QueueConfiguration configuration(Path path)
+            {
+                // smallest files without pre-touching, so mostly registration itself is measured
+                return QueueConfiguration.builder()
+                        .path(path)
+                        .mmapSize(OS.pageSize())
+                        .preTouch(false)
+                        .build();
+            }
+
+            @TearDown(Level.Iteration)
+            public void tearDown()
+            {
+                statsQueues.forEach(StatsQueue::close);
+                statsQueues.clear();
+                paths.clear();
+            }
+
+            @TearDown(Level.Trial)
+            public void tearDownTrial() throws InterruptedException
+            {
+                pool.shutdown();
+                pool.awaitTermination(60, TimeUnit.SECONDS);
+            }
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options options = new OptionsBuilder()
+                .include(ParallelQueueCreation.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,171 @@
+package io.github.pedegie.stats.jmh;
+
+import io.github.pedegie.stats.api.queue.FileUtils;
+import io.github.pedegie.stats.api.queue.probe.Probe;
+import io.github.pedegie.stats.api.tailer.ProbeTailer;
+import io.github.pedegie.stats.api.tailer.TailerConfiguration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Timeout;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import static io.github.pedegie.stats.jmh.BenchmarkUtils.randomPath;
+import static io.github.pedegie.stats.jmh.BenchmarkUtils.writeProbes;
+
+/**
+ * Read side of {@link ProbeTailer} over pre-generated files of 1M - 100M probes. Each {@code read*} invocation reads
+ * whole file, score is time of single pass, tailer is rewound before each iteration. {@code probes} measures
+ * {@link ProbeTailer#probes()} with tailer positioned in the middle of file.
+ */
+public class ProbeTailerRead
+{
+    private static final int BATCH_SIZE = 10_000;
+
+    @Fork(value = 1, jvmArgsAppend = "-Xmx1g")
+    @Warmup(iterations = 3)
+    @Measurement(iterations = 5)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @BenchmarkMode({Mode.SingleShotTime})
+    @State(Scope.Benchmark)
+    @Timeout(time = 600)
+    public static class TestBenchmark
+    {
+        @Benchmark
+        public long read(FileConfiguration configuration)
+        {
+            configuration.probeTailer.read();
+            return configuration.consumed;
+        }
+
+        @Benchmark
+        public long readInChunks(FileConfiguration configuration, ChunkConfiguration chunkConfiguration)
+        {
+            ProbeTailer probeTailer = configuration.probeTailer;
+            while (probeTailer.read(chunkConfiguration.chunk))
+            {
+            }
+            return configuration.consumed;
+        }
+
+        @Benchmark
+        public long readFromStart(FileConfiguration configuration)
+        {
+            configuration.probeTailer.readFromStart();
+            return configuration.consumed;
+        }
+
+        @Benchmark
+        @BenchmarkMode({Mode.AverageTime})
+        @OutputTimeUnit(TimeUnit.NANOSECONDS)
+        @Warmup(iterations = 3, time = 5)
+        @Measurement(iterations = 5, time = 5)
+        public long probes(MiddleOfFileConfiguration configuration)
+        {
+            return configuration.probeTailer.probes();
+        }
+
+        @State(Scope.Benchmark)
+        public static class FileConfiguration
+        {
+            @Param({"1000000", "10000000", "100000000"})
+            public int probes;
+
+            Path path;
+            ProbeTailer probeTailer;
+            long consumed;
+
+            @Setup(Level.Trial)
+            public void setUp()
+            {
+                FileUtils.cleanDirectory(BenchmarkUtils.testQueuePath.getParent());
+                path = randomPath();
+                writeProbes(path, probes, BATCH_SIZE);
+                probeTailer = ProbeTailer.from(TailerConfiguration.builder()
+                        .tailer((Probe probe) -> consumed += probe.getCount())
+                        .mmapSize(Integer.MAX_VALUE)
+                        .path(path)
+                        .build());
+            }
+
+            /**
+             * {@link ProbeTailer#readFromStart()} rewinds on its own, for the rest it's the only way to read whole
+             * file again
+             */
+            @Setup(Level.Iteration)
+            public void rewind()
+            {
+                probeTailer.seek(0);
+            }
+
+            @TearDown(Level.Trial)
+            public void tearDown() throws IOException
+            {
+                probeTailer.close();
+                FileUtils.cleanDirectory(BenchmarkUtils.testQueuePath.getParent());
+            }
+        }
+
+        @State(Scope.Benchmark)
+        public static class ChunkConfiguration
+        {
+            @Param({"50", "10000"})
+            public long chunk;
+        }
+
+        @State(Scope.Benchmark)
+        public static class MiddleOfFileConfiguration
+        {
+            @Param({"1000000", "100000000"})
+            public int fileProbes;
+
+            ProbeTailer probeTailer;
+
+            @Setup(Level.Trial)
+            public void setUp()
+            {
+                FileUtils.cleanDirectory(BenchmarkUtils.testQueuePath.getParent());
+                Path path = randomPath();
+                writeProbes(path, fileProbes, BATCH_SIZE);
+                probeTailer = ProbeTailer.from(TailerConfiguration.builder()
+                        .tailer((Probe probe) -> {})
+                        .mmapSize(Integer.MAX_VALUE)
+                        .path(path)
+                        .build());
+                probeTailer.read(fileProbes / 2);
+            }
+
+            @TearDown(Level.Trial)
+            public void tearDown() throws IOException
+            {
+                probeTailer.close();
+                FileUtils.cleanDirectory(BenchmarkUtils.testQueuePath.getParent());
+            }
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options options = new OptionsBuilder()
+                .include(ProbeTailerRead.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
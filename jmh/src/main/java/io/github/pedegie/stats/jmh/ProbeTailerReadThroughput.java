@@ -0,0 +1,125 @@
+package io.github.pedegie.stats.jmh;
+
+import io.github.pedegie.stats.api.queue.FileUtils;
+import io.github.pedegie.stats.api.queue.probe.Probe;
+import io.github.pedegie.stats.api.tailer.ProbeBatch;
+import io.github.pedegie.stats.api.tailer.ProbeTailer;
+import io.github.pedegie.stats.api.tailer.TailerConfiguration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Timeout;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import static io.github.pedegie.stats.jmh.BenchmarkUtils.randomPath;
+import static io.github.pedegie.stats.jmh.BenchmarkUtils.writeProbes;
+
+/**
+ * Reads ~1 GB file of default probes (12 bytes each) from start, score is amount of probes read per second
+ */
+public class ProbeTailerReadThroughput
+{
+    private static final int PROBES = 89_000_000;
+    private static final int BATCH_SIZE = 10_000;
+
+    @Fork(value = 1, jvmArgsAppend = "-Xmx1g")
+    @Warmup(iterations = 3)
+    @Measurement(iterations = 5)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @BenchmarkMode({Mode.Throughput})
+    @State(Scope.Benchmark)
+    @Timeout(time = 600)
+    public static class TestBenchmark
+    {
+        @Benchmark
+        @OperationsPerInvocation(PROBES)
+        public long readProbes(ReadConfiguration configuration)
+        {
+            configuration.probeTailer.readFromStart();
+            return configuration.consumed;
+        }
+
+        @Benchmark
+        @OperationsPerInvocation(PROBES)
+        public long readBatches(ReadConfiguration configuration)
+        {
+            configuration.batchTailer.readFromStart();
+            return configuration.consumed;
+        }
+
+        @State(Scope.Benchmark)
+        public static class ReadConfiguration
+        {
+            @Param({"true", "false"})
+            public boolean zeroCopy;
+
+            Path path;
+            ProbeTailer probeTailer;
+            ProbeTailer batchTailer;
+            long consumed;
+
+            @Setup(Level.Trial)
+            public void setUp()
+            {
+                FileUtils.cleanDirectory(BenchmarkUtils.testQueuePath.getParent());
+                path = randomPath();
+                writeProbes(path, PROBES, BATCH_SIZE);
+
+                probeTailer = ProbeTailer.from(TailerConfiguration.builder()
+                        .tailer((Probe probe) -> consumed += probe.getCount())
+                        .zeroCopy(zeroCopy)
+                        .mmapSize(Integer.MAX_VALUE)
+                        .path(path)
+                        .build());
+
+                long[] timestamps = new long[BATCH_SIZE];
+                int[] counts = new int[BATCH_SIZE];
+                batchTailer = ProbeTailer.from(TailerConfiguration.builder()
+                        .batchTailer((ProbeBatch batch) ->
+                        {
+                            batch.timestamps(timestamps, 0);
+                            batch.counts(counts, 0);
+                            consumed += timestamps[0] + counts[batch.size() - 1];
+                        })
+                        .zeroCopy(zeroCopy)
+                        .mmapSize(Integer.MAX_VALUE)
+                        .path(path)
+                        .build());
+            }
+
+            @TearDown(Level.Trial)
+            public void tearDown() throws IOException
+            {
+                probeTailer.close();
+                batchTailer.close();
+                FileUtils.cleanDirectory(BenchmarkUtils.testQueuePath.getParent());
+            }
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options options = new OptionsBuilder()
+                .include(ProbeTailerReadThroughput.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
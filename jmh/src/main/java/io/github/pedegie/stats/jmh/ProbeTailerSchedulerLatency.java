@@ -0,0 +1,163 @@
+package io.github.pedegie.stats.jmh;
+
+import io.github.pedegie.stats.api.queue.Batching;
+import io.github.pedegie.stats.api.queue.FileUtils;
+import io.github.pedegie.stats.api.queue.QueueConfiguration;
+import io.github.pedegie.stats.api.queue.StatsQueue;
+import io.github.pedegie.stats.api.queue.WriteThreshold;
+import io.github.pedegie.stats.api.queue.probe.Probe;
+import io.github.pedegie.stats.api.tailer.ProbeTailer;
+import io.github.pedegie.stats.api.tailer.ProbeTailerScheduler;
+import io.github.pedegie.stats.api.tailer.Tailer;
+import io.github.pedegie.stats.api.tailer.TailerConfiguration;
+import net.openhft.chronicle.core.OS;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Timeout;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.LinkedList;
+import java.util.concurrent.TimeUnit;
+
+import static io.github.pedegie.stats.jmh.BenchmarkUtils.randomPath;
+
+/**
+ * End-to-end latency from {@code StatsQueue} write to {@link Tailer#onProbe(Probe)} invoked by
+ * {@link ProbeTailerScheduler}. Each invocation changes size of next queue (round-robin) by one and spins until its
+ * tailer receives the probe, {@link Mode#SampleTime} reports latency percentiles. Every write is flushed to file at
+ * once ({@code Batching} of size 1), so score is tailer side latency plus cost of single flush.
+ * <p>
+ * If write is skipped because {@code Flusher} is flushing the same queue at that moment, invocation gives up after
+ * {@link #TIMEOUT_NANOS}, such samples show up as outliers at the very end of distribution.
+ */
+public class ProbeTailerSchedulerLatency
+{
+    private static final long TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    @Fork(value = 1)
+    @Warmup(iterations = 3)
+    @Measurement(iterations = 5)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @BenchmarkMode({Mode.SampleTime})
+    @State(Scope.Benchmark)
+    @Timeout(time = 120)
+    public static class TestBenchmark
+    {
+        @Benchmark
+        public long writeToOnProbe(SchedulerConfiguration configuration)
+        {
+            int index = configuration.nextIndex();
+            LatencyTailer tailer = configuration.latencyTailers[index];
+            StatsQueue<Integer> queue = configuration.queues[index];
+
+            long received = tailer.received;
+            if (queue.isEmpty())
+                queue.add(index);
+            else
+                queue.poll();
+
+            long deadline = System.nanoTime() + TIMEOUT_NANOS;
+            while (tailer.received == received && System.nanoTime() < deadline)
+            {
+                Thread.onSpinWait();
+            }
+            return tailer.received;
+        }
+
+        @State(Scope.Benchmark)
+        public static class SchedulerConfiguration
+        {
+            @Param({"1", "4", "8"})
+            public int threads;
+
+            @Param({"1", "100", "1000"})
+            public int tailers;
+
+            ProbeTailerScheduler scheduler;
+            StatsQueue<Integer>[] queues;
+            LatencyTailer[] latencyTailers;
+            int index;
+
+            @Setup(Level.Trial)
+            @SuppressWarnings("unchecked")
+            public void setUp()
+            {
+                FileUtils.cleanDirectory(BenchmarkUtils.testQueuePath.getParent());
+                scheduler = ProbeTailerScheduler.create(threads);
+                queues = new StatsQueue[tailers];
+                latencyTailers = new LatencyTailer[tailers];
+
+                for (int i = 0; i < tailers; i++)
+                {
+                    var path = randomPath();
+                    var queueConfiguration = QueueConfiguration.builder()
+                            .path(path)
+                            .mmapSize(OS.pageSize())
+                            .preTouch(false)
+                            .writeThreshold(WriteThreshold.of(0, 1))
+                            .batching(new Batching(1, TimeUnit.SECONDS.toMillis(5)))
+                            .build();
+                    queues[i] = StatsQueue.queue(new LinkedList<>(), queueConfiguration);
+
+                    latencyTailers[i] = new LatencyTailer();
+                    scheduler.addTailer(ProbeTailer.from(TailerConfiguration.builder()
+                            .tailer(latencyTailers[i])
+                            .mmapSize(OS.pageSize())
+                            .path(path)
+                            .build()));
+                }
+            }
+
+            int nextIndex()
+            {
+                int current = index;
+                index = current + 1 == tailers ? 0 : current + 1;
+                return current;
+            }
+
+            @TearDown(Level.Trial)
+            public void tearDown()
+            {
+                scheduler.close();
+                for (StatsQueue<Integer> queue : queues)
+                {
+                    queue.close();
+                }
+                FileUtils.cleanDirectory(BenchmarkUtils.testQueuePath.getParent());
+            }
+        }
+    }
+
+    static class LatencyTailer implements Tailer
+    {
+        volatile long received;
+
+        @Override
+        public void onProbe(Probe probe)
+        {
+            received++;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options options = new OptionsBuilder()
+                .include(ProbeTailerSchedulerLatency.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,117 @@
+package io.github.pedegie.stats.jmh;
+
+import io.github.pedegie.stats.api.queue.probe.ProbeHolder;
+import io.github.pedegie.stats.api.tailer.Tailer;
+import io.github.pedegie.stats.tailerprometheus.ExportMode;
+import io.github.pedegie.stats.tailerprometheus.PrometheusTailer;
+import io.prometheus.client.Collector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Timeout;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single scrape of many sources, either all of them idle since previous scrape or all of them changed. Run with
+ * {@code -prof gc} to see allocation rate per scrape
+ */
+public class PrometheusCollect
+{
+    @Fork(value = 1)
+    @Warmup(iterations = 5)
+    @Measurement(iterations = 10)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @BenchmarkMode({Mode.AverageTime})
+    @State(Scope.Benchmark)
+    @Timeout(time = 120)
+    public static class TestBenchmark
+    {
+        @Benchmark
+        public List<Collector.MetricFamilySamples> collect(CollectConfiguration configuration)
+        {
+            configuration.probe();
+            return configuration.collector.collect();
+        }
+
+        @Benchmark
+        public StringBuilder writeTextFormat(CollectConfiguration configuration)
+        {
+            configuration.probe();
+            configuration.buffer.setLength(0);
+            configuration.collector.writeTextFormat(configuration.buffer);
+            return configuration.buffer;
+        }
+
+        @State(Scope.Benchmark)
+        public static class CollectConfiguration
+        {
+            @Param({"10", "1000", "10000"})
+            public int sources;
+
+            @Param({"LAST_VALUE", "PEAKS"})
+            public ExportMode mode;
+
+            @Param({"false", "true"})
+            public boolean changing;
+
+            PrometheusTailer collector;
+            List<Tailer> tailers;
+            ProbeHolder probe = new ProbeHolder();
+            StringBuilder buffer = new StringBuilder();
+
+            @Setup(Level.Trial)
+            public void setUp()
+            {
+                collector = new PrometheusTailer()
+                {
+                };
+                tailers = new ArrayList<>(sources);
+                for (int i = 0; i < sources; i++)
+                {
+                    tailers.add(collector.newTailer("source_" + i, mode));
+                }
+                probe();
+            }
+
+            /**
+             * Changes count of every source if {@code changing}, so each scrape sees different values
+             */
+            void probe()
+            {
+                if (!changing && probe.getTimestamp() != 0)
+                    return;
+
+                probe.setTimestamp(probe.getTimestamp() + 1);
+                probe.setCount(probe.getCount() + 1);
+                for (Tailer tailer : tailers)
+                {
+                    tailer.onProbe(probe);
+                }
+            }
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options options = new OptionsBuilder()
+                .include(PrometheusCollect.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
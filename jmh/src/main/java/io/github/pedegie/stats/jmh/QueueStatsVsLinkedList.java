@@ -12,6 +12,7 @@ import org.openjdk.jmh.annotations.Level;
 import org.openjdk.jmh.annotations.Measurement;
 import org.openjdk.jmh.annotations.Mode;
 import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
 import org.openjdk.jmh.annotations.Scope;
 import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
@@ -75,13 +76,16 @@ public class QueueStatsVsLinkedList
 
             StatsQueue<Integer> statsQueue;
 
+            @Param({"true", "false"})
+            boolean preTouch;
+
             @Setup(Level.Trial)
             public void setUp()
             {
                 FileUtils.cleanDirectory(BenchmarkUtils.testQueuePath);
                 var queueConfiguration = QueueConfiguration.builder()
                         .path(randomPath())
-                        .preTouch(true)
+                        .preTouch(preTouch)
                         .mmapSize(4L << 30)
                         .batching(new Batching(20000, Long.MAX_VALUE))
                         .disableSynchronization(true)
@@ -0,0 +1,150 @@
+package io.github.pedegie.stats.jmh;
+
+import io.github.pedegie.stats.api.queue.Batching;
+import io.github.pedegie.stats.api.queue.FileUtils;
+import io.github.pedegie.stats.api.queue.StatsSet;
+import io.github.pedegie.stats.api.queue.WriteThreshold;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Timeout;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+import static io.github.pedegie.stats.jmh.BenchmarkUtils.randomPath;
+
+/**
+ * Pending ids set - every thread adds its own range of ids and then removes them, partially in bulk
+ */
+public class SetStatsVsConcurrentSkipListSet
+{
+    @Fork(value = 1)
+    @Warmup(iterations = 5)
+    @Measurement(iterations = 4)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @BenchmarkMode({Mode.AverageTime})
+    @State(Scope.Benchmark)
+    @Timeout(time = 120)
+    public static class TestBenchmark
+    {
+        @Benchmark
+        public void StatsSetConcurrentSkipListSet(SetConfiguration setConfiguration)
+        {
+            setConfiguration.statsSetConcurrentSkipListSetBenchmark.get();
+        }
+
+        @Benchmark
+        public void ConcurrentSkipListSet(SetConfiguration setConfiguration)
+        {
+            setConfiguration.concurrentSkipListSetBenchmark.get();
+        }
+
+        @State(Scope.Benchmark)
+        public static class SetConfiguration
+        {
+            @Param({"1", "2", "4", "8", "16", "32"})
+            public int threads;
+
+            Supplier<Void> statsSetConcurrentSkipListSetBenchmark;
+            Supplier<Void> concurrentSkipListSetBenchmark;
+
+            ExecutorService threadPool;
+            StatsSet<Integer> statsSet;
+
+            @Setup(Level.Trial)
+            public void setUp()
+            {
+                threadPool = Executors.newFixedThreadPool(threads, new BenchmarkUtils.NamedThreadFactory("set_pool-%d"));
+                FileUtils.cleanDirectory(BenchmarkUtils.testQueuePath.getParent());
+                var queueConfiguration = io.github.pedegie.stats.api.queue.QueueConfiguration.builder()
+                        .path(randomPath())
+                        .preTouch(true)
+                        .mmapSize(Integer.MAX_VALUE)
+                        .writeThreshold(WriteThreshold.minSizeDifference(2))
+                        .batching(new Batching(20000, 5000))
+                        .build();
+
+                statsSet = StatsSet.set(new ConcurrentSkipListSet<>(), queueConfiguration);
+                statsSetConcurrentSkipListSetBenchmark = benchmarkFor(statsSet);
+                concurrentSkipListSetBenchmark = benchmarkFor(new ConcurrentSkipListSet<>());
+            }
+
+            @TearDown(Level.Trial)
+            public void teardownTrial()
+            {
+                threadPool.shutdown();
+                try
+                {
+                    threadPool.awaitTermination(60, TimeUnit.SECONDS);
+                } catch (InterruptedException e)
+                {
+                    e.printStackTrace();
+                }
+                statsSet.close();
+            }
+
+            private Supplier<Void> benchmarkFor(Set<Integer> set)
+            {
+                int idsPerThread = 20_000;
+                return () ->
+                {
+                    List<CompletableFuture<?>> futures = new ArrayList<>(threads);
+                    IntStream.range(0, threads).forEach(index ->
+                            futures.add(CompletableFuture.supplyAsync(() ->
+                            {
+                                int firstId = index * idsPerThread;
+                                int lastId = firstId + idsPerThread;
+                                for (int id = firstId; id < lastId; id++)
+                                    set.add(id);
+
+                                for (int id = firstId; id < lastId; id += 2)
+                                    set.remove(id);
+
+                                set.removeIf(id -> id >= firstId && id < lastId);
+                                return null;
+                            }, threadPool)));
+
+                    try
+                    {
+                        CompletableFuture.allOf(futures.toArray(new CompletableFuture[]{})).get(60, TimeUnit.SECONDS);
+                    } catch (Exception e)
+                    {
+                        e.printStackTrace();
+                    }
+                    return null;
+                };
+            }
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options options = new OptionsBuilder()
+                .include(SetStatsVsConcurrentSkipListSet.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,141 @@
+package io.github.pedegie.stats.jmh;
+
+import io.github.pedegie.stats.api.queue.Batching;
+import io.github.pedegie.stats.api.queue.FileUtils;
+import io.github.pedegie.stats.api.queue.StatsQueue;
+import io.github.pedegie.stats.api.queue.WriteThreshold;
+import io.github.pedegie.stats.api.tailer.ProbeTailer;
+import io.github.pedegie.stats.api.tailer.TailerConfiguration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Timeout;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.file.Path;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static io.github.pedegie.stats.jmh.BenchmarkUtils.randomPath;
+import static io.github.pedegie.stats.jmh.BenchmarkUtils.runBenchmarkForQueue;
+
+/**
+ * Compares write stripes of {@link StatsQueue} under growing number of producers. Besides time, teardown prints how
+ * many probes were stored, as writers which lose CAS skip their probe
+ */
+public class StripedQueueStatsVsConcurrentLinkedQueue
+{
+    @Fork(value = 1)
+    @Warmup(iterations = 5)
+    @Measurement(iterations = 4)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @BenchmarkMode({Mode.AverageTime})
+    @State(Scope.Benchmark)
+    @Timeout(time = 120)
+    public static class TestBenchmark
+    {
+        @Benchmark
+        public void StatsQueueConcurrentLinkedQueue(QueueConfiguration queueConfiguration)
+        {
+            queueConfiguration.statsQueueConcurrentLinkedQueueBenchmark.get();
+        }
+
+        @Benchmark
+        public void ConcurrentLinkedQueue(QueueConfiguration queueConfiguration)
+        {
+            queueConfiguration.concurrentLinkedQueueBenchmark.get();
+        }
+
+        @State(Scope.Benchmark)
+        public static class QueueConfiguration
+        {
+            @Param({"1", "2", "4", "8", "16", "32", "64", "128"})
+            public int threads;
+
+            @Param({"1", "8", "32"})
+            public int writeStripes;
+
+            Supplier<Void> statsQueueConcurrentLinkedQueueBenchmark;
+            Supplier<Void> concurrentLinkedQueueBenchmark;
+
+            ExecutorService producerThreadPool;
+            ExecutorService consumerThreadPool;
+            StatsQueue<Integer> statsQueue;
+            Path path;
+
+            @Setup(Level.Trial)
+            public void setUp()
+            {
+                producerThreadPool = Executors.newFixedThreadPool(threads, new BenchmarkUtils.NamedThreadFactory("producer_pool-%d"));
+                consumerThreadPool = Executors.newFixedThreadPool(threads, new BenchmarkUtils.NamedThreadFactory("consumer_pool-%d"));
+                FileUtils.cleanDirectory(BenchmarkUtils.testQueuePath.getParent());
+                path = randomPath();
+                var queueConfiguration = io.github.pedegie.stats.api.queue.QueueConfiguration.builder()
+                        .path(path)
+                        .preTouch(true)
+                        .mmapSize(Integer.MAX_VALUE)
+                        .writeThreshold(WriteThreshold.minSizeDifference(1))
+                        .batching(new Batching(20000, 5000))
+                        .writeStripes(writeStripes)
+                        .build();
+
+                statsQueue = StatsQueue.queue(new ConcurrentLinkedQueue<>(), queueConfiguration);
+                statsQueueConcurrentLinkedQueueBenchmark = runBenchmarkForQueue(statsQueue, threads, producerThreadPool, consumerThreadPool);
+                concurrentLinkedQueueBenchmark = runBenchmarkForQueue(new ConcurrentLinkedQueue<>(), threads, producerThreadPool, consumerThreadPool);
+            }
+
+            @TearDown(Level.Trial)
+            public void teardownTrial()
+            {
+                producerThreadPool.shutdown();
+                consumerThreadPool.shutdown();
+                try
+                {
+                    producerThreadPool.awaitTermination(60, TimeUnit.SECONDS);
+                    consumerThreadPool.awaitTermination(60, TimeUnit.SECONDS);
+
+                } catch (InterruptedException e)
+                {
+                    e.printStackTrace();
+                }
+                statsQueue.close();
+
+                var tailerConfiguration = TailerConfiguration.builder()
+                        .path(path)
+                        .tailer(probe -> {})
+                        .build();
+                try (ProbeTailer probeTailer = ProbeTailer.from(tailerConfiguration))
+                {
+                    System.out.println("threads: " + threads + ", writeStripes: " + writeStripes + ", stored probes: " + probeTailer.probes());
+                } catch (Exception e)
+                {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options options = new OptionsBuilder()
+                .include(StripedQueueStatsVsConcurrentLinkedQueue.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,141 @@
+package io.github.pedegie.stats.jmh;
+
+import io.github.pedegie.stats.api.queue.Batching;
+import io.github.pedegie.stats.api.queue.FileUtils;
+import io.github.pedegie.stats.api.queue.QueueConfiguration;
+import io.github.pedegie.stats.api.queue.StatsQueue;
+import io.github.pedegie.stats.api.queue.WriteThreshold;
+import io.github.pedegie.stats.api.queue.probe.Probe;
+import io.github.pedegie.stats.api.tailer.ProbeTailer;
+import io.github.pedegie.stats.api.tailer.TailerConfiguration;
+import lombok.SneakyThrows;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.LinkedList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static io.github.pedegie.stats.jmh.BenchmarkUtils.randomPath;
+
+/**
+ * Standalone harness measuring write-to-visibility latency - time from writing probe by {@code StatsQueue} until
+ * concurrently running {@link ProbeTailer} reads it, for every combination of {@code Batching.batchSize},
+ * {@code Batching.flushMillisThreshold} (interval in which Flusher writes not full batches) and
+ * {@link WriteThreshold}. Probe is stamped at write time by writer's clock, tailer spins on {@link ProbeTailer#read()}
+ * and records difference between current time and timestamp of each probe, so score is how long probe waits in batch
+ * plus tailer side overhead. Timestamps have millisecond resolution, so latencies are overestimated by up to 1 ms.
+ * <p>
+ * Writer changes size of queue by one at constant rate, so with {@link WriteThreshold} higher than 1 not every change
+ * is written. Compare p99 - p99.9 with scrape interval of your monitoring tool to size flush interval.
+ * <p>
+ * Usage: {@code VisibilityLatency [secondsPerConfiguration] [writesPerSecond]}
+ */
+public class VisibilityLatency
+{
+    private static final int[] BATCH_SIZES = {1, 50, 1000};
+    private static final long[] FLUSH_MILLIS_THRESHOLDS = {10, 100, 1000};
+    private static final WriteThreshold[] WRITE_THRESHOLDS = {
+            WriteThreshold.of(0, 1),
+            WriteThreshold.of(10, 10),
+            WriteThreshold.of(100, 100)
+    };
+
+    public static void main(String[] args)
+    {
+        int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        int writesPerSecond = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+
+        System.out.printf("%-9s %-10s %-17s %10s %10s %10s %10s %10s%n",
+                "batchSize", "flushMs", "writeThreshold", "probes", "p50 us", "p99 us", "p99.9 us", "max us");
+
+        FileUtils.cleanDirectory(BenchmarkUtils.testQueuePath.getParent());
+        for (int batchSize : BATCH_SIZES)
+        {
+            for (long flushMillis : FLUSH_MILLIS_THRESHOLDS)
+            {
+                for (WriteThreshold writeThreshold : WRITE_THRESHOLDS)
+                {
+                    LatencyHistogram histogram = measure(new Batching(batchSize, flushMillis), writeThreshold, seconds, writesPerSecond);
+                    System.out.printf("%-9d %-10d %-17s %10d %10d %10d %10d %10d%n",
+                            batchSize,
+                            flushMillis,
+                            "of(" + writeThreshold.getMinDelayBetweenWritesMillis() + ", " + writeThreshold.getMinSizeDifference() + ")",
+                            histogram.total(),
+                            histogram.valueAt(0.5),
+                            histogram.valueAt(0.99),
+                            histogram.valueAt(0.999),
+                            histogram.max());
+                    FileUtils.cleanDirectory(BenchmarkUtils.testQueuePath.getParent());
+                }
+            }
+        }
+    }
+
+    @SneakyThrows
+    private static LatencyHistogram measure(Batching batching, WriteThreshold writeThreshold, int seconds, int writesPerSecond)
+    {
+        Path path = randomPath();
+        StatsQueue<Integer> queue = StatsQueue.queue(new LinkedList<>(), QueueConfiguration.builder()
+                .path(path)
+                .mmapSize(Integer.MAX_VALUE)
+                .preTouch(false)
+                .batching(batching)
+                .writeThreshold(writeThreshold)
+                .build());
+
+        LatencyHistogram histogram = new LatencyHistogram();
+        AtomicBoolean writing = new AtomicBoolean(true);
+        Thread tailerThread = new Thread(() -> tail(path, histogram, writing), "visibility_tailer");
+        tailerThread.start();
+
+        long periodNanos = TimeUnit.SECONDS.toNanos(1) / writesPerSecond;
+        long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        long nextWrite = System.nanoTime();
+        for (int i = 0; nextWrite < end; i++, nextWrite += periodNanos)
+        {
+            while (System.nanoTime() < nextWrite)
+            {
+                Thread.onSpinWait();
+            }
+
+            if (i % 1000 < 500)
+                queue.add(i);
+            else
+                queue.poll();
+        }
+
+        writing.set(false);
+        tailerThread.join();
+        queue.close();
+        return histogram;
+    }
+
+    /**
+     * Probes still waiting in batch when writer stops are not recorded, closing queue would flush them with
+     * latency made up by the harness itself
+     */
+    @SneakyThrows
+    private static void tail(Path path, LatencyHistogram histogram, AtomicBoolean writing)
+    {
+        try (ProbeTailer probeTailer = ProbeTailer.from(TailerConfiguration.builder()
+                .tailer((Probe probe) -> histogram.record(currentTimeMicros() - TimeUnit.MILLISECONDS.toMicros(probe.getTimestamp())))
+                .mmapSize(Integer.MAX_VALUE)
+                .path(path)
+                .build()))
+        {
+            while (writing.get())
+            {
+                probeTailer.read();
+                Thread.onSpinWait();
+            }
+            probeTailer.read();
+        }
+    }
+
+    private static long currentTimeMicros()
+    {
+        Instant now = Instant.now();
+        return TimeUnit.SECONDS.toMicros(now.getEpochSecond()) + TimeUnit.NANOSECONDS.toMicros(now.getNano());
+    }
+}
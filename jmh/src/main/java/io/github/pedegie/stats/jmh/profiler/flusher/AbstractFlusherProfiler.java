@@ -20,6 +20,7 @@ import org.openjdk.jmh.annotations.TearDown;
 import org.openjdk.jmh.annotations.Timeout;
 import org.openjdk.jmh.annotations.Warmup;
 
+import java.lang.management.ManagementFactory;
 import java.util.concurrent.TimeUnit;
 
 @Fork(value = 1)
@@ -36,24 +37,40 @@ public abstract class AbstractFlusherProfiler
 
     protected int numberOfAdditionalFlushables = PROFILING_TIME_SECONDS / ADDITIONAL_FLUSHABLE_ADDITION_INTERVAL_SECONDS;
 
-    @Param({"128", "256", "512"})
+    @Param({"512", "10000", "50000", "100000"})
     protected int numberOfFlushables;
 
     private Flusher flusher;
+    private FlushDelays flushDelays;
+    private long flusherCpuNanosAtStart;
 
     @Setup(Level.Iteration)
     public void setup()
     {
         beforeStart();
+        flushDelays = new FlushDelays();
         flusher = new Flusher();
         flusher.start();
         addFlushables(flusher);
+        flusherCpuNanosAtStart = flusherCpuNanos();
     }
 
     @TearDown(Level.Iteration)
     public void tearDown()
     {
+        long flusherCpuNanos = flusherCpuNanos() - flusherCpuNanosAtStart;
         flusher.stop();
+        System.out.println("\nflushables: " + numberOfFlushables + ", flusher CPU time: " +
+                TimeUnit.NANOSECONDS.toMillis(flusherCpuNanos) + " ms, flush delay " + flushDelays);
+    }
+
+    private long flusherCpuNanos()
+    {
+        var flusherThread = Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> thread.getName().equals("stats-flusher"))
+                .findAny()
+                .orElseThrow();
+        return ManagementFactory.getThreadMXBean().getThreadCpuTime(flusherThread.getId());
     }
 
     @Benchmark
@@ -61,7 +78,7 @@ public abstract class AbstractFlusherProfiler
     {
         for (int i = 0; i < numberOfAdditionalFlushables; i++)
         {
-            flusher.addFlushable(new TestFlushable(getInterval()));
+            flusher.addFlushable(new TestFlushable(getInterval(), flushDelays));
             TimeUnit.SECONDS.sleep(ADDITIONAL_FLUSHABLE_ADDITION_INTERVAL_SECONDS);
         }
     }
@@ -77,7 +94,7 @@ public abstract class AbstractFlusherProfiler
     {
         for (int i = 0; i < numberOfFlushables; i++)
         {
-            flusher.addFlushable(new TestFlushable(getInterval()));
+            flusher.addFlushable(new TestFlushable(getInterval(), flushDelays));
         }
     }
 }
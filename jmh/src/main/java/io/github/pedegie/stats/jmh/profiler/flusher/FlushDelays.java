@@ -0,0 +1,39 @@
+package io.github.pedegie.stats.jmh.profiler.flusher;
+
+/**
+ * Histogram of delays between expected and real flush time, with 1 ms buckets. Written only by flusher thread and
+ * read after flusher is stopped
+ */
+class FlushDelays
+{
+    private static final int MAX_DELAY_MILLIS = 10_000;
+
+    private final long[] buckets = new long[MAX_DELAY_MILLIS + 1];
+    private long count;
+
+    void record(long delayMillis)
+    {
+        buckets[(int) Math.max(0, Math.min(delayMillis, MAX_DELAY_MILLIS))]++;
+        count++;
+    }
+
+    long percentile(double percentile)
+    {
+        long rank = (long) Math.ceil(percentile / 100 * count);
+        long seen = 0;
+        for (int delay = 0; delay < buckets.length; delay++)
+        {
+            seen += buckets[delay];
+            if (seen >= rank && seen > 0)
+                return delay;
+        }
+        return 0;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "[ms] p50: " + percentile(50) + ", p90: " + percentile(90) + ", p99: " + percentile(99) +
+                ", p99.9: " + percentile(99.9) + ", max: " + percentile(100) + " (" + count + " flushes)";
+    }
+}
@@ -0,0 +1,101 @@
+package io.github.pedegie.stats.jmh.profiler.flusher;
+
+import io.github.pedegie.stats.api.queue.Batching;
+import io.github.pedegie.stats.api.queue.FileUtils;
+import io.github.pedegie.stats.api.queue.QueueConfiguration;
+import io.github.pedegie.stats.api.queue.StatsQueue;
+import io.github.pedegie.stats.api.queue.WriteThreshold;
+import io.github.pedegie.stats.jmh.BenchmarkUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Timeout;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.AsyncProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+import static io.github.pedegie.stats.jmh.BenchmarkUtils.randomPath;
+
+/**
+ * Writes probes of many queues, each flushed by Flusher every 10 ms into fresh pages of its file. With pre-touching
+ * enabled page faults should move from Flusher and writing threads to pre-toucher thread.
+ */
+@Fork(value = 1)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@BenchmarkMode({Mode.AverageTime})
+@State(Scope.Benchmark)
+@Timeout(time = 120)
+public class PreTouchFlusherProfiler
+{
+    @Param({"true", "false"})
+    private boolean preTouch;
+
+    @Param({"16", "128"})
+    private int numberOfQueues;
+
+    private StatsQueue<Integer>[] queues;
+
+    @Setup(Level.Trial)
+    @SuppressWarnings("unchecked")
+    public void setup()
+    {
+        FileUtils.cleanDirectory(BenchmarkUtils.testQueuePath);
+        queues = new StatsQueue[numberOfQueues];
+        for (int i = 0; i < numberOfQueues; i++)
+        {
+            var queueConfiguration = QueueConfiguration.builder()
+                    .path(randomPath())
+                    .preTouch(preTouch)
+                    .mmapSize(64L << 20)
+                    .writeThreshold(WriteThreshold.of(0, 1))
+                    .batching(new Batching(1000, 10))
+                    .build();
+            queues[i] = StatsQueue.queue(new ConcurrentLinkedQueue<>(), queueConfiguration);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown()
+    {
+        for (StatsQueue<Integer> queue : queues)
+        {
+            queue.close();
+        }
+    }
+
+    @Benchmark
+    public void benchmark()
+    {
+        for (StatsQueue<Integer> queue : queues)
+        {
+            queue.add(1);
+            queue.poll();
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options options = new OptionsBuilder()
+                .include(PreTouchFlusherProfiler.class.getSimpleName())
+                .addProfiler(AsyncProfiler.class, "event=cpu;output=flamegraph")
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -9,17 +9,23 @@ import io.github.pedegie.stats.api.queue.BatchFlushable;
 class TestFlushable implements BatchFlushable
 {
     private final long interval;
+    private final FlushDelays flushDelays;
     private long lastBatchFlushTimestamp;
 
-    TestFlushable(long interval)
+    TestFlushable(long interval, FlushDelays flushDelays)
     {
         this.interval = interval;
+        this.flushDelays = flushDelays;
     }
 
     @Override
     public boolean batchFlush()
     {
-        lastBatchFlushTimestamp = System.currentTimeMillis();
+        var now = System.currentTimeMillis();
+        if (lastBatchFlushTimestamp != 0)
+            flushDelays.record(now - lastBatchFlushTimestamp - interval);
+
+        lastBatchFlushTimestamp = now;
         return true;
     }
 
@@ -0,0 +1,50 @@
+package io.github.pedegie.stats.tailergraphite;
+
+import lombok.AccessLevel;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.With;
+import lombok.experimental.FieldDefaults;
+
+import java.net.InetSocketAddress;
+
+@Builder
+@Getter
+@FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+@With
+public class GraphiteConfiguration
+{
+    private static final int KB_64 = 64 * 1024;
+    private static final int MB_4 = 4 * 1024 * 1024;
+
+    /**
+     * Address of Graphite plaintext protocol listener, usually port 2003
+     */
+    InetSocketAddress address;
+    /**
+     * Metric path of probes, e.g. {@code app.orders.queue.size}
+     */
+    String path;
+    /**
+     * Buffered bytes which are sent at once
+     */
+    @Builder.Default
+    int batchBytes = KB_64;
+    /**
+     * Limit of buffered bytes, when Graphite is not reachable for longer time, newer probes are dropped
+     */
+    @Builder.Default
+    int bufferBytes = MB_4;
+    /**
+     * Buffered probes are sent if the oldest send was longer ago, even if there is less than {@link #batchBytes}
+     */
+    @Builder.Default
+    long flushMillis = 1000;
+    @Builder.Default
+    long reconnectDelayMillis = 1000;
+    /**
+     * How long closing tailer tries to send buffered probes
+     */
+    @Builder.Default
+    long closeTimeoutMillis = 1000;
+}
@@ -0,0 +1,133 @@
+package io.github.pedegie.stats.tailergraphite;
+
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Non-blocking connection to Graphite. It never waits for network - connecting is finished by one of next writes and
+ * lost connection is reestablished no sooner than after reconnect delay, meanwhile writes just return.
+ * <p>
+ * Line partially sent to lost connection is not sent again, Graphite would glue its rest to the next line.
+ */
+@FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+@Slf4j
+class GraphiteConnection
+{
+    InetSocketAddress address;
+    long reconnectDelayNanos;
+
+    @NonFinal
+    SocketChannel channel;
+    @NonFinal
+    long nextConnectAttempt;
+    /**
+     * Last byte sent over current connection isn't end of line
+     */
+    @NonFinal
+    boolean midLine;
+
+    GraphiteConnection(InetSocketAddress address, long reconnectDelayMillis)
+    {
+        this.address = address;
+        this.reconnectDelayNanos = TimeUnit.MILLISECONDS.toNanos(reconnectDelayMillis);
+        this.nextConnectAttempt = System.nanoTime();
+    }
+
+    /**
+     * Writes as much of {@code buffer} as socket accepts without blocking
+     *
+     * @param buffer bytes to send, in read mode
+     * @return {@code true} if whole buffer was sent
+     */
+    boolean write(ByteBuffer buffer)
+    {
+        if (!connected())
+            return false;
+
+        int start = buffer.position();
+        try
+        {
+            while (buffer.hasRemaining() && channel.write(buffer) > 0)
+            {
+            }
+            updateMidLine(buffer, start);
+            return !buffer.hasRemaining();
+        } catch (IOException e)
+        {
+            log.warn("Lost connection to Graphite " + address + ", reconnecting.", e);
+            updateMidLine(buffer, start);
+            if (midLine)
+                skipRestOfLine(buffer);
+            disconnect();
+            return false;
+        }
+    }
+
+    private void updateMidLine(ByteBuffer buffer, int start)
+    {
+        if (buffer.position() > start)
+            midLine = buffer.get(buffer.position() - 1) != '\n';
+    }
+
+    /**
+     * Moves {@code buffer} past the next end of line, or to its limit if there is none
+     */
+    static void skipRestOfLine(ByteBuffer buffer)
+    {
+        while (buffer.hasRemaining() && buffer.get() != '\n')
+        {
+        }
+    }
+
+    private boolean connected()
+    {
+        try
+        {
+            if (channel == null)
+            {
+                if (System.nanoTime() - nextConnectAttempt < 0)
+                    return false;
+
+                nextConnectAttempt = System.nanoTime() + reconnectDelayNanos;
+                channel = SocketChannel.open();
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                if (channel.connect(address))
+                    return true;
+            }
+
+            return channel.isConnected() || channel.finishConnect();
+        } catch (IOException e)
+        {
+            log.warn("Cannot connect to Graphite " + address + ", next attempt in " +
+                    TimeUnit.NANOSECONDS.toMillis(reconnectDelayNanos) + " ms.", e);
+            disconnect();
+            return false;
+        }
+    }
+
+    void disconnect()
+    {
+        if (channel == null)
+            return;
+
+        try
+        {
+            channel.close();
+        } catch (IOException e)
+        {
+            log.warn("Error during closing connection to Graphite " + address, e);
+        }
+        channel = null;
+        midLine = false;
+    }
+}
@@ -0,0 +1,156 @@
+package io.github.pedegie.stats.tailergraphite;
+
+import io.github.pedegie.stats.api.queue.probe.Probe;
+import io.github.pedegie.stats.api.tailer.BatchTailer;
+import io.github.pedegie.stats.api.tailer.ProbeBatch;
+import io.github.pedegie.stats.api.tailer.Tailer;
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Pushes probes to Graphite using plaintext protocol. Probes are encoded as {@code path count timestamp} lines straight
+ * into direct {@link ByteBuffer} and sent over non-blocking socket once there is {@code batchBytes} of them or
+ * {@code flushMillis} passed since previous send. Nothing is allocated per probe and reading probes never waits for
+ * network. While Graphite is not reachable probes are buffered up to {@code bufferBytes}, newer ones are dropped then.
+ * <p>
+ * It can be configured as {@link Tailer} as well as {@link BatchTailer}. As {@code BatchTailer} it checks whether to
+ * send once per batch. Like {@code ProbeTailer} it's not thread safe, {@link #flush()} should be invoked by thread
+ * reading probes.
+ */
+@FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+@Slf4j
+public class GraphiteTailer implements Tailer, BatchTailer
+{
+    byte[] path;
+    int maxLineLength;
+    int batchBytes;
+    long flushMillis;
+    long closeTimeoutMillis;
+    ByteBuffer buffer;
+    GraphiteConnection connection;
+
+    @NonFinal
+    long lastFlush;
+    @NonFinal
+    long droppedProbes;
+
+    public GraphiteTailer(GraphiteConfiguration configuration)
+    {
+        validate(configuration);
+        this.path = PlaintextEncoder.encodePath(configuration.getPath());
+        this.maxLineLength = PlaintextEncoder.maxLineLength(path);
+        this.batchBytes = configuration.getBatchBytes();
+        this.flushMillis = configuration.getFlushMillis();
+        this.closeTimeoutMillis = configuration.getCloseTimeoutMillis();
+        this.buffer = ByteBuffer.allocateDirect(configuration.getBufferBytes());
+        this.connection = new GraphiteConnection(configuration.getAddress(), configuration.getReconnectDelayMillis());
+        this.lastFlush = System.currentTimeMillis();
+    }
+
+    private static void validate(GraphiteConfiguration configuration)
+    {
+        String header = "Wrong configuration of " + GraphiteConfiguration.class.getName() + "\n";
+        if (configuration.getAddress() == null || configuration.getPath() == null || configuration.getPath().isBlank())
+            throw new IllegalArgumentException(header + "address and path have to be set");
+
+        if (configuration.getBatchBytes() < 1 || configuration.getBatchBytes() > configuration.getBufferBytes())
+            throw new IllegalArgumentException(header + "batchBytes: " + configuration.getBatchBytes() + " has to be within [1, bufferBytes]");
+
+        if (PlaintextEncoder.maxLineLength(PlaintextEncoder.encodePath(configuration.getPath())) > configuration.getBufferBytes())
+            throw new IllegalArgumentException(header + "bufferBytes: " + configuration.getBufferBytes() + " cannot be less than single line");
+    }
+
+    @Override
+    public void onProbe(Probe probe)
+    {
+        append(probe.getCount(), probe.getTimestamp());
+        flushIfNeeded();
+    }
+
+    @Override
+    public void onBatch(ProbeBatch batch)
+    {
+        for (int i = 0; i < batch.size(); i++)
+        {
+            append(batch.count(i), batch.timestamp(i));
+        }
+        flushIfNeeded();
+    }
+
+    private void append(int count, long timestamp)
+    {
+        if (buffer.remaining() < maxLineLength)
+        {
+            flush();
+            if (buffer.remaining() < maxLineLength)
+            {
+                droppedProbes++;
+                return;
+            }
+        }
+
+        PlaintextEncoder.putLine(buffer, path, count, timestamp);
+        if (buffer.position() >= batchBytes)
+            flush();
+    }
+
+    private void flushIfNeeded()
+    {
+        if (buffer.position() > 0 && System.currentTimeMillis() - lastFlush >= flushMillis)
+            flush();
+    }
+
+    /**
+     * Sends buffered probes, as much as socket accepts without blocking. Invoke it periodically if probes are
+     * read rarely, otherwise they are sent by next read after {@code flushMillis}
+     *
+     * @return {@code true} if all buffered probes were sent
+     */
+    public boolean flush()
+    {
+        lastFlush = System.currentTimeMillis();
+        buffer.flip();
+        boolean sent = connection.write(buffer);
+        if (buffer.position() > 0)
+        {
+            buffer.compact();
+        } else
+        {
+            // nothing was sent, e.g. Graphite is not reachable, so full buffer isn't moved on every append
+            buffer.position(buffer.limit()).limit(buffer.capacity());
+        }
+        return sent;
+    }
+
+    /**
+     * @return amount of probes dropped because buffer was full
+     */
+    public long droppedProbes()
+    {
+        return droppedProbes;
+    }
+
+    /**
+     * Tries to send buffered probes for {@code closeTimeoutMillis} and closes connection
+     */
+    @Override
+    public void onClose()
+    {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(closeTimeoutMillis);
+        while (!flush() && System.nanoTime() - deadline < 0)
+        {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+
+        if (buffer.position() > 0 || droppedProbes > 0)
+            log.warn("Closed Graphite tailer of {}, unsent bytes: {}, dropped probes: {}", new String(path), buffer.position(), droppedProbes);
+
+        connection.disconnect();
+    }
+}
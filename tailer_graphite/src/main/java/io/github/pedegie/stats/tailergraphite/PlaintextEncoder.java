@@ -0,0 +1,66 @@
+package io.github.pedegie.stats.tailergraphite;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Encodes {@code path value timestamp\n} lines of Graphite plaintext protocol straight into {@link ByteBuffer},
+ * numbers are written digit by digit, so nothing is allocated
+ */
+final class PlaintextEncoder
+{
+    /**
+     * Space, {@code int} value with sign, space, seconds timestamp and new line
+     */
+    private static final int MAX_VALUES_LENGTH = 1 + 11 + 1 + 20 + 1;
+
+    private PlaintextEncoder()
+    {
+    }
+
+    static byte[] encodePath(String path)
+    {
+        return path.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    static int maxLineLength(byte[] path)
+    {
+        return path.length + MAX_VALUES_LENGTH;
+    }
+
+    static void putLine(ByteBuffer buffer, byte[] path, int value, long timestampMillis)
+    {
+        buffer.put(path);
+        buffer.put((byte) ' ');
+        putLong(buffer, value);
+        buffer.put((byte) ' ');
+        putLong(buffer, timestampMillis / 1000);
+        buffer.put((byte) '\n');
+    }
+
+    /**
+     * @param value {@code int} value or timestamp in seconds, so it's never {@link Long#MIN_VALUE}
+     */
+    static void putLong(ByteBuffer buffer, long value)
+    {
+        if (value < 0)
+        {
+            buffer.put((byte) '-');
+            value = -value;
+        }
+
+        int start = buffer.position();
+        do
+        {
+            buffer.put((byte) ('0' + value % 10));
+            value /= 10;
+        } while (value > 0);
+
+        for (int left = start, right = buffer.position() - 1; left < right; left++, right--)
+        {
+            byte digit = buffer.get(left);
+            buffer.put(left, buffer.get(right));
+            buffer.put(right, digit);
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package io.github.pedegie.stats.tailergraphite
+
+import io.github.pedegie.stats.api.queue.BusyWaiter
+import io.github.pedegie.stats.api.queue.FileUtils
+import io.github.pedegie.stats.api.queue.QueueConfiguration
+import io.github.pedegie.stats.api.queue.StatsQueue
+import io.github.pedegie.stats.api.queue.probe.ProbeHolder
+import io.github.pedegie.stats.api.tailer.ProbeTailer
+import io.github.pedegie.stats.api.tailer.TailerConfiguration
+import net.openhft.chronicle.core.OS
+import spock.lang.Specification
+
+import java.nio.ByteBuffer
+import java.nio.charset.StandardCharsets
+import java.nio.file.Path
+import java.nio.file.Paths
+import java.util.concurrent.ConcurrentLinkedQueue
+import java.util.concurrent.CopyOnWriteArrayList
+
+class GraphiteTailerTest extends Specification
+{
+    private static final Path PATH = Paths.get(System.getProperty("java.io.tmpdir").toString(), "stats_queue", "stats_queue.log")
+
+    def setup()
+    {
+        FileUtils.cleanDirectory(PATH.getParent())
+    }
+
+    def cleanupSpec()
+    {
+        FileUtils.cleanDirectory(PATH.getParent())
+    }
+
+    def "should send probes as plaintext lines"()
+    {
+        given:
+            GraphiteStandIn graphite = new GraphiteStandIn()
+            GraphiteTailer tailer = new GraphiteTailer(configuration(graphite.port).batchBytes(64).build())
+        when:
+            (0..9).each { tailer.onProbe(new ProbeHolder(it * 1000 - 5, 1_700_000_000_123L + it * 1000)) }
+            tailer.onClose()
+        then:
+            graphite.await(10)
+            graphite.lines == (0..9).collect { "app.queue.size ${it * 1000 - 5} ${1_700_000_000 + it}".toString() }
+            tailer.droppedProbes() == 0
+        cleanup:
+            graphite.close()
+    }
+
+    def "should buffer probes until Graphite is reachable"()
+    {
+        given:
+            int port = GraphiteStandIn.freePort()
+            GraphiteTailer tailer = new GraphiteTailer(configuration(port).batchBytes(32).reconnectDelayMillis(10).build())
+            GraphiteStandIn graphite
+        when:
+            (1..5).each { tailer.onProbe(new ProbeHolder(it, 1000L)) }
+            graphite = new GraphiteStandIn(port)
+            BusyWaiter.busyWaitMillis({ tailer.flush() }, 5000, "waiting for reconnect")
+        then:
+            graphite.await(5)
+            graphite.lines*.split(" ")*.getAt(1) == ["1", "2", "3", "4", "5"]
+        cleanup:
+            tailer.onClose()
+            graphite?.close()
+    }
+
+    def "should drop newer probes if buffer is full"()
+    {
+        given:
+            GraphiteTailer tailer = new GraphiteTailer(configuration(GraphiteStandIn.freePort())
+                    .batchBytes(32)
+                    .bufferBytes(128)
+                    .reconnectDelayMillis(60_000)
+                    .closeTimeoutMillis(10)
+                    .build())
+        when:
+            (1..100).each { tailer.onProbe(new ProbeHolder(it, 1000L)) }
+        then:
+            tailer.droppedProbes() > 90
+        cleanup:
+            tailer.onClose()
+    }
+
+    def "should keep buffered probes in order while Graphite is not reachable"()
+    {
+        given:
+            int port = GraphiteStandIn.freePort()
+            GraphiteTailer tailer = new GraphiteTailer(configuration(port).batchBytes(1).reconnectDelayMillis(10).build())
+            GraphiteStandIn graphite
+        when: "every append flushes without sending anything"
+            (1..50).each { tailer.onProbe(new ProbeHolder(it, 1000L)) }
+            graphite = new GraphiteStandIn(port)
+            BusyWaiter.busyWaitMillis({ tailer.flush() }, 5000, "waiting for reconnect")
+        then:
+            graphite.await(50)
+            graphite.lines*.split(" ")*.getAt(1)*.toInteger() == (1..50).toList()
+        cleanup:
+            tailer.onClose()
+            graphite?.close()
+    }
+
+    def "should skip rest of line partially sent to lost connection"()
+    {
+        given:
+            ByteBuffer buffer = ByteBuffer.wrap("size 1 100\nsize 2 100\n".getBytes(StandardCharsets.US_ASCII))
+            buffer.position(3)
+        when:
+            GraphiteConnection.skipRestOfLine(buffer)
+        then:
+            StandardCharsets.US_ASCII.decode(buffer).toString() == "size 2 100\n"
+    }
+
+    def "should push probes read by ProbeTailer"()
+    {
+        given:
+            GraphiteStandIn graphite = new GraphiteStandIn()
+            StatsQueue<Integer> queue = StatsQueue.queue(new ConcurrentLinkedQueue<Integer>(), QueueConfiguration.builder()
+                    .path(PATH)
+                    .mmapSize(OS.pageSize())
+                    .build())
+            (1..20).each { queue.add(it) }
+            queue.close()
+            ProbeTailer probeTailer = ProbeTailer.from(TailerConfiguration.builder()
+                    .batchTailer(new GraphiteTailer(configuration(graphite.port).build()))
+                    .path(PATH)
+                    .build())
+        when:
+            probeTailer.read()
+            probeTailer.close()
+        then:
+            graphite.await(21)
+            graphite.lines.every { it.startsWith("app.queue.size ") }
+            graphite.lines*.split(" ")*.getAt(1)*.toInteger() == (1..20).toList() + [20]
+        cleanup:
+            graphite.close()
+    }
+
+    def "should throw an exception if configuration is wrong"()
+    {
+        when:
+            new GraphiteTailer(builder.build())
+        then:
+            thrown(IllegalArgumentException)
+        where:
+            builder << [
+                    GraphiteConfiguration.builder().path("app.queue.size"),
+                    configuration(2003).batchBytes(0),
+                    configuration(2003).batchBytes(1024).bufferBytes(512),
+                    configuration(2003).bufferBytes(10)]
+    }
+
+    private static GraphiteConfiguration.GraphiteConfigurationBuilder configuration(int port)
+    {
+        return GraphiteConfiguration.builder()
+                .address(new InetSocketAddress("localhost", port))
+                .path("app.queue.size")
+    }
+
+    /**
+     * Local stand-in of Graphite plaintext listener collecting received lines
+     */
+    private static class GraphiteStandIn implements Closeable
+    {
+        ServerSocket serverSocket
+        List<String> lines = new CopyOnWriteArrayList<>()
+        Thread acceptor
+
+        GraphiteStandIn(int port = 0)
+        {
+            serverSocket = new ServerSocket(port)
+            acceptor = Thread.start {
+                while (!serverSocket.isClosed())
+                {
+                    try
+                    {
+                        Socket socket = serverSocket.accept()
+                        Thread.start { socket.withCloseable { it.inputStream.eachLine { lines.add(it) } } }
+                    } catch (IOException ignored)
+                    {
+                    }
+                }
+            }
+        }
+
+        int getPort()
+        {
+            return serverSocket.localPort
+        }
+
+        boolean await(int expectedLines)
+        {
+            return BusyWaiter.busyWaitMillis({ lines.size() >= expectedLines }, 5000, "waiting for " + expectedLines + " lines")
+        }
+
+        static int freePort()
+        {
+            return new ServerSocket(0).withCloseable { it.localPort }
+        }
+
+        @Override
+        void close()
+        {
+            serverSocket.close()
+        }
+    }
+}
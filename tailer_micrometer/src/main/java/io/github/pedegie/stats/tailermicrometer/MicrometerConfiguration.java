@@ -0,0 +1,36 @@
+package io.github.pedegie.stats.tailermicrometer;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import lombok.AccessLevel;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.With;
+import lombok.experimental.FieldDefaults;
+
+@Builder
+@Getter
+@FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+@With
+public class MicrometerConfiguration
+{
+    MeterRegistry registry;
+    /**
+     * Name of source, gauge of the latest probe is registered under it and distribution summary under
+     * {@code name.distribution}
+     */
+    String name;
+    @Builder.Default
+    Iterable<Tag> tags = Tags.empty();
+    /**
+     * Publishes histogram buckets of distribution summary, for registries which aggregate percentiles server-side
+     */
+    @Builder.Default
+    boolean publishPercentileHistogram = false;
+    /**
+     * Percentiles computed client-side, e.g. {@code 0.5, 0.99}
+     */
+    @Builder.Default
+    double[] percentiles = new double[0];
+}
@@ -0,0 +1,85 @@
+package io.github.pedegie.stats.tailermicrometer;
+
+import io.github.pedegie.stats.api.queue.probe.Probe;
+import io.github.pedegie.stats.api.tailer.BatchTailer;
+import io.github.pedegie.stats.api.tailer.ProbeBatch;
+import io.github.pedegie.stats.api.tailer.Tailer;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+
+/**
+ * Bridges probes of single source to Micrometer. Registers gauge of the latest probe and {@link DistributionSummary}
+ * of all probes, which gives count, total, max and optionally percentiles of collection size between publishes of
+ * {@link MeterRegistry}.
+ * <p>
+ * The latest count is kept in primitive volatile field read by gauge, and summary records primitive {@code double}
+ * into lock-free accumulators of Micrometer, so nothing is boxed per probe. Meters are removed from registry when
+ * {@code ProbeTailer} is closed.
+ */
+@FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+public class MicrometerTailer implements Tailer, BatchTailer
+{
+    MeterRegistry registry;
+    Gauge gauge;
+    DistributionSummary summary;
+
+    @NonFinal
+    volatile int last;
+
+    public MicrometerTailer(MicrometerConfiguration configuration)
+    {
+        if (configuration.getRegistry() == null || configuration.getName() == null || configuration.getName().isBlank())
+            throw new IllegalArgumentException("Wrong configuration of " + MicrometerConfiguration.class.getName() + "\n" +
+                    "registry and name have to be set");
+
+        this.registry = configuration.getRegistry();
+        this.gauge = Gauge.builder(configuration.getName(), this, MicrometerTailer::last)
+                .tags(configuration.getTags())
+                .description("collection size")
+                .strongReference(true)
+                .register(registry);
+        this.summary = DistributionSummary.builder(configuration.getName() + ".distribution")
+                .tags(configuration.getTags())
+                .description("distribution of collection size")
+                .publishPercentileHistogram(configuration.isPublishPercentileHistogram())
+                .publishPercentiles(configuration.getPercentiles())
+                .register(registry);
+    }
+
+    @Override
+    public void onProbe(Probe probe)
+    {
+        record(probe.getCount());
+    }
+
+    @Override
+    public void onBatch(ProbeBatch batch)
+    {
+        for (int i = 0; i < batch.size(); i++)
+        {
+            record(batch.count(i));
+        }
+    }
+
+    private void record(int count)
+    {
+        summary.record(count);
+        last = count;
+    }
+
+    private double last()
+    {
+        return last;
+    }
+
+    @Override
+    public void onClose()
+    {
+        registry.remove(gauge);
+        registry.remove(summary);
+    }
+}
@@ -0,0 +1,93 @@
+package io.github.pedegie.stats.tailermicrometer
+
+import io.github.pedegie.stats.api.queue.FileUtils
+import io.github.pedegie.stats.api.queue.QueueConfiguration
+import io.github.pedegie.stats.api.queue.StatsQueue
+import io.github.pedegie.stats.api.queue.probe.ProbeHolder
+import io.github.pedegie.stats.api.tailer.ProbeTailer
+import io.github.pedegie.stats.api.tailer.TailerConfiguration
+import io.micrometer.core.instrument.DistributionSummary
+import io.micrometer.core.instrument.Gauge
+import io.micrometer.core.instrument.Tags
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import net.openhft.chronicle.core.OS
+import spock.lang.Specification
+
+import java.nio.file.Path
+import java.nio.file.Paths
+import java.util.concurrent.ConcurrentLinkedQueue
+
+class MicrometerTailerTest extends Specification
+{
+    private static final Path PATH = Paths.get(System.getProperty("java.io.tmpdir").toString(), "stats_queue", "stats_queue.log")
+
+    SimpleMeterRegistry registry = new SimpleMeterRegistry()
+
+    def setup()
+    {
+        FileUtils.cleanDirectory(PATH.getParent())
+    }
+
+    def cleanupSpec()
+    {
+        FileUtils.cleanDirectory(PATH.getParent())
+    }
+
+    def "should update gauge and distribution summary"()
+    {
+        given:
+            MicrometerTailer tailer = new MicrometerTailer(configuration().tags(Tags.of("queue", "orders")).build())
+        when:
+            [10, 95_000, 3, 7].each { tailer.onProbe(new ProbeHolder(it, 0L)) }
+            Gauge gauge = registry.get("queue.size").tags("queue", "orders").gauge()
+            DistributionSummary summary = registry.get("queue.size.distribution").tags("queue", "orders").summary()
+        then:
+            gauge.value() == 7
+            summary.count() == 4
+            summary.totalAmount() == 95_020
+            summary.max() == 95_000
+    }
+
+    def "should remove meters when ProbeTailer is closed"()
+    {
+        given:
+            StatsQueue<Integer> queue = StatsQueue.queue(new ConcurrentLinkedQueue<Integer>(), QueueConfiguration.builder()
+                    .path(PATH)
+                    .mmapSize(OS.pageSize())
+                    .build())
+            (1..20).each { queue.add(it) }
+            queue.close()
+            ProbeTailer probeTailer = ProbeTailer.from(TailerConfiguration.builder()
+                    .batchTailer(new MicrometerTailer(configuration().build()))
+                    .path(PATH)
+                    .build())
+        when:
+            probeTailer.read()
+        then:
+            registry.get("queue.size").gauge().value() == 20
+            registry.get("queue.size.distribution").summary().count() == 21
+        when:
+            probeTailer.close()
+        then:
+            registry.meters.isEmpty()
+    }
+
+    def "should throw an exception if registry or name is not set"()
+    {
+        when:
+            new MicrometerTailer(builder.build())
+        then:
+            thrown(IllegalArgumentException)
+        where:
+            builder << [
+                    MicrometerConfiguration.builder().name("queue.size"),
+                    MicrometerConfiguration.builder().registry(new SimpleMeterRegistry())]
+    }
+
+    private MicrometerConfiguration.MicrometerConfigurationBuilder configuration()
+    {
+        return MicrometerConfiguration.builder()
+                .registry(registry)
+                .name("queue.size")
+    }
+}
@@ -0,0 +1,17 @@
+package io.github.pedegie.stats.tailerprometheus;
+
+/**
+ * What {@link PrometheusTailer} exports for single source
+ */
+public enum ExportMode
+{
+    /**
+     * Gauge of the latest probe. Probes read between scrapes are not visible
+     */
+    LAST_VALUE,
+    /**
+     * Gauge of the latest probe, gauges of min and max of current and previous fixed window and histogram of all
+     * probes, so peaks between scrapes are visible without scraping more often, to any amount of scrapers
+     */
+    PEAKS
+}
@@ -0,0 +1,248 @@
+package io.github.pedegie.stats.tailerprometheus;
+
+import io.github.pedegie.stats.api.queue.probe.Probe;
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+
+/**
+ * Exports {@link ExportMode#PEAKS}. {@link #onProbe(Probe)} is invoked by single thread of {@code ProbeTailer} and
+ * {@link #collect()} by scraping ones, they share only atomic fields, so nothing is locked. Min and max are exported
+ * over current and previous fixed window of {@code windowMillis}, scrapes don't reset them, so every scraper which
+ * scrapes at least once per window sees every peak, no matter how many scrapers there are. Histogram is cumulative,
+ * as Prometheus expects from its buckets, count and sum.
+ */
+@FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+class PeaksPrometheusTailer extends SourceCollector
+{
+    static final long DEFAULT_WINDOW_MILLIS = 60_000;
+    static final double[] DEFAULT_BUCKETS = {0, 1, 2, 5, 10, 20, 50, 100, 200, 500, 1_000, 2_000, 5_000, 10_000,
+            20_000, 50_000, 100_000, 200_000, 500_000, 1_000_000};
+
+    private static final String HELP = "collection size";
+    private static final String MIN_HELP = "min collection size of current and previous window";
+    private static final String MAX_HELP = "max collection size of current and previous window";
+    private static final long NO_PEAKS = peaks(Integer.MAX_VALUE, Integer.MIN_VALUE);
+    private static final String HISTOGRAM_HELP = "distribution of collection size";
+    private static final List<String> LE = singletonList("le");
+
+    String source;
+    String minName;
+    String maxName;
+    String histogramName;
+    String bucketName;
+    String countName;
+    String sumName;
+    Runnable onClose;
+    LongSupplier clock;
+    long windowMillis;
+    double[] buckets;
+    /**
+     * {@code le} label value of each bucket, the last one is {@code +Inf}
+     */
+    List<List<String>> bucketLabelValues;
+
+    AtomicInteger last = new AtomicInteger();
+    AtomicInteger min = new AtomicInteger(Integer.MAX_VALUE);
+    AtomicInteger max = new AtomicInteger(Integer.MIN_VALUE);
+    /**
+     * Min and max of previous window packed into single {@code long}, so scrape never sees them from different windows
+     */
+    AtomicLong previousPeaks = new AtomicLong(NO_PEAKS);
+    AtomicLong windowEnd;
+    AtomicLongArray bucketCounts;
+    AtomicLong probes = new AtomicLong();
+    AtomicLong sum = new AtomicLong();
+
+    @NonFinal
+    volatile MetricFamilySamples lastFamily;
+    @NonFinal
+    volatile MetricFamilySamples minFamily;
+    @NonFinal
+    volatile MetricFamilySamples maxFamily;
+    @NonFinal
+    volatile MetricFamilySamples histogramFamily;
+
+    PeaksPrometheusTailer(String source, Runnable onClose, double[] buckets, long windowMillis)
+    {
+        this(source, onClose, buckets, windowMillis, System::currentTimeMillis);
+    }
+
+    PeaksPrometheusTailer(String source, Runnable onClose, double[] buckets, long windowMillis, LongSupplier clock)
+    {
+        this.source = source;
+        this.minName = source + "_min";
+        this.maxName = source + "_max";
+        this.histogramName = source + "_distribution";
+        this.bucketName = histogramName + "_bucket";
+        this.countName = histogramName + "_count";
+        this.sumName = histogramName + "_sum";
+        this.onClose = onClose;
+        this.clock = clock;
+        this.windowMillis = windowMillis;
+        this.windowEnd = new AtomicLong(clock.getAsLong() + windowMillis);
+        this.buckets = buckets.clone();
+        this.bucketLabelValues = new ArrayList<>(buckets.length + 1);
+        for (double bucket : buckets)
+        {
+            bucketLabelValues.add(singletonList(doubleToGoString(bucket)));
+        }
+        bucketLabelValues.add(singletonList("+Inf"));
+        this.bucketCounts = new AtomicLongArray(buckets.length + 1);
+    }
+
+    /**
+     * Bucket counts and sum are written only by this thread, so their increments don't need CAS. Min and max are
+     * moved to previous window by {@link #collect()} concurrently. Amount of probes is written last, histogram is rebuilt only when it
+     * changes.
+     */
+    @Override
+    public void onProbe(Probe probe)
+    {
+        int count = probe.getCount();
+        last.lazySet(count);
+        min.accumulateAndGet(count, Math::min);
+        max.accumulateAndGet(count, Math::max);
+        int bucket = bucket(count);
+        bucketCounts.lazySet(bucket, bucketCounts.get(bucket) + 1);
+        sum.lazySet(sum.get() + count);
+        probes.set(probes.get() + 1);
+    }
+
+    private int bucket(int count)
+    {
+        int bucket = 0;
+        while (bucket < buckets.length && count > buckets[bucket])
+        {
+            bucket++;
+        }
+        return bucket;
+    }
+
+    @Override
+    void collectInto(List<MetricFamilySamples> families)
+    {
+        refresh();
+        families.add(lastFamily);
+        families.add(minFamily);
+        families.add(maxFamily);
+        families.add(histogramFamily);
+    }
+
+    /**
+     * Writes atomic fields straight away, without refreshing cached families
+     */
+    @Override
+    void writeTextFormat(StringBuilder out)
+    {
+        int lastValue = last.get();
+        long peaks = currentPeaks(lastValue);
+        writeGauge(out, source, HELP, lastValue);
+        writeGauge(out, minName, MIN_HELP, minOf(peaks));
+        writeGauge(out, maxName, MAX_HELP, maxOf(peaks));
+
+        writeHeader(out, histogramName, HISTOGRAM_HELP, "histogram");
+        long cumulative = 0;
+        for (int i = 0; i < bucketLabelValues.size(); i++)
+        {
+            cumulative += bucketCounts.get(i);
+            out.append(bucketName).append("{le=\"").append(bucketLabelValues.get(i).get(0)).append("\"} ")
+                    .append(cumulative).append('\n');
+        }
+        out.append(countName).append(' ').append(cumulative).append('\n');
+        out.append(sumName).append(' ').append(sum.get()).append('\n');
+    }
+
+    private void refresh()
+    {
+        long probesValue = probes.get();
+        int lastValue = last.get();
+        long peaks = currentPeaks(lastValue);
+
+        lastFamily = gauge(lastFamily, source, HELP, lastValue);
+        minFamily = gauge(minFamily, minName, MIN_HELP, minOf(peaks));
+        maxFamily = gauge(maxFamily, maxName, MAX_HELP, maxOf(peaks));
+        MetricFamilySamples histogram = histogramFamily;
+        if (histogram == null || histogram.samples.get(bucketLabelValues.size()).value != probesValue)
+            histogramFamily = histogram();
+    }
+
+    /**
+     * @return min and max of current and previous window packed by {@link #peaks(int, int)}
+     */
+    private long currentPeaks(int lastValue)
+    {
+        rollWindow();
+        long previous = previousPeaks.get();
+        int minValue = Math.min(min.get(), minOf(previous));
+        int maxValue = Math.max(max.get(), maxOf(previous));
+        if (minValue > maxValue)
+        {
+            // no probes during current and previous window, size didn't change
+            return peaks(lastValue, lastValue);
+        }
+        return peaks(minValue, maxValue);
+    }
+
+    /**
+     * The first scrape after window ends moves its min and max to previous window, concurrent scrapes lose CAS and
+     * export both windows as they are. Probe read between the two swaps counts in one of the windows, which are
+     * exported together anyway
+     */
+    private void rollWindow()
+    {
+        long now = clock.getAsLong();
+        long end = windowEnd.get();
+        if (now < end || !windowEnd.compareAndSet(end, now - (now - end) % windowMillis + windowMillis))
+            return;
+
+        int minValue = min.getAndSet(Integer.MAX_VALUE);
+        int maxValue = max.getAndSet(Integer.MIN_VALUE);
+        previousPeaks.set(peaks(minValue, maxValue));
+    }
+
+    private static long peaks(int min, int max)
+    {
+        return ((long) max << 32) | (min & 0xFFFF_FFFFL);
+    }
+
+    private static int minOf(long peaks)
+    {
+        return (int) peaks;
+    }
+
+    private static int maxOf(long peaks)
+    {
+        return (int) (peaks >>> 32);
+    }
+
+    private MetricFamilySamples histogram()
+    {
+        List<MetricFamilySamples.Sample> samples = new ArrayList<>(bucketLabelValues.size() + 2);
+        long cumulative = 0;
+        for (int i = 0; i < bucketLabelValues.size(); i++)
+        {
+            cumulative += bucketCounts.get(i);
+            samples.add(new MetricFamilySamples.Sample(bucketName, LE, bucketLabelValues.get(i), cumulative));
+        }
+        samples.add(new MetricFamilySamples.Sample(countName, emptyList(), emptyList(), cumulative));
+        samples.add(new MetricFamilySamples.Sample(sumName, emptyList(), emptyList(), sum.get()));
+        return new MetricFamilySamples(histogramName, Type.HISTOGRAM, HISTOGRAM_HELP, samples);
+    }
+
+    @Override
+    public void onClose()
+    {
+        onClose.run();
+    }
+}
@@ -5,23 +5,45 @@ import io.prometheus.client.Collector;
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
 
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 public class PrometheusTailer extends Collector
 {
     public static final PrometheusTailer COLLECTOR = new PrometheusTailer();
 
-    private final ConcurrentHashMap<String, SinglePrometheusTailer> tailers = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, SourceCollector> tailers = new ConcurrentHashMap<>();
 
+    /**
+     * Families of sources which didn't change since previous scrape are reused, so only returned list is allocated
+     * for idle sources
+     */
     @Override
     public List<MetricFamilySamples> collect()
     {
-        return tailers.values().stream()
-                .flatMap(tailer -> tailer.collect().stream())
-                .collect(Collectors.toList());
+        List<MetricFamilySamples> families = new ArrayList<>(tailers.size());
+        for (SourceCollector tailer : tailers.values())
+        {
+            tailer.collectInto(families);
+        }
+        return families;
+    }
+
+    /**
+     * Renders all sources in Prometheus text exposition format (version 0.0.4) directly into {@code out}, for
+     * exposing metrics by own HTTP handler without {@code CollectorRegistry}. Reuse {@code out} between scrapes,
+     * clearing it by {@code setLength(0)}, to avoid garbage
+     *
+     * @param out buffer to append to
+     */
+    public void writeTextFormat(StringBuilder out)
+    {
+        for (SourceCollector tailer : tailers.values())
+        {
+            tailer.writeTextFormat(out);
+        }
     }
 
     public Tailer newTailer(String source)
@@ -31,7 +53,59 @@ public class PrometheusTailer extends Collector
 
     public Tailer newTailer(String source, boolean generateTimestampOnRequestReceive)
     {
-        SinglePrometheusTailer tailer = new SinglePrometheusTailer(source, () -> tailers.remove(source), generateTimestampOnRequestReceive);
+        return register(source, new SinglePrometheusTailer(source, () -> tailers.remove(source), generateTimestampOnRequestReceive));
+    }
+
+    /**
+     * @param source name of exported metric, {@link ExportMode#PEAKS} exports also {@code source_min},
+     *               {@code source_max} and {@code source_distribution} histogram
+     * @param mode   what is exported
+     * @return {@code Tailer} of {@code source}
+     */
+    public Tailer newTailer(String source, ExportMode mode)
+    {
+        if (mode == ExportMode.LAST_VALUE)
+            return newTailer(source);
+
+        return newTailer(source, PeaksPrometheusTailer.DEFAULT_BUCKETS);
+    }
+
+    /**
+     * {@link ExportMode#PEAKS} tailer with custom histogram buckets and default window of min and max, one minute
+     *
+     * @param source  name of exported metric
+     * @param buckets ascending upper bounds of histogram buckets, {@code +Inf} is added
+     * @return {@code Tailer} of {@code source}
+     */
+    public Tailer newTailer(String source, double[] buckets)
+    {
+        return newTailer(source, buckets, PeaksPrometheusTailer.DEFAULT_WINDOW_MILLIS);
+    }
+
+    /**
+     * {@link ExportMode#PEAKS} tailer with custom histogram buckets and window of min and max
+     *
+     * @param source       name of exported metric
+     * @param buckets      ascending upper bounds of histogram buckets, {@code +Inf} is added
+     * @param windowMillis min and max are exported over current and previous window of this length, it has to be at
+     *                     least scrape interval of the slowest scraper, otherwise peaks between its scrapes are lost
+     * @return {@code Tailer} of {@code source}
+     */
+    public Tailer newTailer(String source, double[] buckets, long windowMillis)
+    {
+        if (windowMillis < 1)
+            throw new IllegalArgumentException("Window of min and max has to be positive");
+
+        for (int i = 1; i < buckets.length; i++)
+        {
+            if (buckets[i] <= buckets[i - 1])
+                throw new IllegalArgumentException("Histogram buckets have to be in ascending order");
+        }
+        return register(source, new PeaksPrometheusTailer(source, () -> tailers.remove(source), buckets, windowMillis));
+    }
+
+    private Tailer register(String source, SourceCollector tailer)
+    {
         if (tailers.putIfAbsent(source, tailer) != null)
             throw new IllegalStateException("Source '" + source + "' already exists.");
 
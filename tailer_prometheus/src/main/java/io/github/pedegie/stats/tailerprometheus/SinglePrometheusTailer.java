@@ -1,48 +1,99 @@
 package io.github.pedegie.stats.tailerprometheus;
 
 import io.github.pedegie.stats.api.queue.probe.Probe;
-import io.github.pedegie.stats.api.tailer.Tailer;
-import io.prometheus.client.Collector;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
 import lombok.experimental.NonFinal;
-import org.jetbrains.annotations.NotNull;
 
-import java.util.Collections;
 import java.util.List;
 
-import static java.util.Collections.emptyList;
-import static java.util.Collections.singletonList;
-
+/**
+ * Latest probe is kept in primitive fields guarded by sequence number, odd while {@link #onProbe(Probe)} writes
+ * them, so reading a probe doesn't allocate and scrape never sees count of one probe with timestamp of another.
+ * With {@code generateTimestampOnRequestReceive} timestamp is taken when probe is read, not when it's scraped
+ */
 @RequiredArgsConstructor
 @FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
-class SinglePrometheusTailer extends Collector implements Tailer
+class SinglePrometheusTailer extends SourceCollector
 {
-    @NonFinal
-    volatile MetricFamilySamples.Sample sample;
+    private static final String HELP = "collection size";
+
     String source;
     Runnable onClose;
     boolean generateTimestampOnRequestReceive;
 
+    @NonFinal
+    volatile int sequence;
+    @NonFinal
+    volatile int count;
+    @NonFinal
+    volatile long timestamp = -1;
+    @NonFinal
+    volatile MetricFamilySamples family;
+
     @Override
     public void onProbe(Probe probe)
     {
-        var timestamp = generateTimestampOnRequestReceive ? System.currentTimeMillis() : probe.getTimestamp();
-        sample = createSample(probe.getCount(), timestamp);
+        sequence++;
+        count = probe.getCount();
+        timestamp = generateTimestampOnRequestReceive ? System.currentTimeMillis() : probe.getTimestamp();
+        sequence++;
+    }
+
+    @Override
+    void collectInto(List<MetricFamilySamples> families)
+    {
+        families.add(refresh());
     }
 
+    /**
+     * Writes the fields straight away, without refreshing cached family
+     */
     @Override
-    public List<MetricFamilySamples> collect()
+    void writeTextFormat(StringBuilder out)
+    {
+        int readCount;
+        long readTimestamp;
+        int readSequence;
+        do
+        {
+            readSequence = sequence;
+            readCount = count;
+            readTimestamp = timestamp;
+        } while (!consistent(readSequence));
+
+        writeGauge(out, source, HELP, readCount, timestampOrNow(readTimestamp));
+    }
+
+    private MetricFamilySamples refresh()
+    {
+        int readCount;
+        long readTimestamp;
+        int readSequence;
+        do
+        {
+            readSequence = sequence;
+            readCount = count;
+            readTimestamp = timestamp;
+        } while (!consistent(readSequence));
+
+        MetricFamilySamples refreshed = gauge(family, source, HELP, readCount, timestampOrNow(readTimestamp));
+        family = refreshed;
+        return refreshed;
+    }
+
+    /**
+     * @return true if fields read since {@code readSequence} weren't written meanwhile
+     */
+    private boolean consistent(int readSequence)
     {
-        var sampleToReturn = sample == null ? createSample(0, System.currentTimeMillis()) : sample;
-        return Collections.singletonList(new Collector.MetricFamilySamples(source, Type.GAUGE, "collection size", singletonList(sampleToReturn)));
+        return (readSequence & 1) == 0 && readSequence == sequence;
     }
 
-    @NotNull
-    private MetricFamilySamples.Sample createSample(int count, long time)
+    private static long timestampOrNow(long timestamp)
     {
-        return new MetricFamilySamples.Sample(source, emptyList(), emptyList(), count, time);
+        return timestamp == -1 ? System.currentTimeMillis() : timestamp;
     }
 
     @Override
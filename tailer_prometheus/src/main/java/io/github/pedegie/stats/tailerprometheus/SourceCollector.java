@@ -0,0 +1,91 @@
+package io.github.pedegie.stats.tailerprometheus;
+
+import io.github.pedegie.stats.api.tailer.Tailer;
+import io.prometheus.client.Collector;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+
+/**
+ * {@link Tailer} of single source registered in {@link PrometheusTailer}. Families whose values didn't change since
+ * previous scrape are returned again instead of allocating new ones, so scraping thousands of mostly idle sources
+ * doesn't produce garbage
+ */
+abstract class SourceCollector extends Collector implements Tailer
+{
+    /**
+     * Adds families of this source to {@code families}, it's invoked by scraping thread
+     */
+    abstract void collectInto(List<MetricFamilySamples> families);
+
+    /**
+     * Renders families of this source in Prometheus text exposition format
+     */
+    abstract void writeTextFormat(StringBuilder out);
+
+    @Override
+    public List<MetricFamilySamples> collect()
+    {
+        List<MetricFamilySamples> families = new ArrayList<>(4);
+        collectInto(families);
+        return families;
+    }
+
+    /**
+     * @return {@code cached} if it's gauge of the same value and timestamp, new family otherwise
+     */
+    static MetricFamilySamples gauge(MetricFamilySamples cached, String name, String help, double value, long timestamp)
+    {
+        if (cached != null)
+        {
+            MetricFamilySamples.Sample sample = cached.samples.get(0);
+            if (sample.value == value && sample.timestampMs != null && sample.timestampMs == timestamp)
+                return cached;
+        }
+
+        return new MetricFamilySamples(name, Type.GAUGE, help,
+                singletonList(new MetricFamilySamples.Sample(name, emptyList(), emptyList(), value, timestamp)));
+    }
+
+    /**
+     * Same as {@link #gauge(MetricFamilySamples, String, String, double, long)} for sample without timestamp
+     */
+    static MetricFamilySamples gauge(MetricFamilySamples cached, String name, String help, double value)
+    {
+        if (cached != null && cached.samples.get(0).value == value)
+            return cached;
+
+        return new MetricFamilySamples(name, Type.GAUGE, help,
+                singletonList(new MetricFamilySamples.Sample(name, emptyList(), emptyList(), value)));
+    }
+
+    /**
+     * Appends {@code HELP} and {@code TYPE} lines of family in text exposition format
+     */
+    static void writeHeader(StringBuilder out, String name, String help, String type)
+    {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    /**
+     * Appends gauge family of single sample, straight from primitive value, so nothing is allocated
+     */
+    static void writeGauge(StringBuilder out, String name, String help, long value)
+    {
+        writeHeader(out, name, help, "gauge");
+        out.append(name).append(' ').append(value).append('\n');
+    }
+
+    /**
+     * Same as {@link #writeGauge(StringBuilder, String, String, long)} for sample with timestamp
+     */
+    static void writeGauge(StringBuilder out, String name, String help, long value, long timestamp)
+    {
+        writeHeader(out, name, help, "gauge");
+        out.append(name).append(' ').append(value).append(' ').append(timestamp).append('\n');
+    }
+}
@@ -1,11 +1,15 @@
 package io.github.pedegie.stats.tailerprometheus
 
+import io.github.pedegie.stats.api.queue.probe.ProbeHolder
 import io.github.pedegie.stats.api.tailer.ProbeTailer
+import io.github.pedegie.stats.api.tailer.Tailer
 import io.github.pedegie.stats.api.tailer.TailerConfiguration
+import io.prometheus.client.Collector
 import spock.lang.Specification
 
 import java.nio.file.Path
 import java.nio.file.Paths
+import java.util.function.LongSupplier
 
 class PrometheusTailerTest extends Specification
 {
@@ -37,4 +41,179 @@ class PrometheusTailerTest extends Specification
         then:
             thrown(IllegalStateException)
     }
+
+    def "should export timestamp of written probe"()
+    {
+        given:
+            SinglePrometheusTailer tailer = new SinglePrometheusTailer("written_source", {}, false)
+        when:
+            tailer.onProbe(new ProbeHolder(5, 1000L))
+        then:
+            tailer.collect()[0].samples[0].timestampMs == 1000L
+    }
+
+    def "should export timestamp of reading probe if it's generated on request receive"()
+    {
+        given:
+            SinglePrometheusTailer tailer = new SinglePrometheusTailer("read_source", {}, true)
+        when:
+            long before = System.currentTimeMillis()
+            tailer.onProbe(new ProbeHolder(5, 1000L))
+            long after = System.currentTimeMillis()
+            long firstScrape = tailer.collect()[0].samples[0].timestampMs
+            sleep(20)
+            long secondScrape = tailer.collect()[0].samples[0].timestampMs
+        then: "it's not a time of scrape"
+            firstScrape >= before && firstScrape <= after
+            secondScrape == firstScrape
+    }
+
+    def "should export min and max of current and previous window to every scraper"()
+    {
+        given:
+            long now = 0
+            PeaksPrometheusTailer tailer = new PeaksPrometheusTailer("window_source", {}, PeaksPrometheusTailer.DEFAULT_BUCKETS,
+                    100, { now } as LongSupplier)
+        when:
+            [10, 95_000, 3, 7].each { tailer.onProbe(new ProbeHolder(it, 0L)) }
+            Map<String, Double> firstScraper = samples(tailer)
+            Map<String, Double> secondScraper = samples(tailer)
+            now = 150
+            Map<String, Double> nextWindow = samples(tailer)
+            now = 250
+            Map<String, Double> windowAfterNext = samples(tailer)
+        then: "scrapes don't reset peaks within window"
+            [firstScraper, secondScraper, nextWindow].every {
+                it["window_source"] == 7 && it["window_source_min"] == 3 && it["window_source_max"] == 95_000
+            }
+            windowAfterNext["window_source_min"] == 7
+            windowAfterNext["window_source_max"] == 7
+    }
+
+    def "should export min and max of probes read after scrape together with previous ones"()
+    {
+        given:
+            String source = "peaks_source"
+            Tailer tailer = PrometheusTailer.COLLECTOR.newTailer(source, ExportMode.PEAKS)
+        when:
+            [10, 95_000, 3, 7].each { tailer.onProbe(new ProbeHolder(it, 0L)) }
+            Map<String, Double> firstScrape = samples(source)
+            tailer.onProbe(new ProbeHolder(1, 0L))
+            Map<String, Double> secondScrape = samples(source)
+        then:
+            firstScrape[source] == 7
+            firstScrape[source + "_min"] == 3
+            firstScrape[source + "_max"] == 95_000
+            secondScrape[source] == 1
+            secondScrape[source + "_min"] == 1
+            secondScrape[source + "_max"] == 95_000
+        cleanup:
+            PrometheusTailer.COLLECTOR.removeTailer(source)
+    }
+
+    def "should throw an exception if window is not positive"()
+    {
+        when:
+            PrometheusTailer.COLLECTOR.newTailer("no_window_source", PeaksPrometheusTailer.DEFAULT_BUCKETS, 0)
+        then:
+            thrown(IllegalArgumentException)
+    }
+
+    def "should export cumulative histogram"()
+    {
+        given:
+            String source = "histogram_source"
+            Tailer tailer = PrometheusTailer.COLLECTOR.newTailer(source, [10d, 100d] as double[])
+        when:
+            [5, 10, 50, 500].each { tailer.onProbe(new ProbeHolder(it, 0L)) }
+            samples(source)
+            tailer.onProbe(new ProbeHolder(1, 0L))
+            Collector.MetricFamilySamples histogram = PrometheusTailer.COLLECTOR.collect().find { it.name == source + "_distribution" }
+        then:
+            histogram.type == Collector.Type.HISTOGRAM
+            histogram.samples.collect { it.name + it.labelValues } == [
+                    source + "_distribution_bucket[10.0]",
+                    source + "_distribution_bucket[100.0]",
+                    source + "_distribution_bucket[+Inf]",
+                    source + "_distribution_count[]",
+                    source + "_distribution_sum[]"]
+            histogram.samples*.value == [3d, 4d, 5d, 5d, 566d]
+        cleanup:
+            PrometheusTailer.COLLECTOR.removeTailer(source)
+    }
+
+    def "should throw an exception if histogram buckets are not ascending"()
+    {
+        when:
+            PrometheusTailer.COLLECTOR.newTailer("unordered_source", [10d, 10d] as double[])
+        then:
+            thrown(IllegalArgumentException)
+    }
+
+    def "should reuse families of sources which did not change since previous scrape"()
+    {
+        given:
+            PrometheusTailer collector = new PrometheusTailer() {}
+            Tailer idle = collector.newTailer("idle", mode)
+            Tailer changing = collector.newTailer("changing", mode)
+            idle.onProbe(new ProbeHolder(5, 1000L))
+            changing.onProbe(new ProbeHolder(5, 1000L))
+            List<Collector.MetricFamilySamples> first = collector.collect()
+            changing.onProbe(new ProbeHolder(6, 2000L))
+        when:
+            List<Collector.MetricFamilySamples> second = collector.collect()
+        then:
+            first.findAll { it.name.startsWith("idle") }.every { family -> second.any { it.is(family) } }
+            first.findAll { it.name == "changing" }.every { family -> !second.any { it.is(family) } }
+        where:
+            mode << [ExportMode.LAST_VALUE, ExportMode.PEAKS]
+    }
+
+    def "should render text exposition format"()
+    {
+        given:
+            PrometheusTailer collector = new PrometheusTailer() {}
+            collector.newTailer("text_source").onProbe(new ProbeHolder(7, 1000L))
+            StringBuilder out = new StringBuilder()
+        when:
+            collector.writeTextFormat(out)
+        then:
+            out.toString() == "# HELP text_source collection size\n" +
+                    "# TYPE text_source gauge\n" +
+                    "text_source 7 1000\n"
+    }
+
+    def "should render peaks in text exposition format same as collected families"()
+    {
+        given:
+            PrometheusTailer collector = new PrometheusTailer() {}
+            Tailer tailer = collector.newTailer("text_peaks", [1, 10] as double[])
+            [3, 12, 0].each { tailer.onProbe(new ProbeHolder(it, 1000L)) }
+            StringBuilder out = new StringBuilder()
+        when:
+            collector.writeTextFormat(out)
+        then:
+            out.toString() == collector.collect().collect { family ->
+                "# HELP ${family.name} ${family.help}\n# TYPE ${family.name} ${family.type.name().toLowerCase()}\n" +
+                        family.samples.collect { sample ->
+                            String labels = sample.labelNames ? "{${sample.labelNames[0]}=\"${sample.labelValues[0]}\"}" : ""
+                            "${sample.name}${labels} ${sample.value as long}\n"
+                        }.join()
+            }.join()
+            out.toString().contains('text_peaks_distribution_bucket{le="10.0"} 2\n')
+    }
+
+    private static Map<String, Double> samples(String source)
+    {
+        return PrometheusTailer.COLLECTOR.collect()
+                .findAll { it.name.startsWith(source) && it.type == Collector.Type.GAUGE }
+                .collectEntries { [(it.name): it.samples[0].value] }
+    }
+
+    private static Map<String, Double> samples(SourceCollector tailer)
+    {
+        return tailer.collect()
+                .findAll { it.type == Collector.Type.GAUGE }
+                .collectEntries { [(it.name): it.samples[0].value] }
+    }
 }
@@ -0,0 +1,70 @@
+package io.github.pedegie.stats.tailerstatsd;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Encodes {@code metric:value|g[|#tags]\n} gauge lines straight into {@link ByteBuffer}, value is written digit by
+ * digit, so nothing is allocated. StatsD treats signed gauge value as delta of current one, so negative counts are
+ * sent as 0
+ */
+final class GaugeEncoder
+{
+    /**
+     * {@code int} value with sign and new line
+     */
+    private static final int MAX_VALUE_LENGTH = 11 + 1;
+
+    private GaugeEncoder()
+    {
+    }
+
+    static byte[] encodePrefix(String metric)
+    {
+        return (metric + ':').getBytes(StandardCharsets.US_ASCII);
+    }
+
+    static byte[] encodeSuffix(List<String> tags)
+    {
+        String suffix = tags.isEmpty() ? "|g" : "|g|#" + String.join(",", tags);
+        return suffix.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    static int maxLineLength(byte[] prefix, byte[] suffix)
+    {
+        return prefix.length + suffix.length + MAX_VALUE_LENGTH;
+    }
+
+    static void putLine(ByteBuffer buffer, byte[] prefix, int value, byte[] suffix)
+    {
+        buffer.put(prefix);
+        putInt(buffer, Math.max(0, value));
+        buffer.put(suffix);
+        buffer.put((byte) '\n');
+    }
+
+    static void putInt(ByteBuffer buffer, int value)
+    {
+        long digits = value;
+        if (digits < 0)
+        {
+            buffer.put((byte) '-');
+            digits = -digits;
+        }
+
+        int start = buffer.position();
+        do
+        {
+            buffer.put((byte) ('0' + digits % 10));
+            digits /= 10;
+        } while (digits > 0);
+
+        for (int left = start, right = buffer.position() - 1; left < right; left++, right--)
+        {
+            byte digit = buffer.get(left);
+            buffer.put(left, buffer.get(right));
+            buffer.put(right, digit);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package io.github.pedegie.stats.tailerstatsd;
+
+import lombok.AccessLevel;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.With;
+import lombok.experimental.FieldDefaults;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+
+@Builder
+@Getter
+@FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+@With
+public class StatsdConfiguration
+{
+    /**
+     * Fits into ethernet MTU together with IP and UDP headers
+     */
+    private static final int DEFAULT_PACKET_BYTES = 1432;
+
+    @Builder.Default
+    InetSocketAddress address = new InetSocketAddress("localhost", 8125);
+    /**
+     * Name of gauge, e.g. {@code app.orders.queue.size}
+     */
+    String metric;
+    /**
+     * DogStatsD tags, e.g. {@code env:prod}, appended to every line if not empty
+     */
+    @Builder.Default
+    List<String> tags = List.of();
+    /**
+     * Size of single datagram, lines are coalesced until next one doesn't fit
+     */
+    @Builder.Default
+    int packetBytes = DEFAULT_PACKET_BYTES;
+    /**
+     * Partially filled packet is sent if previous one was sent longer ago
+     */
+    @Builder.Default
+    long flushMillis = 1000;
+    /**
+     * Instead of line per probe sends only last, min and max count per flush - {@code metric}, {@code metric.min} and
+     * {@code metric.max} gauges
+     */
+    @Builder.Default
+    boolean aggregate = false;
+}
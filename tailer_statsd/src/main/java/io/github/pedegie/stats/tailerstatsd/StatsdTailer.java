@@ -0,0 +1,171 @@
+package io.github.pedegie.stats.tailerstatsd;
+
+import io.github.pedegie.stats.api.queue.probe.Probe;
+import io.github.pedegie.stats.api.tailer.BatchTailer;
+import io.github.pedegie.stats.api.tailer.ProbeBatch;
+import io.github.pedegie.stats.api.tailer.Tailer;
+import lombok.AccessLevel;
+import lombok.SneakyThrows;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+
+/**
+ * Sends probes as StatsD gauges over UDP. Gauge lines are coalesced in direct {@link ByteBuffer} of single datagram
+ * size, which is sent once next line doesn't fit, {@code flushMillis} passed since previous packet or, when configured
+ * as {@link BatchTailer}, at the end of every batch - so there is at most one partially filled packet per batch read
+ * by {@code ProbeTailer}. With {@code aggregate} only last, min and max count per flush are sent.
+ * <p>
+ * Datagram channel is non-blocking, packets which don't fit into socket buffer are dropped, as UDP would do anyway.
+ * Like {@code ProbeTailer} it's not thread safe, {@link #flush()} should be invoked by thread reading probes.
+ */
+@FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+@Slf4j
+public class StatsdTailer implements Tailer, BatchTailer
+{
+    byte[] prefix;
+    byte[] minPrefix;
+    byte[] maxPrefix;
+    byte[] suffix;
+    int maxLineLength;
+    long flushMillis;
+    boolean aggregate;
+    ByteBuffer packet;
+    DatagramChannel channel;
+
+    @NonFinal
+    long lastFlush;
+    @NonFinal
+    long droppedPackets;
+    @NonFinal
+    boolean aggregated;
+    @NonFinal
+    int last;
+    @NonFinal
+    int min;
+    @NonFinal
+    int max;
+
+    @SneakyThrows
+    public StatsdTailer(StatsdConfiguration configuration)
+    {
+        if (configuration.getMetric() == null || configuration.getMetric().isBlank() || configuration.getAddress() == null)
+            throw new IllegalArgumentException("Wrong configuration of " + StatsdConfiguration.class.getName() + "\n" +
+                    "address and metric have to be set");
+
+        this.prefix = GaugeEncoder.encodePrefix(configuration.getMetric());
+        this.minPrefix = GaugeEncoder.encodePrefix(configuration.getMetric() + ".min");
+        this.maxPrefix = GaugeEncoder.encodePrefix(configuration.getMetric() + ".max");
+        this.suffix = GaugeEncoder.encodeSuffix(configuration.getTags());
+        this.maxLineLength = GaugeEncoder.maxLineLength(maxPrefix, suffix);
+
+        int linesPerFlush = configuration.isAggregate() ? 3 : 1;
+        if (configuration.getPacketBytes() < maxLineLength * linesPerFlush)
+            throw new IllegalArgumentException("Wrong configuration of " + StatsdConfiguration.class.getName() + "\n" +
+                    "packetBytes: " + configuration.getPacketBytes() + " cannot be less than " + maxLineLength * linesPerFlush);
+
+        this.flushMillis = configuration.getFlushMillis();
+        this.aggregate = configuration.isAggregate();
+        this.packet = ByteBuffer.allocateDirect(configuration.getPacketBytes());
+        this.channel = DatagramChannel.open();
+        channel.configureBlocking(false);
+        channel.connect(configuration.getAddress());
+        this.lastFlush = System.currentTimeMillis();
+    }
+
+    @Override
+    public void onProbe(Probe probe)
+    {
+        add(probe.getCount());
+        if (System.currentTimeMillis() - lastFlush >= flushMillis)
+            flush();
+    }
+
+    @Override
+    public void onBatch(ProbeBatch batch)
+    {
+        for (int i = 0; i < batch.size(); i++)
+        {
+            add(batch.count(i));
+        }
+        flush();
+    }
+
+    private void add(int count)
+    {
+        if (aggregate)
+        {
+            min = aggregated ? Math.min(min, count) : count;
+            max = aggregated ? Math.max(max, count) : count;
+            last = count;
+            aggregated = true;
+            return;
+        }
+
+        if (packet.remaining() < maxLineLength)
+            send();
+
+        GaugeEncoder.putLine(packet, prefix, count, suffix);
+    }
+
+    /**
+     * Sends partially filled packet, including aggregated gauges. Invoke it periodically if probes are read rarely
+     * by {@link Tailer}, otherwise they are sent by next read after {@code flushMillis}
+     */
+    public void flush()
+    {
+        lastFlush = System.currentTimeMillis();
+        if (aggregated)
+        {
+            GaugeEncoder.putLine(packet, prefix, last, suffix);
+            GaugeEncoder.putLine(packet, minPrefix, min, suffix);
+            GaugeEncoder.putLine(packet, maxPrefix, max, suffix);
+            aggregated = false;
+        }
+        send();
+    }
+
+    private void send()
+    {
+        if (packet.position() == 0)
+            return;
+
+        packet.flip();
+        try
+        {
+            if (channel.write(packet) == 0)
+                droppedPackets++;
+        } catch (IOException e)
+        {
+            // nobody listens on connected port, StatsD agent may be restarting
+            droppedPackets++;
+            log.debug("Cannot send StatsD packet.", e);
+        }
+        packet.clear();
+    }
+
+    /**
+     * @return amount of packets which couldn't be sent
+     */
+    public long droppedPackets()
+    {
+        return droppedPackets;
+    }
+
+    @Override
+    public void onClose()
+    {
+        flush();
+        try
+        {
+            channel.close();
+        } catch (IOException e)
+        {
+            log.warn("Error during closing StatsD channel.", e);
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package io.github.pedegie.stats.tailerstatsd
+
+import io.github.pedegie.stats.api.queue.BusyWaiter
+import io.github.pedegie.stats.api.queue.FileUtils
+import io.github.pedegie.stats.api.queue.QueueConfiguration
+import io.github.pedegie.stats.api.queue.StatsQueue
+import io.github.pedegie.stats.api.queue.probe.ProbeHolder
+import io.github.pedegie.stats.api.tailer.ProbeTailer
+import io.github.pedegie.stats.api.tailer.TailerConfiguration
+import net.openhft.chronicle.core.OS
+import spock.lang.Specification
+
+import java.nio.charset.StandardCharsets
+import java.nio.file.Path
+import java.nio.file.Paths
+import java.util.concurrent.ConcurrentLinkedQueue
+import java.util.concurrent.CopyOnWriteArrayList
+
+class StatsdTailerTest extends Specification
+{
+    private static final Path PATH = Paths.get(System.getProperty("java.io.tmpdir").toString(), "stats_queue", "stats_queue.log")
+
+    UdpReceiver receiver = new UdpReceiver()
+
+    def setup()
+    {
+        FileUtils.cleanDirectory(PATH.getParent())
+    }
+
+    def cleanup()
+    {
+        receiver.close()
+    }
+
+    def cleanupSpec()
+    {
+        FileUtils.cleanDirectory(PATH.getParent())
+    }
+
+    def "should coalesce gauge lines into packets"()
+    {
+        given:
+            StatsdTailer tailer = new StatsdTailer(configuration().packetBytes(64).build())
+        when:
+            (1..10).each { tailer.onProbe(new ProbeHolder(it * 100, 0L)) }
+            tailer.onClose()
+        then:
+            receiver.await(10)
+            receiver.lines() == (1..10).collect { "queue.size:${it * 100}|g".toString() }
+            receiver.packets.every { it.length() <= 64 }
+            receiver.packets.size() < 10
+    }
+
+    def "should append DogStatsD tags"()
+    {
+        given:
+            StatsdTailer tailer = new StatsdTailer(configuration().tags(["env:test", "service:orders"]).build())
+        when:
+            tailer.onProbe(new ProbeHolder(7, 0L))
+            tailer.flush()
+        then:
+            receiver.await(1)
+            receiver.lines() == ["queue.size:7|g|#env:test,service:orders"]
+        cleanup:
+            tailer.onClose()
+    }
+
+    def "should send negative count as 0 instead of gauge delta"()
+    {
+        given:
+            StatsdTailer tailer = new StatsdTailer(configuration().build())
+        when:
+            tailer.onProbe(new ProbeHolder(-5, 0L))
+            tailer.onProbe(new ProbeHolder(Integer.MIN_VALUE, 0L))
+            tailer.flush()
+        then:
+            receiver.await(2)
+            receiver.lines() == ["queue.size:0|g", "queue.size:0|g"]
+        cleanup:
+            tailer.onClose()
+    }
+
+    def "should send last, min and max per flush if aggregating"()
+    {
+        given:
+            StatsdTailer tailer = new StatsdTailer(configuration().aggregate(true).build())
+        when:
+            [50, 900, 3, 20].each { tailer.onProbe(new ProbeHolder(it, 0L)) }
+            tailer.flush()
+            tailer.flush()
+        then:
+            receiver.await(3)
+            receiver.packets.size() == 1
+            receiver.lines() == ["queue.size:20|g", "queue.size.min:3|g", "queue.size.max:900|g"]
+        cleanup:
+            tailer.onClose()
+    }
+
+    def "should send single packet per batch read by ProbeTailer"()
+    {
+        given:
+            StatsQueue<Integer> queue = StatsQueue.queue(new ConcurrentLinkedQueue<Integer>(), QueueConfiguration.builder()
+                    .path(PATH)
+                    .mmapSize(OS.pageSize())
+                    .build())
+            (1..20).each { queue.add(it) }
+            queue.close()
+            ProbeTailer probeTailer = ProbeTailer.from(TailerConfiguration.builder()
+                    .batchTailer(new StatsdTailer(configuration().build()))
+                    .path(PATH)
+                    .build())
+        when:
+            probeTailer.read()
+            probeTailer.close()
+        then:
+            receiver.await(21)
+            receiver.lines()*.split("[:|]")*.getAt(1)*.toInteger() == (1..20).toList() + [20]
+            receiver.packets.size() <= 2
+    }
+
+    def "should throw an exception if packet cannot fit single line"()
+    {
+        when:
+            new StatsdTailer(configuration().packetBytes(10).build())
+        then:
+            thrown(IllegalArgumentException)
+    }
+
+    private StatsdConfiguration.StatsdConfigurationBuilder configuration()
+    {
+        return StatsdConfiguration.builder()
+                .address(new InetSocketAddress("localhost", receiver.port))
+                .metric("queue.size")
+    }
+
+    /**
+     * Local stand-in of StatsD agent collecting received packets
+     */
+    private static class UdpReceiver implements Closeable
+    {
+        DatagramSocket socket = new DatagramSocket(0, InetAddress.getByName("localhost"))
+        List<String> packets = new CopyOnWriteArrayList<>()
+
+        UdpReceiver()
+        {
+            Thread.start {
+                byte[] buffer = new byte[65_536]
+                while (!socket.isClosed())
+                {
+                    try
+                    {
+                        DatagramPacket packet = new DatagramPacket(buffer, buffer.length)
+                        socket.receive(packet)
+                        packets.add(new String(packet.data, 0, packet.length, StandardCharsets.US_ASCII))
+                    } catch (IOException ignored)
+                    {
+                    }
+                }
+            }
+        }
+
+        int getPort()
+        {
+            return socket.localPort
+        }
+
+        List<String> lines()
+        {
+            return packets.collectMany { it.readLines() }
+        }
+
+        boolean await(int expectedLines)
+        {
+            return BusyWaiter.busyWaitMillis({ lines().size() >= expectedLines }, 5000, "waiting for " + expectedLines + " lines")
+        }
+
+        @Override
+        void close()
+        {
+            socket.close()
+        }
+    }
+}